@@ -0,0 +1,80 @@
+package benchmarks;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * A minimal micro-benchmark harness: warms an operation up, times it over
+ * several measurement rounds, and reports the time and the heap allocation
+ * per operation.
+ * <p>
+ * Allocation is read from the per-thread allocation counter of HotSpot
+ * (<tt>com.sun.management.ThreadMXBean</tt>), which gives the same figure
+ * as the "gc.alloc.rate.norm" column of JMH's GC profiler.
+ */
+public class Bench {
+
+	/**
+	 * An operation to measure. <tt>run(n)</tt> performs the operation n
+	 * times and returns a value that depends on the work done, so that the
+	 * JIT compiler cannot remove it.
+	 */
+	public interface Op {
+		long run(int n);
+	}
+
+	private static final long WARMUP_NANOS = 500_000_000L;
+	private static final long ROUND_NANOS = 200_000_000L;
+	private static final int ROUNDS = 5;
+
+	private static final com.sun.management.ThreadMXBean THREADS =
+		(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+	// sink for the results of the operations
+	static volatile long sink;
+
+	/**
+	 * Prints the header of the result table.
+	 */
+	public static void header() {
+		System.out.println(String.format("%-40s %12s %14s %14s",
+			"Benchmark", "param", "ns/op", "bytes/op"));
+	}
+
+	/**
+	 * Measures op and prints one row of results.
+	 * @requires name != null && op != null
+	 * @effects runs op repeatedly and prints its average time and
+	 *          allocation per operation, over the best round.
+	 */
+	public static void measure(String name, long param, Op op) {
+		// warm up, and find a batch size that takes about 10ms
+		int n = 1;
+		long start = System.nanoTime();
+		while (System.nanoTime() - start < WARMUP_NANOS) {
+			long t = System.nanoTime();
+			sink += op.run(n);
+			if (System.nanoTime() - t < 10_000_000L && n < (1 << 30)) {
+				n *= 2;
+			}
+		}
+
+		double bestNanos = Double.POSITIVE_INFINITY;
+		double bestBytes = Double.POSITIVE_INFINITY;
+		for (int round = 0; round < ROUNDS; round++) {
+			long ops = 0;
+			long bytes = THREADS.getCurrentThreadAllocatedBytes();
+			long t = System.nanoTime();
+			long elapsed;
+			do {
+				sink += op.run(n);
+				ops += n;
+				elapsed = System.nanoTime() - t;
+			} while (elapsed < ROUND_NANOS);
+			bytes = THREADS.getCurrentThreadAllocatedBytes() - bytes;
+			bestNanos = Math.min(bestNanos, (double)elapsed / ops);
+			bestBytes = Math.min(bestBytes, (double)bytes / ops);
+		}
+		System.out.println(String.format("%-40s %12d %14.1f %14.1f",
+			name, param, bestNanos, bestBytes));
+	}
+}
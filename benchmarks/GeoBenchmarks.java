@@ -0,0 +1,284 @@
+package benchmarks;
+
+import homework1.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Iterator;
+
+/**
+ * Benchmarks of the hot paths of the geo model and the formatters:
+ * GeoPoint distances and headings, the bulk kernels of GeoKernels,
+ * GeoSegment construction and headings, Route building and iteration, the
+ * binary route format, and directions for both formatters.
+ * <p>
+ * Route benchmarks are parameterized by the number of segments. Usage:
+ * <pre>
+ *   java benchmarks.GeoBenchmarks [size,size,...]
+ * </pre>
+ * where the default sizes are 10,1000,100000,1000000.
+ */
+public class GeoBenchmarks {
+
+	private static final int[] DEFAULT_SIZES = { 10, 1000, 100000, 1000000 };
+
+	// segments per geographic feature in the generated routes
+	private static final int FEATURE_LENGTH = 10;
+
+	// segments per row of the generated routes; a row spans 10 degrees of
+	// latitude, so any number of rows stays within GeoPoint's range
+	private static final int ROW_LENGTH = 100000;
+
+	/**
+	 * Returns a chain of n segments near the Technion, zigzagging north,
+	 * with a new street name every FEATURE_LENGTH segments. Every
+	 * ROW_LENGTH segments the chain steps east and turns around, so that
+	 * long chains snake back and forth instead of leaving the globe.
+	 */
+	static GeoSegment[] chain(int n) {
+		String[] names = new String[n / FEATURE_LENGTH + 1];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = "Street " + i;
+		}
+		GeoSegment[] segments = new GeoSegment[n];
+		GeoPoint p = point(0);
+		for (int i = 0; i < n; i++) {
+			GeoPoint q = point(i + 1);
+			segments[i] = new GeoSegment(names[i / FEATURE_LENGTH], p, q);
+			p = q;
+		}
+		return segments;
+	}
+
+	// the k'th point of chain()
+	private static GeoPoint point(int k) {
+		int row = k / ROW_LENGTH;
+		int pos = k % ROW_LENGTH;
+		int step = row % 2 == 0 ? pos : ROW_LENGTH - 1 - pos;
+		return new GeoPoint(32000000 + 100 * step,
+			35000000 + 1000 * row + ((k & 1) == 1 ? 50 : 0));
+	}
+
+	static Route route(GeoSegment[] segments) {
+		Route r = new Route(segments[0]);
+		for (int i = 1; i < segments.length; i++) {
+			r = r.addSegment(segments[i]);
+		}
+		return r;
+	}
+
+	static byte[] encode(Route route) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (RouteWriter writer = new RouteWriter(Channels.newChannel(bytes))) {
+			writer.write(route);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	static Route decode(byte[] bytes) {
+		try (RouteReader reader = new RouteReader(
+				Channels.newChannel(new ByteArrayInputStream(bytes)))) {
+			return reader.read();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public static void main(String[] args) {
+		int[] sizes = DEFAULT_SIZES;
+		if (args.length > 0) {
+			String[] parts = args[0].split(",");
+			sizes = new int[parts.length];
+			for (int i = 0; i < parts.length; i++) {
+				sizes[i] = Integer.parseInt(parts[i].trim());
+			}
+		}
+
+		final GeoPoint a = ExampleGeoSegments.points[0];
+		final GeoPoint[] others = ExampleGeoSegments.points;
+		final GeoSegment[] example = ExampleGeoSegments.segments;
+
+		Bench.header();
+		Bench.measure("GeoPoint.distanceTo", 1, n -> {
+			double sum = 0;
+			for (int i = 0; i < n; i++) {
+				sum += a.distanceTo(others[1 + (i & 7)]);
+			}
+			return (long)sum;
+		});
+		Bench.measure("GeoPoint.headingTo", 1, n -> {
+			double sum = 0;
+			for (int i = 0; i < n; i++) {
+				sum += a.headingTo(others[1 + (i & 7)]);
+			}
+			return (long)sum;
+		});
+		Bench.measure("GeoSegment.<init>", 1, n -> {
+			long sum = 0;
+			for (int i = 0; i < n; i++) {
+				sum += new GeoSegment("Hanita", a, others[1 + (i & 7)]).hashCode();
+			}
+			return sum;
+		});
+		Bench.measure("GeoSegment.getHeading", 1, n -> {
+			double sum = 0;
+			for (int i = 0; i < n; i++) {
+				sum += example[i & 15].getHeading();
+			}
+			return (long)sum;
+		});
+
+		for (int size : sizes) {
+			final int count = size;
+			final int[] lats = new int[count];
+			final int[] lons = new int[count];
+			for (int i = 0; i < count; i++) {
+				lats[i] = 32000000 + (i * 7919) % 1000000;
+				lons[i] = 35000000 + (i * 104729) % 1000000;
+			}
+			final GeoPointTable table = new GeoPointTable(count);
+			for (int i = 0; i < count; i++) {
+				table.add(lats[i], lons[i]);
+			}
+			final double[] out = new double[count];
+			Bench.measure("GeoPointTable.distanceTo (one to many)", count, n -> {
+				double sum = 0;
+				for (int k = 0; k < n; k++) {
+					for (int i = 0; i < count; i++) {
+						sum += table.distanceTo(i, a);
+					}
+				}
+				return (long)sum;
+			});
+			Bench.measure("GeoKernels.distances (one to many)", count, n -> {
+				double sum = 0;
+				for (int k = 0; k < n; k++) {
+					GeoKernels.distances(a.getLatitude(), a.getLongitude(), lats, lons, 0, count, out);
+					sum += out[k % count];
+				}
+				return (long)sum;
+			});
+		}
+
+		final RouteFormatter walking = new WalkingRouteFormatter();
+		final RouteFormatter driving = new DrivingRouteFormatter();
+		for (int size : sizes) {
+			final GeoSegment[] segments = chain(size);
+			final Route route = route(segments);
+
+			Bench.measure("Route.addSegment (whole route)", size, n -> {
+				long sum = 0;
+				for (int i = 0; i < n; i++) {
+					sum += route(segments).getSegmentCount();
+				}
+				return sum;
+			});
+			Bench.measure("PersistentRoute.addSegment (whole route)", size, n -> {
+				long sum = 0;
+				for (int i = 0; i < n; i++) {
+					PersistentRoute r = new PersistentRoute(segments[0]);
+					for (int k = 1; k < segments.length; k++) {
+						r = r.addSegment(segments[k]);
+					}
+					sum += r.getSegmentCount();
+				}
+				return sum;
+			});
+			Bench.measure("Route.getGeoSegments (whole route)", size, n -> {
+				long sum = 0;
+				for (int i = 0; i < n; i++) {
+					Iterator<GeoSegment> iter = route.getGeoSegments();
+					while (iter.hasNext()) {
+						sum += iter.next().getP2().getLatitude();
+					}
+				}
+				return sum;
+			});
+			Bench.measure("Route.getLength", size, n -> {
+				double sum = 0;
+				for (int i = 0; i < n; i++) {
+					sum += route.getLength();
+				}
+				return (long)sum;
+			});
+			Bench.measure("Route.getPointAt", size, n -> {
+				long sum = 0;
+				double step = route.getLength() / 1024;
+				for (int i = 0; i < n; i++) {
+					sum += route.getPointAt((i & 1023) * step).getLatitude();
+				}
+				return sum;
+			});
+			Bench.measure("Route.slice (middle tenth)", size, n -> {
+				long sum = 0;
+				double tenth = route.getLength() / 10;
+				for (int i = 0; i < n; i++) {
+					sum += route.slice(4.5 * tenth, 5.5 * tenth).getSegmentCount();
+				}
+				return sum;
+			});
+			final byte[] encoded = encode(route);
+			Bench.measure("RouteWriter.write", size, n -> {
+				long sum = 0;
+				for (int i = 0; i < n; i++) {
+					sum += encode(route).length;
+				}
+				return sum;
+			});
+			Bench.measure("RouteReader.read", size, n -> {
+				long sum = 0;
+				for (int i = 0; i < n; i++) {
+					sum += decode(encoded).getSegmentCount();
+				}
+				return sum;
+			});
+			final Turn[] turns = new Turn[route.getFeatureCount()];
+			Bench.measure("TurnClassifier.classifyBoundaries", size, n -> {
+				long sum = 0;
+				for (int i = 0; i < n; i++) {
+					sum += TurnClassifier.classifyBoundaries(route, turns);
+				}
+				return sum;
+			});
+			Bench.measure("WalkingRouteFormatter.computeDirections", size, n -> {
+				long sum = 0;
+				for (int i = 0; i < n; i++) {
+					sum += walking.computeDirections(route, 0).length();
+				}
+				return sum;
+			});
+			Bench.measure("DrivingRouteFormatter.computeDirections", size, n -> {
+				long sum = 0;
+				for (int i = 0; i < n; i++) {
+					sum += driving.computeDirections(route, 0).length();
+				}
+				return sum;
+			});
+			final StringBuilder lines = new StringBuilder();
+			Bench.measure("DrivingRouteFormatter (into a reused buffer)", size, n -> {
+				long sum = 0;
+				for (int i = 0; i < n; i++) {
+					lines.setLength(0);
+					try {
+						driving.computeDirections(route, 0, lines);
+					} catch (IOException e) {
+						throw new IllegalStateException(e);
+					}
+					sum += lines.length();
+				}
+				return sum;
+			});
+			final DirectionsCache cache = new DirectionsCache(1 << 24);
+			Bench.measure("DirectionsCache.computeDirections (hit)", size, n -> {
+				long sum = 0;
+				for (int i = 0; i < n; i++) {
+					sum += cache.computeDirections(driving, route, 0).length();
+				}
+				return sum;
+			});
+		}
+	}
+}
@@ -0,0 +1,376 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A ColumnarRoute is a compact alternative representation of a Route,
+ * intended for routes with a very large number of GeoSegments.
+ * <p>
+ * Instead of one GeoFeature object per feature and one GeoSegment object
+ * per segment, a ColumnarRoute keeps the route's points in a GeoPointTable,
+ * the start of each geographic feature in a boundary index, and the
+ * cumulative length of the route in a prefix-sum array. As a result the
+ * total length, the length of any feature and the distance traveled up to
+ * any segment are all answered in constant time.
+ * <p>
+ * Like Route, new segments are appended with <tt>addSegment()</tt>, which
+ * requires the added segment to start where the route ends. Consecutive
+ * segments with the same name are grouped into one geographic feature.
+ * GeoSegments and GeoFeatures are created on demand when requested.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   start : GeoPoint            // location of the start of the route
+ *   end : GeoPoint              // location of the end of the route
+ *   startHeading : angle        // direction of travel at the start of the route, in degrees
+ *   endHeading : angle          // direction of travel at the end of the route, in degrees
+ *   geoFeatures : sequence      // a sequence of geographic features that make up this route
+ *   geoSegments : sequence      // a sequence of segments that make up this route
+ *   length : real               // total length of the route, in kilometers
+ * </pre>
+ **/
+public class ColumnarRoute {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private final GeoPointTable points;
+	private double[] cumulative;
+	private int[] featureStarts;
+	private String[] featureNames;
+	private int segmentCount;
+	private int featureCount;
+
+	/*
+	 * Rep. Invariant:
+	 * points.size() == segmentCount + 1 && segmentCount >= 1 &&
+	 * cumulative[0] == 0 &&
+	 * cumulative[i + 1] == cumulative[i] + points.distanceTo(i, i + 1)
+	 *     for all 0 <= i < segmentCount &&
+	 * 1 <= featureCount && featureStarts[0] == 0 &&
+	 * featureStarts is strictly increasing over [0, featureCount) and all
+	 *     its values are < segmentCount &&
+	 * featureNames[f] != null && !featureNames[f].equals(featureNames[f + 1])
+	 * Abstraction Function:
+	 * geoSegments[i] = (name of the feature containing i, points[i], points[i + 1]).
+	 * geoFeatures[f] consists of geoSegments[featureStarts[f]] up to but not
+	 * including geoSegments[featureStarts[f + 1]] (or the end of the route
+	 * for the last feature), all named featureNames[f].
+	 * length = cumulative[segmentCount].
+	 */
+
+	/**
+	 * Constructs a new ColumnarRoute.
+	 * @requires gs != null
+	 * @effects Constructs a new ColumnarRoute, r, such that
+	 *          r.startHeading = gs.heading &&
+	 *          r.endHeading = gs.heading &&
+	 *          r.start = gs.p1 &&
+	 *          r.end = gs.p2
+	 **/
+	public ColumnarRoute(GeoSegment gs) {
+		if (gs == null) {
+			throw new IllegalArgumentException();
+		}
+		points = new GeoPointTable(DEFAULT_CAPACITY + 1);
+		cumulative = new double[DEFAULT_CAPACITY + 1];
+		featureStarts = new int[DEFAULT_CAPACITY];
+		featureNames = new String[DEFAULT_CAPACITY];
+
+		points.add(gs.getP1());
+		points.add(gs.getP2());
+		cumulative[1] = gs.getLength();
+		featureStarts[0] = 0;
+		featureNames[0] = gs.getName();
+		segmentCount = 1;
+		featureCount = 1;
+	}
+
+
+	/**
+	 * Constructs a new ColumnarRoute with the same segments as a Route.
+	 * @requires route != null
+	 * @return a new ColumnarRoute whose geoSegments are equal to
+	 *         route.geoSegments.
+	 **/
+	public static ColumnarRoute fromRoute(Route route) {
+		if (route == null) {
+			throw new IllegalArgumentException();
+		}
+		Iterator<GeoSegment> iter = route.getGeoSegments();
+		ColumnarRoute r = new ColumnarRoute(iter.next());
+		while (iter.hasNext()) {
+			r.addSegment(iter.next());
+		}
+		return r;
+	}
+
+
+	/**
+	 * Appends a segment to the end of this.
+	 * @requires gs != null && gs.p1 == this.end
+	 * @modifies this
+	 * @effects this.end = gs.p2 &&
+	 *          this.endHeading = gs.heading &&
+	 *          this.length = old(this.length) + gs.length
+	 * @return this
+	 **/
+	public ColumnarRoute addSegment(GeoSegment gs) {
+		if (gs == null) {
+			throw new IllegalArgumentException();
+		}
+		GeoPoint p1 = gs.getP1();
+		if (p1.getLatitude() != points.getLatitude(segmentCount) ||
+			p1.getLongitude() != points.getLongitude(segmentCount)) {
+			throw new IllegalArgumentException();
+		}
+
+		if (!featureNames[featureCount - 1].equals(gs.getName())) {
+			if (featureCount == featureStarts.length) {
+				featureStarts = Arrays.copyOf(featureStarts, featureCount * 2);
+				featureNames = Arrays.copyOf(featureNames, featureCount * 2);
+			}
+			featureStarts[featureCount] = segmentCount;
+			featureNames[featureCount] = gs.getName();
+			featureCount++;
+		}
+
+		if (segmentCount + 1 == cumulative.length) {
+			cumulative = Arrays.copyOf(cumulative, cumulative.length * 2);
+		}
+		points.add(gs.getP2());
+		cumulative[segmentCount + 1] = cumulative[segmentCount] + gs.getLength();
+		segmentCount++;
+		return this;
+	}
+
+
+	/**
+	 * Returns location of the start of the route.
+	 * @return location of the start of the route.
+	 **/
+	public GeoPoint getStart() {
+		return points.get(0);
+	}
+
+
+	/**
+	 * Returns location of the end of the route.
+	 * @return location of the end of the route.
+	 **/
+	public GeoPoint getEnd() {
+		return points.get(segmentCount);
+	}
+
+
+	/**
+	 * Returns direction of travel at the start of the route, in degrees.
+	 * @return direction (in compass heading) of travel at the start of the
+	 *         route, in degrees.
+	 **/
+	public double getStartHeading() {
+		return segmentHeading(0);
+	}
+
+
+	/**
+	 * Returns direction of travel at the end of the route, in degrees.
+	 * @return direction (in compass heading) of travel at the end of the
+	 *         route, in degrees.
+	 **/
+	public double getEndHeading() {
+		return segmentHeading(segmentCount - 1);
+	}
+
+
+	/**
+	 * Returns total length of the route.
+	 * @return total length of the route, in kilometers.
+	 **/
+	public double getLength() {
+		return cumulative[segmentCount];
+	}
+
+
+	/**
+	 * Returns the number of segments in this.
+	 * @return the length of this.geoSegments.
+	 **/
+	public int getSegmentCount() {
+		return segmentCount;
+	}
+
+
+	/**
+	 * Returns the number of geographic features in this.
+	 * @return the length of this.geoFeatures.
+	 **/
+	public int getFeatureCount() {
+		return featureCount;
+	}
+
+
+	/**
+	 * Returns the distance traveled along this route before a segment.
+	 * @requires 0 <= i <= this.segmentCount
+	 * @return sum(0 <= j < i) . geoSegments[j].length, in kilometers.
+	 **/
+	public double getDistanceAt(int i) {
+		if (i < 0 || i > segmentCount) {
+			throw new IndexOutOfBoundsException();
+		}
+		return cumulative[i];
+	}
+
+
+	/**
+	 * Returns the name of a geographic feature.
+	 * @requires 0 <= f < this.featureCount
+	 * @return geoFeatures[f].name
+	 **/
+	public String getFeatureName(int f) {
+		checkFeature(f);
+		return featureNames[f];
+	}
+
+
+	/**
+	 * Returns the length of a geographic feature.
+	 * @requires 0 <= f < this.featureCount
+	 * @return geoFeatures[f].length, in kilometers.
+	 **/
+	public double getFeatureLength(int f) {
+		checkFeature(f);
+		return cumulative[featureEnd(f)] - cumulative[featureStarts[f]];
+	}
+
+
+	/**
+	 * Returns a segment of this.
+	 * @requires 0 <= i < this.segmentCount
+	 * @return a GeoSegment equal to geoSegments[i].
+	 **/
+	public GeoSegment getGeoSegment(int i) {
+		if (i < 0 || i >= segmentCount) {
+			throw new IndexOutOfBoundsException();
+		}
+		return segment(featureNames[featureOf(i)], i);
+	}
+
+
+	/**
+	 * Returns an Iterator of GeoSegment objects. The concatenation of the
+	 * GeoSegments, in order, is equivalent to this route.
+	 * @return an Iterator over newly created GeoSegments equal to
+	 *         this.geoSegments.
+	 **/
+	public Iterator<GeoSegment> getGeoSegments() {
+		return new Iterator<GeoSegment>() {
+			private int i = 0;
+			private int f = 0;
+
+			public boolean hasNext() {
+				return i < segmentCount;
+			}
+
+			public GeoSegment next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				if (f + 1 < featureCount && featureStarts[f + 1] == i) {
+					f++;
+				}
+				return segment(featureNames[f], i++);
+			}
+		};
+	}
+
+
+	/**
+	 * Returns an Iterator of GeoFeature objects. The concatenation of the
+	 * GeoFeatures, in order, is equivalent to this route. No two
+	 * consecutive GeoFeature objects have the same name.
+	 * @return an Iterator over newly created GeoFeatures equal to
+	 *         this.geoFeatures.
+	 **/
+	public Iterator<GeoFeature> getGeoFeatures() {
+		ArrayList<GeoFeature> list = new ArrayList<GeoFeature>(featureCount);
+		for (int f = 0; f < featureCount; f++) {
+			GeoFeature gf = new GeoFeature(segment(featureNames[f], featureStarts[f]));
+			for (int i = featureStarts[f] + 1; i < featureEnd(f); i++) {
+				gf = gf.addSegment(segment(featureNames[f], i));
+			}
+			list.add(gf);
+		}
+		return list.iterator();
+	}
+
+
+	/**
+	 * Converts this to a Route.
+	 * @return a new Route whose geoSegments are equal to this.geoSegments.
+	 **/
+	public Route toRoute() {
+		Iterator<GeoSegment> iter = getGeoSegments();
+		Route r = new Route(iter.next());
+		while (iter.hasNext()) {
+			r = r.addSegment(iter.next());
+		}
+		return r;
+	}
+
+
+	/**
+	 * Releases unused capacity.
+	 * @modifies this
+	 * @effects shrinks the storage of this to exactly fit its segments.
+	 **/
+	public void trimToSize() {
+		points.trimToSize();
+		cumulative = Arrays.copyOf(cumulative, segmentCount + 1);
+		featureStarts = Arrays.copyOf(featureStarts, featureCount);
+		featureNames = Arrays.copyOf(featureNames, featureCount);
+	}
+
+
+	/**
+	 * Returns a string representation of this.
+	 * @return a string representation of this.
+	 **/
+	public String toString() {
+		StringBuffer s = new StringBuffer();
+		Iterator<GeoFeature> iter = getGeoFeatures();
+		while (iter.hasNext()) {
+			s.append(iter.next().toString() + "\n");
+		}
+		return new String(s);
+	}
+
+	private GeoSegment segment(String name, int i) {
+		return new GeoSegment(name, points.get(i), points.get(i + 1));
+	}
+
+	private double segmentHeading(int i) {
+		if (cumulative[i + 1] == cumulative[i]) {
+			throw new IllegalStateException();
+		}
+		return points.headingTo(i, i + 1);
+	}
+
+	private int featureEnd(int f) {
+		return f + 1 < featureCount ? featureStarts[f + 1] : segmentCount;
+	}
+
+	private int featureOf(int i) {
+		int f = Arrays.binarySearch(featureStarts, 0, featureCount, i);
+		return f >= 0 ? f : -f - 2;
+	}
+
+	private void checkFeature(int f) {
+		if (f < 0 || f >= featureCount) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+}
@@ -0,0 +1,547 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A ContractionHierarchy is a preprocessed form of a RoadGraph that answers
+ * shortest-route queries much faster than a search over the plain graph,
+ * for workloads with many queries over the same static network.
+ * <p>
+ * Preprocessing contracts the points of the graph one by one, from the
+ * least to the most important. Contracting a point removes it from the
+ * remaining graph and adds a shortcut edge u -> w for every shortest path
+ * u -> v -> w through it that has no equally short alternative (witness).
+ * Each point gets a rank, its position in the contraction order.
+ * <p>
+ * A query runs a bidirectional Dijkstra search in which both directions
+ * only move to points of higher rank. The shortcuts of the best path found
+ * are then unpacked back into the original GeoSegments, so the result is a
+ * normal Route, equal in length to the one found by
+ * <tt>RoadGraph.shortestRoute()</tt>.
+ * <p>
+ * ContractionHierarchies are immutable once built, and can be queried
+ * concurrently.
+ **/
+public class ContractionHierarchy {
+
+	// number of points a witness search may settle before giving up; giving
+	// up only costs an unnecessary shortcut, never a wrong result
+	private static final int WITNESS_SETTLE_LIMIT = 500;
+
+	private final RoadGraph graph;
+	private final int[] rank;
+	private final int originalEdges;
+
+	// for edges >= originalEdges: the two edges that a shortcut stands for
+	private final int[] shortcutFirst;
+	private final int[] shortcutSecond;
+
+	// upward edges u -> v (rank[u] < rank[v]), stored at u
+	private final int[] upStart, upTarget, upEdge;
+	private final double[] upWeight;
+
+	// downward edges u -> v (rank[u] > rank[v]), stored reversed at v
+	private final int[] downStart, downTarget, downEdge;
+	private final double[] downWeight;
+
+	private final ThreadLocal<QueryState> queryState;
+
+	/*
+	 * Rep. Invariant:
+	 * rank is a permutation of 0 .. graph.nodeCount() - 1; edges 0 ..
+	 * originalEdges - 1 are the edges of graph; edge originalEdges + i is a
+	 * shortcut for the path shortcutFirst[i] followed by shortcutSecond[i],
+	 * and its weight is the sum of their weights; the up and down arrays
+	 * hold every edge exactly once, in CSR form as in RoadGraph.
+	 * Abstraction Function:
+	 * this represents graph; for any two points, the shortest up-down path
+	 * in the hierarchy has the length of a shortest path in graph.
+	 */
+
+	/**
+	 * Builds a contraction hierarchy over a RoadGraph.
+	 * @requires graph != null
+	 * @effects preprocesses graph into a new ContractionHierarchy.
+	 **/
+	public ContractionHierarchy(RoadGraph graph) {
+		if (graph == null) {
+			throw new IllegalArgumentException();
+		}
+		this.graph = graph;
+		int n = graph.nodeCount();
+		originalEdges = graph.getEdgeCount();
+
+		Builder b = new Builder(graph);
+		b.contractAll();
+		rank = b.rank;
+
+		shortcutFirst = Arrays.copyOfRange(b.child1, originalEdges, b.edgeCount);
+		shortcutSecond = Arrays.copyOfRange(b.child2, originalEdges, b.edgeCount);
+
+		// split the edges into upward and (reversed) downward CSR graphs
+		upStart = new int[n + 1];
+		downStart = new int[n + 1];
+		for (int e = 0; e < b.edgeCount; e++) {
+			if (rank[b.from[e]] < rank[b.to[e]]) {
+				upStart[b.from[e] + 1]++;
+			} else {
+				downStart[b.to[e] + 1]++;
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			upStart[v + 1] += upStart[v];
+			downStart[v + 1] += downStart[v];
+		}
+		upTarget = new int[upStart[n]];
+		upEdge = new int[upStart[n]];
+		upWeight = new double[upStart[n]];
+		downTarget = new int[downStart[n]];
+		downEdge = new int[downStart[n]];
+		downWeight = new double[downStart[n]];
+		int[] upFill = Arrays.copyOf(upStart, n);
+		int[] downFill = Arrays.copyOf(downStart, n);
+		for (int e = 0; e < b.edgeCount; e++) {
+			if (rank[b.from[e]] < rank[b.to[e]]) {
+				int slot = upFill[b.from[e]]++;
+				upTarget[slot] = b.to[e];
+				upEdge[slot] = e;
+				upWeight[slot] = b.weight[e];
+			} else {
+				int slot = downFill[b.to[e]]++;
+				downTarget[slot] = b.from[e];
+				downEdge[slot] = e;
+				downWeight[slot] = b.weight[e];
+			}
+		}
+
+		queryState = ThreadLocal.withInitial(() -> new QueryState(n));
+	}
+
+
+	/**
+	 * Returns the number of shortcut edges added by preprocessing.
+	 * @return the number of shortcut edges in this.
+	 **/
+	public int getShortcutCount() {
+		return shortcutFirst.length;
+	}
+
+
+	/**
+	 * Computes a shortest route between two points of the network.
+	 * @requires from != null && to != null && !from.equals(to) &&
+	 *           from and to are points of the graph of this
+	 * @return a Route r from <tt>from</tt> to <tt>to</tt> made of edges of
+	 *         the graph of this, such that no such route is shorter than r,
+	 *         or null if <tt>to</tt> cannot be reached from <tt>from</tt>.
+	 **/
+	public Route shortestRoute(GeoPoint from, GeoPoint to) {
+		if (from == null || to == null || from.equals(to)) {
+			throw new IllegalArgumentException();
+		}
+		int source = graph.nodeOf(from, false);
+		int target = graph.nodeOf(to, false);
+		if (source < 0 || target < 0) {
+			throw new IllegalArgumentException();
+		}
+
+		QueryState q = queryState.get();
+		try {
+			int meet = search(q, source, target);
+			if (meet < 0) {
+				return null;
+			}
+
+			// collect the hierarchy edges of the path, in order
+			int count = 0;
+			for (int v = meet; v != source; v = edgeFrom(q.forwardEdge[v])) {
+				count++;
+			}
+			for (int v = meet; v != target; v = edgeTo(q.backwardEdge[v])) {
+				count++;
+			}
+			int[] path = new int[count];
+			int i = 0;
+			for (int v = meet; v != source; v = edgeFrom(q.forwardEdge[v])) {
+				path[i++] = q.forwardEdge[v];
+			}
+			for (int a = 0, z = i - 1; a < z; a++, z--) {
+				int t = path[a];
+				path[a] = path[z];
+				path[z] = t;
+			}
+			for (int v = meet; v != target; v = edgeTo(q.backwardEdge[v])) {
+				path[i++] = q.backwardEdge[v];
+			}
+
+			// unpack the shortcuts into edges of the graph
+			Route route = null;
+			int[] stack = new int[16];
+			for (int e : path) {
+				int top = 0;
+				stack[top++] = e;
+				while (top > 0) {
+					int x = stack[--top];
+					if (x < originalEdges) {
+						GeoSegment gs = graph.edgeSegment(x);
+						route = route == null ? new Route(gs) : route.addSegment(gs);
+					} else {
+						if (top + 2 > stack.length) {
+							stack = Arrays.copyOf(stack, stack.length * 2);
+						}
+						stack[top++] = shortcutSecond[x - originalEdges];
+						stack[top++] = shortcutFirst[x - originalEdges];
+					}
+				}
+			}
+			return route;
+		} finally {
+			q.reset();
+		}
+	}
+
+	/**
+	 * Per-thread state of the bidirectional query. Distances are reset
+	 * through the list of touched points, so a query costs time in the size
+	 * of its search space rather than in the size of the graph. The state
+	 * holds no reference to the hierarchy, so a thread that keeps it does
+	 * not keep the hierarchy alive.
+	 */
+	private static final class QueryState {
+		final double[] forwardDist, backwardDist;
+		final int[] forwardEdge, backwardEdge;
+		final NodeHeap forwardHeap, backwardHeap;
+		int[] touched = new int[64];
+		int touchedCount = 0;
+
+		QueryState(int n) {
+			forwardDist = new double[n];
+			backwardDist = new double[n];
+			Arrays.fill(forwardDist, Double.POSITIVE_INFINITY);
+			Arrays.fill(backwardDist, Double.POSITIVE_INFINITY);
+			forwardEdge = new int[n];
+			backwardEdge = new int[n];
+			forwardHeap = new NodeHeap(n);
+			backwardHeap = new NodeHeap(n);
+		}
+
+		void touch(int v) {
+			if (forwardDist[v] == Double.POSITIVE_INFINITY &&
+				backwardDist[v] == Double.POSITIVE_INFINITY) {
+				if (touchedCount == touched.length) {
+					touched = Arrays.copyOf(touched, touchedCount * 2);
+				}
+				touched[touchedCount++] = v;
+			}
+		}
+
+		void reset() {
+			for (int i = 0; i < touchedCount; i++) {
+				forwardDist[touched[i]] = Double.POSITIVE_INFINITY;
+				backwardDist[touched[i]] = Double.POSITIVE_INFINITY;
+			}
+			touchedCount = 0;
+			forwardHeap.clear();
+			backwardHeap.clear();
+		}
+	}
+
+	/**
+	 * Runs the bidirectional search of a query in q.
+	 * @return the point where the shortest up-down path from source to
+	 *         target meets, or -1 if there is none.
+	 */
+	private int search(QueryState q, int source, int target) {
+		q.touch(source);
+		q.touch(target);
+		q.forwardDist[source] = 0;
+		q.backwardDist[target] = 0;
+		q.forwardHeap.insertOrDecrease(source, 0);
+		q.backwardHeap.insertOrDecrease(target, 0);
+		double best = Double.POSITIVE_INFINITY;
+		int meet = -1;
+
+		while (true) {
+			boolean forward = !q.forwardHeap.isEmpty() && q.forwardHeap.peekKey() < best;
+			boolean backward = !q.backwardHeap.isEmpty() && q.backwardHeap.peekKey() < best;
+			if (!forward && !backward) {
+				return meet;
+			}
+			if (forward && (!backward || q.forwardHeap.peekKey() <= q.backwardHeap.peekKey())) {
+				int v = q.forwardHeap.poll();
+				if (q.forwardDist[v] + q.backwardDist[v] < best) {
+					best = q.forwardDist[v] + q.backwardDist[v];
+					meet = v;
+				}
+				for (int i = upStart[v]; i < upStart[v + 1]; i++) {
+					int w = upTarget[i];
+					double d = q.forwardDist[v] + upWeight[i];
+					if (d < q.forwardDist[w]) {
+						q.touch(w);
+						q.forwardDist[w] = d;
+						q.forwardEdge[w] = upEdge[i];
+						q.forwardHeap.insertOrDecrease(w, d);
+						if (d + q.backwardDist[w] < best) {
+							best = d + q.backwardDist[w];
+							meet = w;
+						}
+					}
+				}
+			} else {
+				int v = q.backwardHeap.poll();
+				if (q.forwardDist[v] + q.backwardDist[v] < best) {
+					best = q.forwardDist[v] + q.backwardDist[v];
+					meet = v;
+				}
+				for (int i = downStart[v]; i < downStart[v + 1]; i++) {
+					int w = downTarget[i];
+					double d = q.backwardDist[v] + downWeight[i];
+					if (d < q.backwardDist[w]) {
+						q.touch(w);
+						q.backwardDist[w] = d;
+						q.backwardEdge[w] = downEdge[i];
+						q.backwardHeap.insertOrDecrease(w, d);
+						if (d + q.forwardDist[w] < best) {
+							best = d + q.forwardDist[w];
+							meet = w;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private int edgeFrom(int e) {
+		while (e >= originalEdges) {
+			e = shortcutFirst[e - originalEdges];
+		}
+		return graph.edgeSource(e);
+	}
+
+	private int edgeTo(int e) {
+		while (e >= originalEdges) {
+			e = shortcutSecond[e - originalEdges];
+		}
+		return graph.edgeTarget(e);
+	}
+
+	/**
+	 * The mutable state of preprocessing: the growing edge set, with
+	 * per-point in and out edge lists, and the contraction order.
+	 */
+	private static class Builder {
+		final int n;
+		int[] from, to, child1, child2;
+		double[] weight;
+		int edgeCount;
+
+		final int[][] out, in;
+		final int[] outSize, inSize;
+		final boolean[] contracted;
+		final int[] contractedNeighbours;
+		final int[] rank;
+
+		// witness search state, reset through the touched list
+		final double[] dist;
+		final NodeHeap heap;
+		int[] touched = new int[64];
+		int touchedCount = 0;
+
+		Builder(RoadGraph graph) {
+			n = graph.nodeCount();
+			int m = graph.getEdgeCount();
+			from = new int[Math.max(16, m * 2)];
+			to = new int[from.length];
+			child1 = new int[from.length];
+			child2 = new int[from.length];
+			weight = new double[from.length];
+			out = new int[n][];
+			in = new int[n][];
+			outSize = new int[n];
+			inSize = new int[n];
+			for (int v = 0; v < n; v++) {
+				out[v] = new int[Math.max(2, graph.endEdge(v) - graph.firstEdge(v))];
+				in[v] = new int[2];
+			}
+			for (int v = 0; v < n; v++) {
+				for (int e = graph.firstEdge(v); e < graph.endEdge(v); e++) {
+					addEdge(v, graph.edgeTarget(e), graph.edgeLength(e), -1, -1);
+				}
+			}
+			contracted = new boolean[n];
+			contractedNeighbours = new int[n];
+			rank = new int[n];
+			dist = new double[n];
+			Arrays.fill(dist, Double.POSITIVE_INFINITY);
+			heap = new NodeHeap(n);
+		}
+
+		void contractAll() {
+			NodeHeap order = new NodeHeap(n);
+			for (int v = 0; v < n; v++) {
+				order.insertOrDecrease(v, priority(v));
+			}
+			int next = 0;
+			while (!order.isEmpty()) {
+				int v = order.poll();
+				// lazy update: the priority may have grown since it was queued
+				double p = priority(v);
+				if (!order.isEmpty() && p > order.peekKey()) {
+					order.insertOrDecrease(v, p);
+					continue;
+				}
+				contract(v, true);
+				contracted[v] = true;
+				rank[v] = next++;
+				for (int i = 0; i < outSize[v]; i++) {
+					contractedNeighbours[to[out[v][i]]]++;
+				}
+				for (int i = 0; i < inSize[v]; i++) {
+					contractedNeighbours[from[in[v][i]]]++;
+				}
+			}
+		}
+
+		/** Edge difference plus a term that spreads contraction evenly. */
+		double priority(int v) {
+			int removed = 0;
+			for (int i = 0; i < outSize[v]; i++) {
+				if (!contracted[to[out[v][i]]]) {
+					removed++;
+				}
+			}
+			for (int i = 0; i < inSize[v]; i++) {
+				if (!contracted[from[in[v][i]]]) {
+					removed++;
+				}
+			}
+			return contract(v, false) - removed + contractedNeighbours[v];
+		}
+
+		/**
+		 * Finds the shortcuts needed to contract v, and adds them if apply.
+		 * @return the number of shortcuts needed.
+		 */
+		int contract(int v, boolean apply) {
+			int shortcuts = 0;
+			for (int i = 0; i < inSize[v]; i++) {
+				int inEdge = in[v][i];
+				int u = from[inEdge];
+				if (contracted[u] || !isBest(in[v], inSize[v], inEdge, true)) {
+					continue;
+				}
+				double maxOut = 0;
+				for (int j = 0; j < outSize[v]; j++) {
+					maxOut = Math.max(maxOut, weight[out[v][j]]);
+				}
+				witnessSearch(u, v, weight[inEdge] + maxOut);
+				for (int j = 0; j < outSize[v]; j++) {
+					int outEdge = out[v][j];
+					int w = to[outEdge];
+					if (contracted[w] || w == u || !isBest(out[v], outSize[v], outEdge, false)) {
+						continue;
+					}
+					double via = weight[inEdge] + weight[outEdge];
+					if (dist[w] <= via) {
+						continue;
+					}
+					shortcuts++;
+					if (apply) {
+						addEdge(u, w, via, inEdge, outEdge);
+					}
+				}
+				resetWitnessSearch();
+			}
+			return shortcuts;
+		}
+
+		/**
+		 * @return whether e is the lightest (then lowest numbered) of the
+		 *         edges in list that connect the same pair of points.
+		 */
+		boolean isBest(int[] list, int size, int e, boolean incoming) {
+			int other = incoming ? from[e] : to[e];
+			for (int i = 0; i < size; i++) {
+				int f = list[i];
+				if (f != e && (incoming ? from[f] : to[f]) == other &&
+					(weight[f] < weight[e] || weight[f] == weight[e] && f < e)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Dijkstra from u over the uncontracted points other than v, up to
+		 * distance limit, leaving the distances in dist.
+		 */
+		void witnessSearch(int u, int v, double limit) {
+			touch(u);
+			dist[u] = 0;
+			heap.insertOrDecrease(u, 0);
+			int settled = 0;
+			while (!heap.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+				if (heap.peekKey() > limit) {
+					break;
+				}
+				int x = heap.poll();
+				settled++;
+				for (int i = 0; i < outSize[x]; i++) {
+					int e = out[x][i];
+					int y = to[e];
+					if (y == v || contracted[y]) {
+						continue;
+					}
+					double d = dist[x] + weight[e];
+					if (d < dist[y]) {
+						touch(y);
+						dist[y] = d;
+						heap.insertOrDecrease(y, d);
+					}
+				}
+			}
+		}
+
+		void touch(int x) {
+			if (dist[x] == Double.POSITIVE_INFINITY) {
+				if (touchedCount == touched.length) {
+					touched = Arrays.copyOf(touched, touchedCount * 2);
+				}
+				touched[touchedCount++] = x;
+			}
+		}
+
+		void resetWitnessSearch() {
+			for (int i = 0; i < touchedCount; i++) {
+				dist[touched[i]] = Double.POSITIVE_INFINITY;
+			}
+			touchedCount = 0;
+			heap.clear();
+		}
+
+		void addEdge(int u, int w, double wgt, int first, int second) {
+			if (edgeCount == from.length) {
+				int capacity = edgeCount * 2;
+				from = Arrays.copyOf(from, capacity);
+				to = Arrays.copyOf(to, capacity);
+				child1 = Arrays.copyOf(child1, capacity);
+				child2 = Arrays.copyOf(child2, capacity);
+				weight = Arrays.copyOf(weight, capacity);
+			}
+			int e = edgeCount++;
+			from[e] = u;
+			to[e] = w;
+			weight[e] = wgt;
+			child1[e] = first;
+			child2[e] = second;
+			if (outSize[u] == out[u].length) {
+				out[u] = Arrays.copyOf(out[u], outSize[u] * 2);
+			}
+			out[u][outSize[u]++] = e;
+			if (inSize[w] == in[w].length) {
+				in[w] = Arrays.copyOf(in[w], inSize[w] * 2);
+			}
+			in[w][inSize[w]++] = e;
+		}
+	}
+}
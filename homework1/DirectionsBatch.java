@@ -0,0 +1,228 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * A DirectionsBatch computes directions for many routes in parallel with
+ * one RouteFormatter.
+ * <p>
+ * The jobs of a batch are split into chunks that run on an ExecutorService
+ * (by default the common ForkJoinPool). The results come back in the order
+ * of the jobs, and a job that fails does not affect the others: its Result
+ * holds the exception or error instead of the directions. This includes
+ * Errors such as AssertionError and StackOverflowError. Only the errors
+ * after which the virtual machine cannot be trusted to go on (any other
+ * VirtualMachineError, such as OutOfMemoryError) abort the whole batch,
+ * and are rethrown by computeDirections().
+ * <p>
+ * The formatter is shared by all the worker threads. WalkingRouteFormatter
+ * and DrivingRouteFormatter keep no state between calls, so this is safe
+ * for them. The routes of a batch must not be modified while it runs.
+ **/
+public class DirectionsBatch {
+
+	// chunks per worker thread; more chunks balance uneven routes better
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private final RouteFormatter formatter;
+	private final ExecutorService executor;
+	private final int parallelism;
+
+	/*
+	 * Rep. Invariant:
+	 * formatter != null && executor != null && parallelism >= 1
+	 * Abstraction Function:
+	 * a batch runner that formats with formatter on executor, in up to
+	 * parallelism concurrent tasks.
+	 */
+
+	/**
+	 * A request for the directions of one route.
+	 **/
+	public static class Job {
+
+		private final Route route;
+		private final double heading;
+
+		/**
+		 * Constructs a new Job.
+		 * @requires route != null && 0 <= heading < 360
+		 * @effects constructs a Job for the directions of route, starting
+		 *          with the given heading.
+		 **/
+		public Job(Route route, double heading) {
+			if (route == null || heading < 0 || heading >= 360) {
+				throw new IllegalArgumentException();
+			}
+			this.route = route;
+			this.heading = heading;
+		}
+
+		/**
+		 * Returns the route of this job.
+		 * @return the route of this job.
+		 **/
+		public Route getRoute() {
+			return route;
+		}
+
+		/**
+		 * Returns the initial heading of this job.
+		 * @return the initial heading of this job, in degrees.
+		 **/
+		public double getHeading() {
+			return heading;
+		}
+	}
+
+
+	/**
+	 * The outcome of one Job: either its directions or the exception or
+	 * error that computing them threw.
+	 **/
+	public static class Result {
+
+		private final String directions;
+		private final Throwable failure;
+
+		private Result(String directions, Throwable failure) {
+			this.directions = directions;
+			this.failure = failure;
+		}
+
+		/**
+		 * Checks whether the job succeeded.
+		 * @return true iff the directions were computed.
+		 **/
+		public boolean isSuccess() {
+			return failure == null;
+		}
+
+		/**
+		 * Returns the directions computed for the job.
+		 * @requires this.isSuccess()
+		 * @return the directions computed for the job.
+		 **/
+		public String getDirections() {
+			if (failure != null) {
+				throw new IllegalStateException(failure);
+			}
+			return directions;
+		}
+
+		/**
+		 * Returns the exception or error that the job threw.
+		 * @return the Throwable that the job threw, or null if it
+		 *         succeeded.
+		 **/
+		public Throwable getFailure() {
+			return failure;
+		}
+	}
+
+
+	/**
+	 * Constructs a new DirectionsBatch that runs on the common ForkJoinPool.
+	 * @requires formatter != null
+	 * @effects constructs a new DirectionsBatch for formatter.
+	 **/
+	public DirectionsBatch(RouteFormatter formatter) {
+		this(formatter, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+	}
+
+
+	/**
+	 * Constructs a new DirectionsBatch that runs on the given executor.
+	 * @requires formatter != null && executor != null && parallelism >= 1
+	 * @effects constructs a new DirectionsBatch for formatter that submits
+	 *          work for about parallelism threads to executor.
+	 **/
+	public DirectionsBatch(RouteFormatter formatter, ExecutorService executor,
+			int parallelism) {
+		if (formatter == null || executor == null || parallelism < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.formatter = formatter;
+		this.executor = executor;
+		this.parallelism = parallelism;
+	}
+
+
+	/**
+	 * Computes the directions of all the jobs.
+	 * @requires jobs != null and contains no null elements
+	 * @return a list of the results of the jobs, such that result i is the
+	 *         outcome of <tt>formatter.computeDirections(route, heading)</tt>
+	 *         for job i.
+	 * @throws InterruptedException if the calling thread is interrupted
+	 *         while waiting for the results.
+	 * @throws VirtualMachineError if a job threw one other than
+	 *         StackOverflowError.
+	 **/
+	public List<Result> computeDirections(List<Job> jobs) throws InterruptedException {
+		if (jobs == null) {
+			throw new IllegalArgumentException();
+		}
+		final Job[] all = jobs.toArray(new Job[0]);
+		for (Job job : all) {
+			if (job == null) {
+				throw new IllegalArgumentException();
+			}
+		}
+		final Result[] results = new Result[all.length];
+
+		int chunks = Math.max(1, Math.min(all.length, parallelism * CHUNKS_PER_THREAD));
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(chunks);
+		for (int c = 0; c < chunks; c++) {
+			final int from = (int)((long)all.length * c / chunks);
+			final int to = (int)((long)all.length * (c + 1) / chunks);
+			tasks.add(() -> {
+				for (int i = from; i < to; i++) {
+					results[i] = compute(all[i]);
+				}
+				return null;
+			});
+		}
+		for (Future<Void> f : executor.invokeAll(tasks)) {
+			try {
+				f.get();
+			} catch (ExecutionException e) {
+				// compute() catches the failures of the jobs themselves, and
+				// lets only the fatal errors through
+				if (e.getCause() instanceof Error) {
+					throw (Error)e.getCause();
+				}
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		return Collections.unmodifiableList(Arrays.asList(results));
+	}
+
+	private Result compute(Job job) {
+		try {
+			return new Result(formatter.computeDirections(job.getRoute(), job.getHeading()), null);
+		} catch (Throwable e) {
+			if (isFatal(e)) {
+				throw e;
+			}
+			return new Result(null, e);
+		}
+	}
+
+	/**
+	 * Checks whether an error must not be confined to the job that threw
+	 * it. A stack overflow unwinds the stack of the job and leaves the rest
+	 * of the virtual machine sound; the other VirtualMachineErrors do not.
+	 */
+	private static boolean isFatal(Throwable e) {
+		return e instanceof VirtualMachineError && !(e instanceof StackOverflowError);
+	}
+}
@@ -0,0 +1,318 @@
+package homework1;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A DirectionsCache remembers the directions computed for recent routes,
+ * so that asking again for the directions of an equal route, with the same
+ * kind of RouteFormatter and initial heading, costs a hash lookup and one
+ * comparison of the segments instead of formatting every feature again.
+ * <p>
+ * The cache holds entries up to a total weight, and evicts entries that
+ * have not been used recently first. The weight of an entry is the length
+ * of its directions plus the number of segments of its route, which is
+ * roughly proportional to the memory it holds.
+ * <p>
+ * Eviction approximates least recently used with the CLOCK (second
+ * chance) policy: a lookup that finds an entry only marks it as used, and
+ * eviction goes through the entries in the order they were added, sparing
+ * and unmarking the marked ones once. This keeps lookups free of locks and
+ * of writes to shared state other than the mark, so concurrent hits do not
+ * wait for each other; only adding entries takes a lock.
+ * <p>
+ * Routes are keyed by content, not identity: the cache copies the segments
+ * of a route when it adds it, so a Route that is extended with addSegment()
+ * afterwards simply stops matching the old entry. Formatters are keyed by
+ * class, which is sound because RouteFormatters keep no state between
+ * calls. A DirectionsCache may be used by several threads at once;
+ * directions are computed outside the lock, so two threads that miss on the
+ * same route at once may both compute it.
+ **/
+public class DirectionsCache {
+
+	private final long maxWeight;
+	private final ConcurrentHashMap<Key, Entry> entries;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	// guarded by itself: the entries in the order they were added (or
+	// spared by eviction), and their total weight
+	private final ArrayDeque<Entry> clock = new ArrayDeque<Entry>();
+	private long weight;
+
+	/*
+	 * Rep. Invariant:
+	 * maxWeight >= 1 && entries != null &&
+	 * clock holds every value of entries exactly once, and possibly
+	 * entries that were replaced or removed, which have removed set &&
+	 * weight is the sum of e.weight over the values e of entries &&
+	 * weight <= maxWeight && every key of entries holds a copy of its
+	 * segments && hits, misses, evictions >= 0;
+	 * entries is only modified, and weight and the removed fields are only
+	 * read or written, while holding the lock of clock
+	 * Abstraction Function:
+	 * entries maps (formatter class, route, heading) to the directions that
+	 * formatter computes for them; clock is the order in which they are
+	 * considered for eviction, and the used marks give each a second
+	 * chance. hits, misses and evictions count the lookups that found an
+	 * entry, those that did not, and the entries removed to make room.
+	 */
+
+	/**
+	 * A cached value, with the mark that eviction uses.
+	 */
+	private static final class Entry {
+
+		private final Key key;
+		private final String directions;
+		private final long weight;
+		// set by the lookups that find this entry, cleared by eviction
+		private volatile boolean used;
+		private boolean removed;
+
+		private Entry(Key key, String directions) {
+			this.key = key;
+			this.directions = directions;
+			this.weight = directions.length() + key.segmentCount;
+		}
+	}
+
+	/**
+	 * The lookup key of an entry. A probe key refers to the route being
+	 * looked up; a stored key holds a copy of its segments.
+	 */
+	private static final class Key {
+
+		private final Class<?> formatterClass;
+		private final long headingBits;
+		private final int routeHash;
+		private final int segmentCount;
+		private final double length;
+		private final Route route;
+		private final GeoSegment[] segments;
+		private final int hash;
+
+		private Key(Class<?> formatterClass, double heading, Route route,
+				GeoSegment[] segments) {
+			this.formatterClass = formatterClass;
+			this.headingBits = Double.doubleToLongBits(heading);
+			this.routeHash = route.hashCode();
+			this.segmentCount = route.getSegmentCount();
+			this.length = route.getLength();
+			this.route = segments == null ? route : null;
+			this.segments = segments;
+			int h = formatterClass.hashCode();
+			h = 31 * h + Long.hashCode(headingBits);
+			this.hash = 31 * h + routeHash;
+		}
+
+		private Key stored() {
+			GeoSegment[] copy = new GeoSegment[segmentCount];
+			int i = 0;
+			for (int f = 0; f < route.getFeatureCount(); f++) {
+				for (GeoSegment gs : route.getFeature(f).segments) {
+					copy[i++] = gs;
+				}
+			}
+			return new Key(formatterClass, Double.longBitsToDouble(headingBits), route, copy);
+		}
+
+		public boolean equals(Object o) {
+			if (o == this) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key k = (Key)o;
+			if (k.hash != hash || k.routeHash != routeHash || k.segmentCount != segmentCount ||
+					k.headingBits != headingBits || k.length != length ||
+					k.formatterClass != formatterClass) {
+				return false;
+			}
+			if (segments != null && k.segments != null) {
+				for (int i = 0; i < segmentCount; i++) {
+					if (!segments[i].equals(k.segments[i])) {
+						return false;
+					}
+				}
+				return true;
+			}
+			if (segments != null) {
+				return k.sameSegments(segments);
+			}
+			if (k.segments != null) {
+				return sameSegments(k.segments);
+			}
+			return route.equals(k.route);
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+
+		// whether this probe's route has exactly the given segments
+		private boolean sameSegments(GeoSegment[] other) {
+			int i = 0;
+			for (int f = 0; f < route.getFeatureCount(); f++) {
+				for (GeoSegment gs : route.getFeature(f).segments) {
+					if (!gs.equals(other[i++])) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+	}
+
+
+	/**
+	 * Constructs a new DirectionsCache.
+	 * @requires maxWeight >= 1
+	 * @effects constructs an empty DirectionsCache that holds entries up to
+	 *          a total weight of maxWeight.
+	 **/
+	public DirectionsCache(long maxWeight) {
+		if (maxWeight < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.maxWeight = maxWeight;
+		this.entries = new ConcurrentHashMap<Key, Entry>();
+	}
+
+
+	/**
+	 * Returns the directions for a route, from the cache if possible.
+	 * @requires formatter != null && route != null && 0 <= heading < 360
+	 * @modifies this
+	 * @effects if the directions are not cached, computes them with
+	 *          formatter and caches them, evicting the least recently used
+	 *          entries as needed.
+	 * @return <tt>formatter.computeDirections(route, heading)</tt>
+	 **/
+	public String computeDirections(RouteFormatter formatter, Route route, double heading) {
+		if (formatter == null || route == null) {
+			throw new IllegalArgumentException();
+		}
+		Key probe = new Key(formatter.getClass(), heading, route, null);
+		Entry found = entries.get(probe);
+		if (found != null) {
+			// only write the mark when it changes, so that hits on a popular
+			// entry do not keep invalidating its cache line
+			if (!found.used) {
+				found.used = true;
+			}
+			hits.increment();
+			return found.directions;
+		}
+		misses.increment();
+
+		String directions = formatter.computeDirections(route, heading);
+		Entry entry = new Entry(probe.stored(), directions);
+		if (entry.weight > maxWeight) {
+			return directions;
+		}
+		synchronized (clock) {
+			Entry old = entries.put(entry.key, entry);
+			if (old != null) {
+				old.removed = true;
+				weight -= old.weight;
+			}
+			clock.addLast(entry);
+			weight += entry.weight;
+			while (weight > maxWeight) {
+				Entry e = clock.pollFirst();
+				if (e.removed) {
+					continue;
+				}
+				if (e.used) {
+					e.used = false;
+					clock.addLast(e);
+					continue;
+				}
+				entries.remove(e.key, e);
+				e.removed = true;
+				weight -= e.weight;
+				evictions.increment();
+			}
+		}
+		return directions;
+	}
+
+
+	/**
+	 * Removes all the entries.
+	 * @modifies this
+	 * @effects empties the cache; the counters are not reset.
+	 **/
+	public void clear() {
+		synchronized (clock) {
+			entries.clear();
+			for (Entry e : clock) {
+				e.removed = true;
+			}
+			clock.clear();
+			weight = 0;
+		}
+	}
+
+
+	/**
+	 * Returns the number of cached entries.
+	 * @return the number of cached entries.
+	 **/
+	public int size() {
+		return entries.size();
+	}
+
+
+	/**
+	 * Returns the total weight of the cached entries.
+	 * @return the total weight of the cached entries.
+	 **/
+	public long getWeight() {
+		synchronized (clock) {
+			return weight;
+		}
+	}
+
+
+	/**
+	 * Returns the number of lookups that found cached directions.
+	 * @return the number of lookups that found cached directions.
+	 **/
+	public long getHits() {
+		return hits.sum();
+	}
+
+
+	/**
+	 * Returns the number of lookups that computed the directions.
+	 * @return the number of lookups that computed the directions.
+	 **/
+	public long getMisses() {
+		return misses.sum();
+	}
+
+
+	/**
+	 * Returns the number of entries evicted to make room for others.
+	 * @return the number of entries evicted to make room for others.
+	 **/
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+
+	/**
+	 * Returns a one-line summary of the counters.
+	 * @return a string with the size, weight, hits, misses and evictions.
+	 **/
+	public String toString() {
+		return "size=" + size() + " weight=" + getWeight() + " hits=" + getHits() +
+			" misses=" + getMisses() + " evictions=" + getEvictions();
+	}
+}
@@ -0,0 +1,422 @@
+package homework1;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A DirectionsServer is a small HTTP service that computes walking and
+ * driving directions.
+ * <p>
+ * Every exchange runs on its own virtual thread, so a connection that waits
+ * for a slow client costs a few hundred bytes rather than a platform
+ * thread, and the number of open connections is limited by the operating
+ * system (file descriptors, ephemeral ports) rather than by the server.
+ * The work itself is bounded: at most maxInFlight requests compute
+ * directions at once, and a request that arrives when all of them are
+ * taken is answered at once with 503 (Service Unavailable) instead of
+ * queueing.
+ * <p>
+ * The protocol is plain UTF-8 text. A route is written as its initial
+ * heading, in degrees, on the first line, followed by one segment per line
+ * as five tab-separated fields: name, p1 latitude, p1 longitude, p2
+ * latitude and p2 longitude, in millionths of degrees. The endpoints are
+ * <dl>
+ * <dt>POST /directions</dt>
+ * <dd>takes one route and returns "walking", the walking directions,
+ * "driving" and the driving directions, each on its own lines. Recently
+ * requested routes are answered from a DirectionsCache.</dd>
+ * <dt>POST /directions/batch</dt>
+ * <dd>takes any number of routes separated by empty lines, and returns
+ * the response of each, in the same order, also separated by empty lines.
+ * The routes of a batch are formatted in parallel by DirectionsBatch; a
+ * route whose directions fail is answered with an "error" line.</dd>
+ * <dt>GET /stats</dt>
+ * <dd>returns the request counters and a latency summary, and the
+ * RouteMetrics snapshot when metrics are enabled.</dd>
+ * </dl>
+ * A body that cannot be parsed, or does not form a route, is answered with
+ * 400 (Bad Request) for the whole request.
+ **/
+public class DirectionsServer {
+
+	/** Largest request body accepted, in bytes. */
+	public static final int MAX_BODY_BYTES = 1 << 20;
+
+	/** Default size of the queue of connections waiting to be accepted. */
+	public static final int DEFAULT_BACKLOG = 4096;
+
+	/** Weight of the DirectionsCache of single-route requests. */
+	public static final long CACHE_WEIGHT = 1 << 24;
+
+	private static final RouteFormatter WALKING = new WalkingRouteFormatter();
+	private static final RouteFormatter DRIVING = new DrivingRouteFormatter();
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Semaphore inFlight;
+	private final int maxInFlight;
+	private final DirectionsBatch walkingBatch;
+	private final DirectionsBatch drivingBatch;
+	private final DirectionsCache cache;
+
+	private final LongAdder requests;
+	private final LongAdder rejected;
+	private final LongAdder failed;
+	private final LatencyHistogram latency;
+
+	/*
+	 * Rep. Invariant:
+	 * all fields != null && maxInFlight >= 1 &&
+	 * 0 <= inFlight.availablePermits() <= maxInFlight
+	 * Abstraction Function:
+	 * a server listening on server.getAddress(), that is computing
+	 * maxInFlight - inFlight.availablePermits() requests. requests counts
+	 * the requests to the directions endpoints, rejected those answered
+	 * with 503 and failed those answered with another error; latency holds
+	 * the time from receiving to answering each of them.
+	 */
+
+	/**
+	 * Constructs a new DirectionsServer. The server does not accept
+	 * requests until start() is called.
+	 * @requires address != null && maxInFlight >= 1
+	 * @effects constructs a DirectionsServer bound to address, that
+	 *          computes at most maxInFlight requests at once.
+	 * @throws IOException if the address cannot be bound.
+	 **/
+	public DirectionsServer(InetSocketAddress address, int maxInFlight) throws IOException {
+		if (address == null || maxInFlight < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.maxInFlight = maxInFlight;
+		inFlight = new Semaphore(maxInFlight);
+		walkingBatch = new DirectionsBatch(WALKING);
+		drivingBatch = new DirectionsBatch(DRIVING);
+		cache = new DirectionsCache(CACHE_WEIGHT);
+		requests = new LongAdder();
+		rejected = new LongAdder();
+		failed = new LongAdder();
+		latency = new LatencyHistogram();
+
+		server = HttpServer.create(address, DEFAULT_BACKLOG);
+		executor = Executors.newVirtualThreadPerTaskExecutor();
+		server.setExecutor(executor);
+	}
+
+
+	/**
+	 * Starts accepting requests.
+	 * @requires start() was not called before
+	 * @modifies this
+	 * @effects registers the endpoints and starts the server.
+	 **/
+	public void start() {
+		// registered here rather than in the constructor, so that the
+		// handlers do not see this before it is fully constructed
+		server.createContext("/directions", directionsEndpoint(false));
+		server.createContext("/directions/batch", directionsEndpoint(true));
+		server.createContext("/stats", this::handleStats);
+		server.start();
+	}
+
+
+	/**
+	 * Stops the server.
+	 * @modifies this
+	 * @effects stops accepting requests, waits up to delaySeconds for the
+	 *          requests being answered, and closes the server.
+	 **/
+	public void stop(int delaySeconds) {
+		server.stop(delaySeconds);
+		executor.shutdownNow();
+	}
+
+
+	/**
+	 * Returns the port the server listens on.
+	 * @return the port the server listens on.
+	 **/
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+
+	/**
+	 * Returns the latencies of the directions requests.
+	 * @return the histogram of the times, in nanoseconds, from receiving to
+	 *         answering each directions request.
+	 **/
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+
+	/**
+	 * Returns the statistics served at /stats.
+	 * @return a text with one counter per line, the latency summary, and
+	 *         the RouteMetrics snapshot if metrics are enabled.
+	 **/
+	public String getStats() {
+		return "requests " + requests.sum() + "\n" +
+			"rejected " + rejected.sum() + "\n" +
+			"failed " + failed.sum() + "\n" +
+			"inFlight " + (maxInFlight - inFlight.availablePermits()) + "\n" +
+			"maxInFlight " + maxInFlight + "\n" +
+			"latency " + latency + "\n" +
+			"cache " + cache + "\n" +
+			(RouteMetrics.isEnabled() ? RouteMetrics.snapshot().toString() : "");
+	}
+
+	private HttpHandler directionsEndpoint(final boolean batch) {
+		return exchange -> {
+			long start = System.nanoTime();
+			requests.increment();
+			try {
+				if (!checkRequest(exchange, "POST")) {
+					failed.increment();
+					return;
+				}
+				// read the body first, so that slow clients do not hold permits
+				byte[] body = readBody(exchange.getRequestBody());
+				if (body == null) {
+					failed.increment();
+					send(exchange, 413, "request body exceeds " + MAX_BODY_BYTES + " bytes\n");
+				} else if (!inFlight.tryAcquire()) {
+					rejected.increment();
+					exchange.getResponseHeaders().set("Retry-After", "1");
+					send(exchange, 503, "busy\n");
+				} else {
+					try {
+						handleDirections(exchange, body, batch);
+					} finally {
+						inFlight.release();
+					}
+				}
+			} finally {
+				exchange.close();
+				latency.record(System.nanoTime() - start);
+			}
+		};
+	}
+
+	private void handleDirections(HttpExchange exchange, byte[] body, boolean batch)
+			throws IOException {
+		List<DirectionsBatch.Job> jobs;
+		try {
+			jobs = parseRoutes(new String(body, StandardCharsets.UTF_8), batch);
+		} catch (IllegalArgumentException e) {
+			failed.increment();
+			send(exchange, 400, e.getMessage() + "\n");
+			return;
+		}
+
+		StringBuilder response = new StringBuilder();
+		if (!batch) {
+			DirectionsBatch.Job job = jobs.get(0);
+			try {
+				appendDirections(response,
+					cache.computeDirections(WALKING, job.getRoute(), job.getHeading()),
+					cache.computeDirections(DRIVING, job.getRoute(), job.getHeading()));
+			} catch (RuntimeException e) {
+				failed.increment();
+				send(exchange, 500, "error " + e + "\n");
+				return;
+			}
+		} else {
+			List<DirectionsBatch.Result> walking;
+			List<DirectionsBatch.Result> driving;
+			try {
+				walking = walkingBatch.computeDirections(jobs);
+				driving = drivingBatch.computeDirections(jobs);
+			} catch (InterruptedException e) {
+				// the server is stopping
+				failed.increment();
+				Thread.currentThread().interrupt();
+				return;
+			}
+			for (int i = 0; i < jobs.size(); i++) {
+				if (i > 0) {
+					response.append('\n');
+				}
+				DirectionsBatch.Result w = walking.get(i);
+				DirectionsBatch.Result d = driving.get(i);
+				if (w.isSuccess() && d.isSuccess()) {
+					appendDirections(response, w.getDirections(), d.getDirections());
+				} else {
+					Throwable e = w.isSuccess() ? d.getFailure() : w.getFailure();
+					response.append("error ").append(e).append('\n');
+				}
+			}
+		}
+		send(exchange, 200, response.toString());
+	}
+
+	private void handleStats(HttpExchange exchange) throws IOException {
+		try {
+			if (checkRequest(exchange, "GET")) {
+				send(exchange, 200, getStats());
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Answers requests to unknown paths with 404 and requests with the
+	 * wrong method with 405.
+	 * @return true iff the request should be handled.
+	 */
+	private static boolean checkRequest(HttpExchange exchange, String method)
+			throws IOException {
+		String context = exchange.getHttpContext().getPath();
+		if (!exchange.getRequestURI().getPath().equals(context)) {
+			send(exchange, 404, "no such endpoint\n");
+			return false;
+		}
+		if (!exchange.getRequestMethod().equals(method)) {
+			exchange.getResponseHeaders().set("Allow", method);
+			send(exchange, 405, "use " + method + "\n");
+			return false;
+		}
+		return true;
+	}
+
+	private static void appendDirections(StringBuilder response, String walking,
+			String driving) {
+		response.append("walking\n").append(walking);
+		response.append("driving\n").append(driving);
+	}
+
+	/**
+	 * Returns the bytes of the body, or null if it is longer than
+	 * MAX_BODY_BYTES.
+	 */
+	private static byte[] readBody(InputStream in) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int n;
+		while ((n = in.read(buffer)) != -1) {
+			if (body.size() + n > MAX_BODY_BYTES) {
+				return null;
+			}
+			body.write(buffer, 0, n);
+		}
+		return body.toByteArray();
+	}
+
+	private static void send(HttpExchange exchange, int status, String text)
+			throws IOException {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+
+	/**
+	 * Parses routes in the request format.
+	 * @requires text != null
+	 * @return a Job for each route of text, in order. Unless batch, text
+	 *         must hold exactly one route.
+	 * @throws IllegalArgumentException, whose message says why, if text is
+	 *         not in the request format or a route is not connected.
+	 **/
+	static List<DirectionsBatch.Job> parseRoutes(String text, boolean batch) {
+		List<DirectionsBatch.Job> jobs = new ArrayList<DirectionsBatch.Job>();
+		String[] lines = text.split("\r?\n", -1);
+		int i = 0;
+		while (i < lines.length) {
+			if (lines[i].isEmpty()) {
+				i++;
+				continue;
+			}
+			int first = i;
+			while (i < lines.length && !lines[i].isEmpty()) {
+				i++;
+			}
+			jobs.add(parseRoute(lines, first, i));
+		}
+		if (jobs.isEmpty()) {
+			throw new IllegalArgumentException("no route");
+		}
+		if (!batch && jobs.size() > 1) {
+			throw new IllegalArgumentException("more than one route; use /directions/batch");
+		}
+		return jobs;
+	}
+
+	private static DirectionsBatch.Job parseRoute(String[] lines, int from, int to) {
+		double heading;
+		try {
+			heading = Double.parseDouble(lines[from]);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("line " + (from + 1) + ": bad heading");
+		}
+		if (!(heading >= 0 && heading < 360)) {
+			throw new IllegalArgumentException("line " + (from + 1) + ": heading must be in [0, 360)");
+		}
+		if (from + 1 == to) {
+			throw new IllegalArgumentException("line " + (from + 2) + ": route has no segments");
+		}
+		Route route = null;
+		for (int i = from + 1; i < to; i++) {
+			GeoSegment gs = parseSegment(lines[i], i + 1);
+			if (route == null) {
+				route = new Route(gs);
+			} else if (!gs.getP1().equals(route.getEnd())) {
+				throw new IllegalArgumentException("line " + (i + 1) +
+					": segment does not start at the end of the previous one");
+			} else {
+				route = route.addSegment(gs);
+			}
+		}
+		return new DirectionsBatch.Job(route, heading);
+	}
+
+	private static GeoSegment parseSegment(String line, int lineNumber) {
+		String[] fields = line.split("\t", -1);
+		if (fields.length != 5) {
+			throw new IllegalArgumentException("line " + lineNumber +
+				": expected name, lat1, lon1, lat2, lon2 separated by tabs");
+		}
+		try {
+			GeoPoint p1 = new GeoPoint(Integer.parseInt(fields[1].trim()),
+				Integer.parseInt(fields[2].trim()));
+			GeoPoint p2 = new GeoPoint(Integer.parseInt(fields[3].trim()),
+				Integer.parseInt(fields[4].trim()));
+			return new GeoSegment(fields[0], p1, p2);
+		} catch (IllegalArgumentException e) {
+			// NumberFormatException, or a point out of range
+			throw new IllegalArgumentException("line " + lineNumber + ": bad coordinates");
+		}
+	}
+
+
+	/**
+	 * Runs a DirectionsServer until the process is killed.
+	 * Usage: DirectionsServer [port [maxInFlight]]
+	 **/
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+		int maxInFlight = args.length > 1 ? Integer.parseInt(args[1]) :
+			4 * Runtime.getRuntime().availableProcessors();
+		DirectionsServer server = new DirectionsServer(new InetSocketAddress(port), maxInFlight);
+		server.start();
+		System.out.println("Serving directions on port " + server.getPort());
+	}
+}
@@ -1,6 +1,6 @@
 package homework1;
 
-import java.text.DecimalFormat;
+import java.io.IOException;
 
 /**
  * The DrivingDirections class creates a textual description of directions
@@ -50,21 +50,37 @@ public class DrivingRouteFormatter extends RouteFormatter {
      * above.
      **/
   	public String computeLine(GeoFeature geoFeature, double origHeading) {
-  		// Implementation hint:
-		  // You may find the class java.text.DecimalFormat useful when
-		  // implementing this method. More info can be found at:
-  	  // http://docs.oracle.com/javase/tutorial/java/data/numberformat.html
-  		// and at:
-  		// http://docs.oracle.com/javase/8/docs/api/java/text/DecimalFormat.html
-      
-		  DecimalFormat df = new DecimalFormat("#.#");
-      StringBuffer s = new StringBuffer();
+      LineRenderer renderer = LineRenderer.get();
+      StringBuilder s = renderer.acquireBuffer();
+      try {
+         appendLine(geoFeature, origHeading, s);
+         return s.toString();
+      } catch (IOException e) {
+         // a StringBuilder never throws IOException
+         throw new IllegalStateException(e);
+      } finally {
+         renderer.releaseBuffer(s);
+      }
+  	}
 
-      s.append(getTurnString(origHeading, geoFeature.getStartHeading()));
-      double kliometers = geoFeature.getLength();
-      s.append(" onto " + geoFeature.getName() + " and go " + df.format(kliometers) + " kilometers.\n");
 
-      return new String(s);
+  	/**
+     * Appends the line computed by <tt>computeLine()</tt> to out, part by
+     * part.
+     * @requires 0 <= origHeading < 360 && out != null
+     * @modifies out
+     * @effects appends computeLine(geoFeature, origHeading) to out.
+     * @throws IOException if out throws IOException.
+     **/
+  	protected void appendLine(GeoFeature geoFeature, double origHeading, Appendable out)
+  			throws IOException {
+      // the kilometers are written as DecimalFormat("#.#") would, into out
+      // itself, so a line allocates nothing
+      out.append(getTurnString(origHeading, geoFeature.getStartHeading()))
+         .append(" onto ").append(geoFeature.getName())
+         .append(" and go ");
+      LineRenderer.get().appendTenths(geoFeature.getLength(), out);
+      out.append(" kilometers.\n");
   	}
 
 }
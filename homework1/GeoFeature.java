@@ -2,10 +2,12 @@ package homework1;
 
 import java.util.Iterator;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 
 /**
  * A GeoFeature represents a route from one location to another along a
- * single geographic feature. GeoFeatures are immutable.
+ * single geographic feature.
  * <p>
  * GeoFeature abstracts over a sequence of GeoSegments, all of which have
  * the same name, thus providing a representation for nonlinear or nonatomic
@@ -13,12 +15,13 @@ import java.util.ArrayList;
  * course of a winding river, or travel along a road through intersections
  * but remaining on the same road.
  * <p>
- * GeoFeatures are immutable. New GeoFeatures can be constructed by adding
- * a segment to the end of a GeoFeature. An added segment must be properly
- * oriented; that is, its p1 field must correspond to the end of the original
- * GeoFeature, and its p2 field corresponds to the end of the new GeoFeature,
- * and the name of the GeoSegment being added must match the name of the
- * existing GeoFeature.
+ * GeoFeatures are mutable: addSegment() appends a segment to the end of
+ * the GeoFeature it is called on, and returns it. An added segment must be
+ * properly oriented; that is, its p1 field must correspond to the end of
+ * the original GeoFeature, and its p2 field corresponds to the end of the
+ * new GeoFeature, and the name of the GeoSegment being added must match the
+ * name of the existing GeoFeature. To share features between routes or
+ * threads, use PersistentRoute, which is immutable.
  * <p>
  * Because a GeoFeature is not necessarily straight, its length - the
  * distance traveled by following the path from start to end - is not
@@ -47,10 +50,18 @@ public class GeoFeature {
 	//   http://docs.oracle.com/javase/8/docs/api/java/util/List.html
 	
 	final ArrayList<GeoSegment> segments;
+	private double length;
+	private int hash;
+	private final ValidationPolicy policy;
+	private int changes;
 	
 	/*
 	 * Rep. Invariant:
 	 * A continuous non-linear segment composed of valid linear segments that share the same name
+	 * length is the sum of the lengths of all the segments
+	 * hash is equal to segments.hashCode()
+	 * policy != null, and changes is the number of segments added since
+	 * construction
 	 * Abstraction Function:
 	 * Segments represents a list of GeoSegments with the same name, 
 	 * that together combine into one non-linear path
@@ -68,12 +79,51 @@ public class GeoFeature {
      *          r.end = gs.p2
      **/
   	public GeoFeature(GeoSegment gs) {
-		if (gs == null) {
+		this(gs, ValidationPolicy.getDefault());
+  	}
+
+
+	/**
+     * Constructs a new GeoFeature that checks its rep. invariant as policy
+     * says.
+     * @requires gs != null && policy != null
+     * @effects Constructs a new GeoFeature, r, as GeoFeature(gs) does, with
+     *          the validation policy policy.
+     **/
+  	public GeoFeature(GeoSegment gs, ValidationPolicy policy) {
+		if (gs == null || policy == null) {
 			throw new IllegalArgumentException();
 		}
 		segments = new ArrayList<GeoSegment>();
-		segments.add(new GeoSegment(gs.getName(), gs.getP1(), gs.getP2()));
+		// GeoSegments are immutable, so gs can be shared instead of copied.
+		segments.add(gs);
+		length = gs.getLength();
+		hash = 31 + gs.hashCode();
+		this.policy = policy;
+		validate();
   	}
+
+
+	/**
+	 * Constructs a new GeoFeature equal to gf, that does not share its
+	 * list of segments.
+	 **/
+	private GeoFeature(GeoFeature gf) {
+		segments = new ArrayList<GeoSegment>(gf.segments);
+		length = gf.length;
+		hash = gf.hash;
+		policy = gf.policy;
+	}
+
+
+	/**
+	 * Returns a copy of this, which can be extended without changing this.
+	 * @return a new GeoFeature equal to this, with the same validation
+	 *         policy.
+	 **/
+	GeoFeature copy() {
+		return new GeoFeature(this);
+	}
   
 
  	/**
@@ -90,7 +140,7 @@ public class GeoFeature {
      * @return location of the start of the geographic feature.
      */
   	public GeoPoint getStart() {
-		return new GeoPoint(segments.getFirst().getP1());
+		return segments.getFirst().getP1();
 	}
 
 
@@ -99,7 +149,7 @@ public class GeoFeature {
      * @return location of the end of the geographic feature.
      */
   	public GeoPoint getEnd() {
-		return new GeoPoint(segments.getLast().getP2());
+		return segments.getLast().getP2();
 	}
 
 
@@ -123,6 +173,24 @@ public class GeoFeature {
 	}
 
 
+  	/**
+  	 * Returns the first segment of the geographic feature.
+     * @return the first segment of the geographic feature.
+     */
+  	GeoSegment getFirstSegment() {
+		return segments.getFirst();
+	}
+
+
+  	/**
+  	 * Returns the last segment of the geographic feature.
+     * @return the last segment of the geographic feature.
+     */
+  	GeoSegment getLastSegment() {
+		return segments.getLast();
+	}
+
+
   	/**
   	 * Returns total length of the geographic feature, in kilometers.
      * @return total length of the geographic feature, in kilometers.
@@ -131,38 +199,46 @@ public class GeoFeature {
      *         values are not necessarily equal.
      */
   	public double getLength() {
-		double length = 0;
-		
-		for (GeoSegment seg: segments) {
-			length += seg.getLength();
-		}
-
+		RouteMetrics.count(RouteMetrics.Operation.FEATURE_LENGTH);
 		return length;
 	}
 
 
   	/**
-   	 * Creates a new GeoFeature that is equal to this GeoFeature with gs
-   	 * appended to its end.
+   	 * Appends gs to the end of this GeoFeature.
      * @requires gs != null && gs.p1 = this.end && gs.name = this.name.
-     * @return a new GeoFeature r such that
-     *         r.end = gs.p2 &&
-     *         r.endHeading = gs.heading &&
-     *    	   r.length = this.length + gs.length
+     * @modifies this
+     * @effects this.end = gs.p2 &&
+     *          this.endHeading = gs.heading &&
+     *          this.length = old(this.length) + gs.length
+     * @return this
      **/
   	public GeoFeature addSegment(GeoSegment gs) {
-		checkRep();
 		if (gs == null || !this.getEnd().equals(gs.getP1()) || 
-			getName() != gs.getName()) {
+			!getName().equals(gs.getName())) {
 			throw new IllegalArgumentException();
 		}
 
 		segments.add(gs);
-		checkRep();
+		length += gs.getLength();
+		// same recurrence as List.hashCode(), so it can be kept up to date
+		hash = 31 * hash + gs.hashCode();
+		changes++;
+		validate();
 		return this;
 	}
 
 
+	/**
+	 * Returns the validation policy of this.
+	 * @return the ValidationPolicy that this GeoFeature checks its rep.
+	 *         invariant with.
+	 **/
+	public ValidationPolicy getValidationPolicy() {
+		return policy;
+	}
+
+
   	/**
      * Returns an Iterator of GeoSegment objects. The concatenation of the
      * GeoSegments, in order, is equivalent to this GeoFeature. All the
@@ -182,10 +258,109 @@ public class GeoFeature {
      * @see homework1.GeoSegment
      */
   	public Iterator<GeoSegment> getGeoSegments() {
-		return segments.iterator();
+		// unmodifiable, since remove() would leave the length and hash of
+		// this, and of the Route that holds it, stale
+		return Collections.unmodifiableList(segments).iterator();
   	}
 
 
+  	/**
+  	 * Creates a simplified GeoFeature that follows this one to within a
+  	 * tolerance in meters, with the Douglas-Peucker algorithm in the flat-earth
+  	 * metric. The first and the last segment are kept as they are, so the
+  	 * start, end, startHeading and endHeading do not change; between them,
+  	 * only the end points needed to stay within tolerance are kept.
+     * @requires tolerance >= 0
+     * @return a new GeoFeature r such that r.name = this.name &&
+     *         r.start = this.start && r.end = this.end &&
+     *         r.startHeading = this.startHeading &&
+     *         r.endHeading = this.endHeading &&
+     *         the end points of r.geoSegments are a subsequence of those of
+     *         this.geoSegments &&
+     *         every end point of this.geoSegments is within tolerance
+     *         meters of r.
+     **/
+  	public GeoFeature simplify(double tolerance) {
+		if (!(tolerance >= 0)) {
+			throw new IllegalArgumentException();
+		}
+		int n = segments.size();
+		// points[i] is the start of segment i, points[n] the end
+		GeoPoint[] points = new GeoPoint[n + 1];
+		for (int i = 0; i < n; i++) {
+			points[i] = segments.get(i).getP1();
+		}
+		points[n] = getEnd();
+
+		boolean[] keep = new boolean[n + 1];
+		keep[0] = true;
+		keep[n] = true;
+		if (n >= 2) {
+			keep[1] = true;
+			keep[n - 1] = true;
+			keepPoints(points, 1, n - 1, tolerance / 1000, keep);
+		}
+
+		GeoFeature gf = null;
+		int from = 0;
+		for (int i = 1; i <= n; i++) {
+			if (!keep[i]) {
+				continue;
+			}
+			// reuse the original segment when no point between was dropped
+			GeoSegment gs = i == from + 1 ? segments.get(from) :
+				new GeoSegment(getName(), points[from], points[i]);
+			gf = gf == null ? new GeoFeature(gs, policy) : gf.addSegment(gs);
+			from = i;
+		}
+		return gf;
+	}
+
+	/**
+	 * Marks the points of points[first..last] that Douglas-Peucker keeps
+	 * for the given tolerance in kilometers. Uses an explicit stack, so long
+	 * features cannot overflow the call stack.
+	 */
+	private static void keepPoints(GeoPoint[] points, int first, int last,
+			double tolerance, boolean[] keep) {
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = first;
+		stack[top++] = last;
+		while (top > 0) {
+			int j = stack[--top];
+			int i = stack[--top];
+			if (j - i < 2) {
+				continue;
+			}
+			GeoPoint a = points[i];
+			GeoPoint b = points[j];
+			int farthest = -1;
+			double max = -1;
+			for (int k = i + 1; k < j; k++) {
+				double d = GeoSegment.distanceToSegment(
+					points[k].getLatitude(), points[k].getLongitude(),
+					a.getLatitude(), a.getLongitude(), b.getLatitude(), b.getLongitude());
+				if (d > max) {
+					max = d;
+					farthest = k;
+				}
+			}
+			// a segment cannot join a point to itself
+			if (max > tolerance || a.equals(b)) {
+				keep[farthest] = true;
+				if (top + 4 > stack.length) {
+					stack = Arrays.copyOf(stack, 2 * stack.length);
+				}
+				stack[top++] = i;
+				stack[top++] = farthest;
+				stack[top++] = farthest;
+				stack[top++] = j;
+			}
+		}
+	}
+
+
   	/**
      * Compares the argument with this GeoFeature for equality.
      * @return o != null && (o instanceof GeoFeature) &&
@@ -193,17 +368,15 @@ public class GeoFeature {
      *          the same elements in the same order).
      **/
   	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
 		if (o == null || !(o instanceof GeoFeature)) {
 			return false;
 		}
-		Iterator<GeoSegment> o_iter = ((GeoFeature)o).getGeoSegments();
-		ArrayList<GeoSegment> o_list = new ArrayList<>();
+		GeoFeature gf = (GeoFeature)o;
 
-		while (o_iter.hasNext()) {
-			o_list.add(o_iter.next());
-		}
-
-		return o_list.equals(this.segments);
+		return gf.hash == this.hash && gf.segments.equals(this.segments);
   	}
 
 
@@ -212,10 +385,7 @@ public class GeoFeature {
      * @return a hash code for this.
      **/
   	public int hashCode() {
-    	// This implementation will work, but you may want to modify it
-    	// improved performance.
-    	
-    	return 1;
+    	return hash;
   	}
 
 
@@ -234,22 +404,74 @@ public class GeoFeature {
 		return new String(s);
   	}
 
+	/**
+	 * Runs the check that the policy calls for after the latest change.
+	 */
+	private void validate() {
+		switch (policy.checkAfter(changes)) {
+			case FULL:
+				checkRep();
+				break;
+			case BOUNDARY:
+				checkJoin();
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Checks the whole rep. invariant.
+	 * @throws IllegalStateException if it does not hold.
+	 */
 	private void checkRep() {
-		Iterator<GeoSegment> iter = this.getGeoSegments(); 
-		GeoSegment last_gs;
-		GeoSegment gs;
+		long start = RouteMetrics.start();
+		ValidationPolicy.counted(ValidationPolicy.Check.FULL);
+		int h = 1;
+		for (int i = 0; i < segments.size(); i++) {
+			if (i > 0) {
+				checkJoin(i);
+			}
+			h = 31 * h + segments.get(i).hashCode();
+		}
+		if (h != hash) {
+			throw new IllegalStateException("GeoFeature " + name() + ": stale hash");
+		}
+		RouteMetrics.end(RouteMetrics.Operation.CHECK_REP, start);
+	}
 
-		if (iter.hasNext()) {
-			last_gs = iter.next();
-		} else {
+	/**
+	 * Checks the rep. invariant only at the join of the last segment, which
+	 * is the only part of the rep. that addSegment() changes.
+	 * @throws IllegalStateException if it does not hold.
+	 */
+	private void checkJoin() {
+		int n = segments.size();
+		if (n < 2) {
 			return;
 		}
+		long start = RouteMetrics.start();
+		ValidationPolicy.counted(ValidationPolicy.Check.BOUNDARY);
+		checkJoin(n - 1);
+		RouteMetrics.end(RouteMetrics.Operation.CHECK_REP, start);
+	}
 
-		while (iter.hasNext()) {
-			gs = iter.next();
-			assert(last_gs.getP2().equals(gs.getP1()));
-			assert(last_gs.getName() == gs.getName());
-			last_gs = gs;
+	// the name, for the messages of the checks; unlike getName(), it cannot
+	// be overridden, so the checks may run in the constructor
+	private String name() {
+		return segments.getFirst().getName();
+	}
+
+	private void checkJoin(int i) {
+		GeoSegment last_gs = segments.get(i - 1);
+		GeoSegment gs = segments.get(i);
+		if (!last_gs.getP2().equals(gs.getP1())) {
+			throw new IllegalStateException("GeoFeature " + name() + ": segment " + i +
+				" does not start where segment " + (i - 1) + " ends");
+		}
+		if (!last_gs.getName().equals(gs.getName())) {
+			throw new IllegalStateException("GeoFeature " + name() + ": segment " + i +
+				" is named " + gs.getName());
 		}
 	}
 }
@@ -0,0 +1,180 @@
+package homework1;
+
+/**
+ * GeoKernels contains bulk versions of the flat-earth computations of
+ * GeoPoint, working directly on arrays of coordinates in millionths of
+ * degrees: distances from one point to many, distances and headings along
+ * a polyline, and squared-distance comparisons that avoid the square root.
+ * <p>
+ * Every distance and heading computed here is bit-for-bit equal to the
+ * one that <tt>GeoPoint.distanceTo()</tt> or <tt>GeoPoint.headingTo()</tt>
+ * returns for the same two points: the kernels evaluate the very same
+ * expressions, in the same order.
+ * <p>
+ * The loops are simple counted loops over primitive arrays with no calls
+ * and no branches in their bodies (apart from the headings), which is the
+ * shape HotSpot's C2 compiler auto-vectorizes with SIMD instructions.
+ */
+public final class GeoKernels {
+
+	private GeoKernels() {
+	}
+
+
+	/**
+	 * Computes the distances from one point to many.
+	 * @requires lats != null && lons != null && out != null &&
+	 *           0 <= from <= to <= min(lats.length, lons.length, out.length)
+	 * @modifies out
+	 * @effects out[i] = distance from (lat, lon) to (lats[i], lons[i]), in
+	 *          kilometers, for all from <= i < to.
+	 **/
+	public static void distances(int lat, int lon, int[] lats, int[] lons,
+			int from, int to, double[] out) {
+		checkRange(lats, lons, from, to, out);
+		for (int i = from; i < to; i++) {
+			double latDiffKilo = (lat - lats[i]) *
+				GeoPoint.KM_PER_DEGREE_LATITUDE / 1000000;
+			double longDiffKilo = (lon - lons[i]) *
+				GeoPoint.KM_PER_DEGREE_LONGITUDE / 1000000;
+			out[i] = Math.sqrt(latDiffKilo * latDiffKilo + longDiffKilo * longDiffKilo);
+		}
+	}
+
+
+	/**
+	 * Computes the squared distances from one point to many. Squared
+	 * distances order points exactly as distances do, without computing a
+	 * square root.
+	 * @requires lats != null && lons != null && out != null &&
+	 *           0 <= from <= to <= min(lats.length, lons.length, out.length)
+	 * @modifies out
+	 * @effects out[i] = square of the distance from (lat, lon) to
+	 *          (lats[i], lons[i]), in square kilometers, for all
+	 *          from <= i < to.
+	 **/
+	public static void squaredDistances(int lat, int lon, int[] lats, int[] lons,
+			int from, int to, double[] out) {
+		checkRange(lats, lons, from, to, out);
+		for (int i = from; i < to; i++) {
+			double latDiffKilo = (lat - lats[i]) *
+				GeoPoint.KM_PER_DEGREE_LATITUDE / 1000000;
+			double longDiffKilo = (lon - lons[i]) *
+				GeoPoint.KM_PER_DEGREE_LONGITUDE / 1000000;
+			out[i] = latDiffKilo * latDiffKilo + longDiffKilo * longDiffKilo;
+		}
+	}
+
+
+	/**
+	 * Finds the point closest to (lat, lon), comparing squared distances.
+	 * @requires lats != null && lons != null &&
+	 *           0 <= from < to <= min(lats.length, lons.length)
+	 * @return the smallest index i in [from, to) such that the distance from
+	 *         (lat, lon) to (lats[i], lons[i]) is minimal.
+	 **/
+	public static int nearest(int lat, int lon, int[] lats, int[] lons,
+			int from, int to) {
+		checkRange(lats, lons, from, to, null);
+		if (from == to) {
+			throw new IllegalArgumentException();
+		}
+		int best = from;
+		double bestSquared = Double.POSITIVE_INFINITY;
+		for (int i = from; i < to; i++) {
+			double latDiffKilo = (lat - lats[i]) *
+				GeoPoint.KM_PER_DEGREE_LATITUDE / 1000000;
+			double longDiffKilo = (lon - lons[i]) *
+				GeoPoint.KM_PER_DEGREE_LONGITUDE / 1000000;
+			double squared = latDiffKilo * latDiffKilo + longDiffKilo * longDiffKilo;
+			if (squared < bestSquared) {
+				bestSquared = squared;
+				best = i;
+			}
+		}
+		return best;
+	}
+
+
+	/**
+	 * Counts the points within a radius of (lat, lon), comparing squared
+	 * distances against the squared radius.
+	 * @requires lats != null && lons != null && radius >= 0 &&
+	 *           0 <= from <= to <= min(lats.length, lons.length)
+	 * @return the number of indices i in [from, to) such that the squared
+	 *         distance from (lat, lon) to (lats[i], lons[i]) is at most
+	 *         radius * radius (radius in kilometers).
+	 **/
+	public static int countWithin(int lat, int lon, int[] lats, int[] lons,
+			int from, int to, double radius) {
+		checkRange(lats, lons, from, to, null);
+		if (radius < 0) {
+			throw new IllegalArgumentException();
+		}
+		double limit = radius * radius;
+		int count = 0;
+		for (int i = from; i < to; i++) {
+			double latDiffKilo = (lat - lats[i]) *
+				GeoPoint.KM_PER_DEGREE_LATITUDE / 1000000;
+			double longDiffKilo = (lon - lons[i]) *
+				GeoPoint.KM_PER_DEGREE_LONGITUDE / 1000000;
+			count += latDiffKilo * latDiffKilo + longDiffKilo * longDiffKilo <= limit ? 1 : 0;
+		}
+		return count;
+	}
+
+
+	/**
+	 * Computes the lengths of the segments of a polyline.
+	 * @requires lats != null && lons != null && out != null &&
+	 *           0 <= n <= min(lats.length, lons.length) && out.length >= n - 1
+	 * @modifies out
+	 * @effects out[i] = distance from (lats[i], lons[i]) to
+	 *          (lats[i + 1], lons[i + 1]), in kilometers, for all
+	 *          0 <= i < n - 1.
+	 **/
+	public static void segmentLengths(int[] lats, int[] lons, int n, double[] out) {
+		if (lats == null || lons == null || out == null || n < 0 ||
+			n > lats.length || n > lons.length || out.length < n - 1) {
+			throw new IllegalArgumentException();
+		}
+		for (int i = 0; i < n - 1; i++) {
+			double latDiffKilo = (lats[i] - lats[i + 1]) *
+				GeoPoint.KM_PER_DEGREE_LATITUDE / 1000000;
+			double longDiffKilo = (lons[i] - lons[i + 1]) *
+				GeoPoint.KM_PER_DEGREE_LONGITUDE / 1000000;
+			out[i] = Math.sqrt(latDiffKilo * latDiffKilo + longDiffKilo * longDiffKilo);
+		}
+	}
+
+
+	/**
+	 * Computes the compass headings of the segments of a polyline.
+	 * @requires lats != null && lons != null && out != null &&
+	 *           0 <= n <= min(lats.length, lons.length) &&
+	 *           out.length >= n - 1 && no two consecutive points are equal
+	 * @modifies out
+	 * @effects out[i] = compass heading from (lats[i], lons[i]) to
+	 *          (lats[i + 1], lons[i + 1]), in degrees, for all
+	 *          0 <= i < n - 1.
+	 **/
+	public static void segmentHeadings(int[] lats, int[] lons, int n, double[] out) {
+		if (lats == null || lons == null || out == null || n < 0 ||
+			n > lats.length || n > lons.length || out.length < n - 1) {
+			throw new IllegalArgumentException();
+		}
+		for (int i = 0; i < n - 1; i++) {
+			if (lats[i] == lats[i + 1] && lons[i] == lons[i + 1]) {
+				throw new IllegalArgumentException();
+			}
+			out[i] = GeoPoint.heading(lats[i], lons[i], lats[i + 1], lons[i + 1]);
+		}
+	}
+
+	private static void checkRange(int[] lats, int[] lons, int from, int to, double[] out) {
+		if (lats == null || lons == null || from < 0 || from > to ||
+			to > lats.length || to > lons.length || (out != null && to > out.length)) {
+			throw new IllegalArgumentException();
+		}
+	}
+}
@@ -143,12 +143,9 @@ public class GeoPoint {
 		if (gp == null) {
 			throw new IllegalArgumentException();
 		}
-		double latDiffKilo = (this.latitude - gp.getLatitude()) * 
-			KM_PER_DEGREE_LATITUDE / 1000000;
-		double longDiffKilo = (this.longitude - gp.getLongitude()) * 
-			KM_PER_DEGREE_LONGITUDE / 1000000;
 
-		return Math.sqrt(Math.pow(latDiffKilo, 2) + Math.pow(longDiffKilo, 2));
+		return distance(this.latitude, this.longitude,
+			gp.getLatitude(), gp.getLongitude());
 	}
 
 
@@ -174,9 +171,41 @@ public class GeoPoint {
 			throw new IllegalArgumentException();
 		}
 
-		double latDiffKilo = (gp.getLatitude() - this.latitude) * 
+		return heading(this.latitude, this.longitude,
+			gp.getLatitude(), gp.getLongitude());
+  	}
+
+
+  	/**
+  	 * Computes the distance between two points given by raw coordinates.
+  	 * This is the metric used by distanceTo(), shared with code that stores
+  	 * coordinates without allocating GeoPoints (e.g. GeoPointTable).
+  	 * @return the distance in kilometers from (lat1, lon1) to (lat2, lon2),
+  	 *         given in millionths of degrees, using the flat-surface, near
+  	 *         the Technion approximation.
+  	 **/
+  	static double distance(int lat1, int lon1, int lat2, int lon2) {
+		double latDiffKilo = (lat1 - lat2) * 
+			KM_PER_DEGREE_LATITUDE / 1000000;
+		double longDiffKilo = (lon1 - lon2) * 
+			KM_PER_DEGREE_LONGITUDE / 1000000;
+
+		// x * x is the exactly rounded square, and matches GeoKernels
+		return Math.sqrt(latDiffKilo * latDiffKilo + longDiffKilo * longDiffKilo);
+  	}
+
+
+  	/**
+  	 * Computes the compass heading between two points given by raw
+  	 * coordinates. This is the metric used by headingTo().
+  	 * @requires (lat1, lon1) != (lat2, lon2)
+  	 * @return the compass heading h from (lat1, lon1) to (lat2, lon2), in
+  	 *         degrees, such that 0 <= h < 360.
+  	 **/
+  	static double heading(int lat1, int lon1, int lat2, int lon2) {
+		double latDiffKilo = (lat2 - lat1) * 
 		 	KM_PER_DEGREE_LATITUDE / 1000000;
-		double longDiffKilo = (gp.getLongitude() - this.longitude) * 
+		double longDiffKilo = (lon2 - lon1) * 
 		 	KM_PER_DEGREE_LONGITUDE / 1000000;
 		 
 		double theta = Math.atan2(latDiffKilo, longDiffKilo);
@@ -197,7 +226,7 @@ public class GeoPoint {
      **/
   	public boolean equals(Object gp) {
 		if (gp == null || !(gp instanceof GeoPoint)) {
-			throw new IllegalArgumentException();
+			return false;
 		}
 
 		return this.latitude == ((GeoPoint)gp).getLatitude() && 
@@ -210,10 +239,13 @@ public class GeoPoint {
      * @return a hash code value for this GeoPoint.
    	 **/
   	public int hashCode() {
-    	// This implementation will work, but you may want to modify it
-    	// for improved performance.
-
-    	return 1;
+    	// 31 * latitude + longitude collides for points 1 microdegree
+    	// north and 31 west of each other, which is common on a grid; mix
+    	// both fields through the MurmurHash3 finalizer instead
+    	long h = ((long)latitude << 32) | (longitude & 0xffffffffL);
+    	h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+    	h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    	return Long.hashCode(h ^ (h >>> 33));
   	}
 
 
@@ -0,0 +1,110 @@
+package homework1;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A GeoPointPool hands out canonical GeoPoint instances, so that all the
+ * GeoPoints with the same coordinates obtained from one pool are the same
+ * object. This saves memory when many GeoSegments share endpoints (for
+ * example at intersections), and lets callers compare pooled points with
+ * <tt>==</tt>.
+ * <p>
+ * Using a pool is optional; GeoPoints created directly keep working as
+ * before. A GeoPointPool is safe for concurrent use.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   canonical : set of GeoPoint    // the canonical points held by this
+ * </pre>
+ **/
+public class GeoPointPool {
+
+	private final ConcurrentHashMap<GeoPoint, GeoPoint> pool;
+
+	/*
+	 * Rep. Invariant:
+	 * pool != null && for every key k in pool: pool.get(k) == k
+	 * Abstraction Function:
+	 * canonical = the key set of pool.
+	 */
+
+	/**
+	 * Constructs an empty GeoPointPool.
+	 * @effects constructs a new GeoPointPool with no canonical points.
+	 **/
+	public GeoPointPool() {
+		pool = new ConcurrentHashMap<GeoPoint, GeoPoint>();
+	}
+
+
+	/**
+	 * Returns the canonical instance of a point.
+	 * @requires gp != null
+	 * @modifies this
+	 * @effects if no point of this.canonical equals gp, adds gp to
+	 *          this.canonical.
+	 * @return the point c of this.canonical such that c.equals(gp).
+	 **/
+	public GeoPoint intern(GeoPoint gp) {
+		if (gp == null) {
+			throw new IllegalArgumentException();
+		}
+		GeoPoint c = pool.putIfAbsent(gp, gp);
+		return c == null ? gp : c;
+	}
+
+
+	/**
+	 * Returns the canonical instance of a point given in millionths of
+	 * degrees.
+	 * @requires the point given by (latitude, longitude) is a valid GeoPoint
+	 * @modifies this
+	 * @effects if no point of this.canonical is at (latitude, longitude),
+	 *          adds a new GeoPoint at (latitude, longitude) to this.canonical.
+	 * @return the point of this.canonical at (latitude, longitude).
+	 **/
+	public GeoPoint intern(int latitude, int longitude) {
+		return intern(new GeoPoint(latitude, longitude));
+	}
+
+
+	/**
+	 * Returns a GeoSegment equal to gs whose endpoints are canonical.
+	 * @requires gs != null
+	 * @modifies this
+	 * @effects adds the endpoints of gs to this.canonical, as intern() does.
+	 * @return gs itself if its endpoints are already canonical, otherwise a
+	 *         new GeoSegment equal to gs whose endpoints are in
+	 *         this.canonical.
+	 **/
+	public GeoSegment intern(GeoSegment gs) {
+		if (gs == null) {
+			throw new IllegalArgumentException();
+		}
+		GeoPoint p1 = intern(gs.getP1());
+		GeoPoint p2 = intern(gs.getP2());
+		if (p1 == gs.getP1() && p2 == gs.getP2()) {
+			return gs;
+		}
+		return new GeoSegment(gs.getName(), p1, p2);
+	}
+
+
+	/**
+	 * Returns the number of canonical points in this.
+	 * @return the size of this.canonical.
+	 **/
+	public int size() {
+		return pool.size();
+	}
+
+
+	/**
+	 * Removes all the canonical points.
+	 * @modifies this
+	 * @effects this.canonical = {}
+	 **/
+	public void clear() {
+		pool.clear();
+	}
+}
@@ -0,0 +1,282 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A GeoPointTable is a growable store of points on the earth, kept as two
+ * parallel columns of ints (latitude and longitude in millionths of
+ * degrees) instead of one GeoPoint object per point.
+ * <p>
+ * Points are addressed by their index in the table, in insertion order.
+ * The table offers the same flat-earth computations as GeoPoint
+ * (distanceTo, headingTo) directly on indices, so large sets of points can
+ * be scanned without allocating GeoPoints. A GeoPoint can still be
+ * obtained for a single index with <tt>get()</tt>.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   points : sequence     // the points stored in this, in insertion order
+ *   size : int            // number of points stored in this
+ * </pre>
+ **/
+public class GeoPointTable {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private int[] latitudes;
+	private int[] longitudes;
+	private int size;
+
+	/*
+	 * Rep. Invariant:
+	 * latitudes != null && longitudes != null &&
+	 * latitudes.length == longitudes.length && 0 <= size <= latitudes.length &&
+	 * for all 0 <= i < size: (latitudes[i], longitudes[i]) is a valid GeoPoint
+	 * Abstraction Function:
+	 * points[i] = (latitudes[i], longitudes[i]) for all 0 <= i < size.
+	 * Cells at index >= size are unused capacity.
+	 */
+
+	/**
+	 * Constructs an empty GeoPointTable.
+	 * @effects constructs a new GeoPointTable with no points.
+	 **/
+	public GeoPointTable() {
+		this(DEFAULT_CAPACITY);
+	}
+
+
+	/**
+	 * Constructs an empty GeoPointTable with room for the given number of
+	 * points before it needs to grow.
+	 * @requires capacity >= 0
+	 * @effects constructs a new GeoPointTable with no points.
+	 **/
+	public GeoPointTable(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException();
+		}
+		latitudes = new int[capacity];
+		longitudes = new int[capacity];
+		size = 0;
+	}
+
+
+	/**
+	 * Appends a point given in millionths of degrees.
+	 * @requires MIN_LATITUDE <= latitude <= MAX_LATITUDE &&
+	 *           MIN_LONGITUDE <= longitude <= MAX_LONGITUDE
+	 * @modifies this
+	 * @effects appends (latitude, longitude) to this.points.
+	 * @return the index of the new point.
+	 **/
+	public int add(int latitude, int longitude) {
+		if (latitude > GeoPoint.MAX_LATITUDE || latitude < GeoPoint.MIN_LATITUDE ||
+			longitude > GeoPoint.MAX_LONGITUDE || longitude < GeoPoint.MIN_LONGITUDE) {
+			throw new IllegalArgumentException();
+		}
+		if (size == latitudes.length) {
+			int capacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+			latitudes = Arrays.copyOf(latitudes, capacity);
+			longitudes = Arrays.copyOf(longitudes, capacity);
+		}
+		latitudes[size] = latitude;
+		longitudes[size] = longitude;
+		return size++;
+	}
+
+
+	/**
+	 * Appends a point.
+	 * @requires gp != null
+	 * @modifies this
+	 * @effects appends gp to this.points.
+	 * @return the index of the new point.
+	 **/
+	public int add(GeoPoint gp) {
+		if (gp == null) {
+			throw new IllegalArgumentException();
+		}
+		return add(gp.getLatitude(), gp.getLongitude());
+	}
+
+
+	/**
+	 * Returns the number of points in this.
+	 * @return this.size
+	 **/
+	public int size() {
+		return size;
+	}
+
+
+	/**
+	 * Returns the latitude of a point.
+	 * @requires 0 <= i < this.size
+	 * @return the latitude of points[i] in millionths of degrees.
+	 **/
+	public int getLatitude(int i) {
+		checkIndex(i);
+		return latitudes[i];
+	}
+
+
+	/**
+	 * Returns the longitude of a point.
+	 * @requires 0 <= i < this.size
+	 * @return the longitude of points[i] in millionths of degrees.
+	 **/
+	public int getLongitude(int i) {
+		checkIndex(i);
+		return longitudes[i];
+	}
+
+
+	/**
+	 * Returns a point as a GeoPoint.
+	 * @requires 0 <= i < this.size
+	 * @return a new GeoPoint equal to points[i].
+	 **/
+	public GeoPoint get(int i) {
+		checkIndex(i);
+		return new GeoPoint(latitudes[i], longitudes[i]);
+	}
+
+
+	/**
+	 * Computes the distance between two points of this.
+	 * @requires 0 <= i < this.size && 0 <= j < this.size
+	 * @return points[i].distanceTo(points[j])
+	 **/
+	public double distanceTo(int i, int j) {
+		checkIndex(i);
+		checkIndex(j);
+		return GeoPoint.distance(latitudes[i], longitudes[i],
+			latitudes[j], longitudes[j]);
+	}
+
+
+	/**
+	 * Computes the distance between a point of this and a GeoPoint.
+	 * @requires 0 <= i < this.size && gp != null
+	 * @return points[i].distanceTo(gp)
+	 **/
+	public double distanceTo(int i, GeoPoint gp) {
+		checkIndex(i);
+		if (gp == null) {
+			throw new IllegalArgumentException();
+		}
+		return GeoPoint.distance(latitudes[i], longitudes[i],
+			gp.getLatitude(), gp.getLongitude());
+	}
+
+
+	/**
+	 * Computes the compass heading between two points of this.
+	 * @requires 0 <= i < this.size && 0 <= j < this.size &&
+	 *           !points[i].equals(points[j])
+	 * @return points[i].headingTo(points[j])
+	 **/
+	public double headingTo(int i, int j) {
+		checkIndex(i);
+		checkIndex(j);
+		if (latitudes[i] == latitudes[j] && longitudes[i] == longitudes[j]) {
+			throw new IllegalArgumentException();
+		}
+		return GeoPoint.heading(latitudes[i], longitudes[i],
+			latitudes[j], longitudes[j]);
+	}
+
+
+	/**
+	 * Computes the compass heading from a point of this to a GeoPoint.
+	 * @requires 0 <= i < this.size && gp != null && !points[i].equals(gp)
+	 * @return points[i].headingTo(gp)
+	 **/
+	public double headingTo(int i, GeoPoint gp) {
+		checkIndex(i);
+		if (gp == null || (latitudes[i] == gp.getLatitude() &&
+			longitudes[i] == gp.getLongitude())) {
+			throw new IllegalArgumentException();
+		}
+		return GeoPoint.heading(latitudes[i], longitudes[i],
+			gp.getLatitude(), gp.getLongitude());
+	}
+
+
+	/**
+	 * Returns the index of the point of this closest to gp.
+	 * @requires gp != null && this.size > 0
+	 * @return an index i such that points[i].distanceTo(gp) is minimal.
+	 **/
+	public int nearest(GeoPoint gp) {
+		if (gp == null || size == 0) {
+			throw new IllegalArgumentException();
+		}
+		return GeoKernels.nearest(gp.getLatitude(), gp.getLongitude(),
+			latitudes, longitudes, 0, size);
+	}
+
+
+	/**
+	 * Computes the distances from a GeoPoint to all the points of this.
+	 * @requires gp != null && out != null && out.length >= this.size
+	 * @modifies out
+	 * @effects out[i] = points[i].distanceTo(gp) for all 0 <= i < this.size
+	 **/
+	public void distancesTo(GeoPoint gp, double[] out) {
+		if (gp == null || out == null || out.length < size) {
+			throw new IllegalArgumentException();
+		}
+		GeoKernels.distances(gp.getLatitude(), gp.getLongitude(),
+			latitudes, longitudes, 0, size, out);
+	}
+
+
+	/**
+	 * Removes the points at the end of this.
+	 * @requires 0 <= newSize <= this.size
+	 * @modifies this
+	 * @effects removes points[newSize..size-1] from this.
+	 **/
+	void truncate(int newSize) {
+		if (newSize < 0 || newSize > size) {
+			throw new IllegalArgumentException();
+		}
+		size = newSize;
+	}
+
+
+	/**
+	 * Releases unused capacity.
+	 * @modifies this
+	 * @effects shrinks the storage of this to exactly this.size points.
+	 **/
+	public void trimToSize() {
+		latitudes = Arrays.copyOf(latitudes, size);
+		longitudes = Arrays.copyOf(longitudes, size);
+	}
+
+
+	/**
+	 * Returns a string representation of this.
+	 * @return a string representation of this.
+	 **/
+	public String toString() {
+		StringBuilder s = new StringBuilder("[");
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				s.append(", ");
+			}
+			s.append(String.format("(Lat: %.3f, Long: %.3f)",
+				latitudes[i] / 1000000.0, longitudes[i] / 1000000.0));
+		}
+		return s.append("]").toString();
+	}
+
+	private void checkIndex(int i) {
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+}
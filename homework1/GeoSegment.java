@@ -45,6 +45,7 @@ public class GeoSegment  {
 	private final GeoPoint P1;
 	private final GeoPoint P2;
 	private final double length;
+	private final int hash;
 
 	/*
 	 * Rep. Invariant:
@@ -52,6 +53,7 @@ public class GeoSegment  {
 	 * Abstraction Function:
 	 * A geographic line named 'name' that starts at GeoPoint P1 and ends at P2
 	 * with euclidian length
+	 * hash caches hashCode(), which depends only on final members
 	 * 
 	 * no need for checkRep() because all the members are private and final.
 	 */
@@ -66,10 +68,13 @@ public class GeoSegment  {
 			throw new IllegalArgumentException();
 		}
 
-		this.P1 = new GeoPoint(p1.getLatitude(), p1.getLongitude());
-		this.P2 = new GeoPoint(p2.getLatitude(), p2.getLongitude());
+		// GeoPoints are immutable, so the endpoints can be shared instead
+		// of copied.
+		this.P1 = p1;
+		this.P2 = p2;
   		this.name = name;
 		this.length = P1.distanceTo(P2);
+		this.hash = 31 * (31 * name.hashCode() + P1.hashCode()) + P2.hashCode();
   	}
 	
 
@@ -97,7 +102,7 @@ public class GeoSegment  {
      * @return first endpoint of the segment.
      */
   	public GeoPoint getP1() {
-  		return new GeoPoint(P1);
+  		return P1;
   	}
 
 
@@ -106,7 +111,7 @@ public class GeoSegment  {
      * @return second endpoint of the segment.
      */
   	public GeoPoint getP2() {
-  		return new GeoPoint(P2);
+  		return P2;
   	}
 
 
@@ -133,17 +138,62 @@ public class GeoSegment  {
 	}
 
 
+  	/**
+  	 * Computes the distance from a GeoPoint to this segment.
+     * @requires gp != null
+     * @return the distance from gp to the closest point of this segment,
+     *         in kilometers, using the flat-surface, near the Technion
+     *         approximation.
+     **/
+  	public double distanceTo(GeoPoint gp) {
+		if (gp == null) {
+			throw new IllegalArgumentException();
+		}
+		return distanceToSegment(gp.getLatitude(), gp.getLongitude(),
+			P1.getLatitude(), P1.getLongitude(), P2.getLatitude(), P2.getLongitude());
+	}
+
+
+  	/**
+  	 * Computes the distance from a point to a segment given by raw
+  	 * coordinates, in millionths of degrees.
+     * @return the distance in kilometers from (lat, lon) to the closest point
+     *         of the segment from (lat1, lon1) to (lat2, lon2), using the
+     *         flat-surface, near the Technion approximation.
+     **/
+  	static double distanceToSegment(int lat, int lon,
+  			int lat1, int lon1, int lat2, int lon2) {
+		double px = (lon - lon1) * GeoPoint.KM_PER_DEGREE_LONGITUDE / 1000000;
+		double py = (lat - lat1) * GeoPoint.KM_PER_DEGREE_LATITUDE / 1000000;
+		double dx = (lon2 - lon1) * GeoPoint.KM_PER_DEGREE_LONGITUDE / 1000000;
+		double dy = (lat2 - lat1) * GeoPoint.KM_PER_DEGREE_LATITUDE / 1000000;
+
+		double len2 = dx * dx + dy * dy;
+		double t = 0;
+		if (len2 > 0) {
+			t = Math.max(0, Math.min(1, (px * dx + py * dy) / len2));
+		}
+		double ex = px - t * dx;
+		double ey = py - t * dy;
+		return Math.sqrt(ex * ex + ey * ey);
+	}
+
+
   	/**
      * Compares the specified Object with this GeoSegment for equality.
      * @return gs != null && (gs instanceof GeoSegment)
      *         && gs.name = this.name && gs.p1 = this.p1 && gs.p2 = this.p2
    	 **/
   	public boolean equals(Object gs) {
+  		if (gs == this) {
+			return true;
+		}
   		if (gs == null || !(gs instanceof GeoSegment)) {
 			return false;
 		}
 
-		if (((GeoSegment)gs).getName() == this.name && 
+		if (((GeoSegment)gs).hash == this.hash &&
+			((GeoSegment)gs).getName().equals(this.name) && 
 			((GeoSegment)gs).getP1().equals(this.P1) && 
 			((GeoSegment)gs).getP2().equals(this.P2)) {
 			return true;
@@ -158,10 +208,7 @@ public class GeoSegment  {
      * @return a hash code value for this.
      **/
   	public int hashCode() {
-    	// This implementation will work, but you may want to modify it 
-    	// for improved performance. 
-
-    	return 1;
+    	return hash;
   	}
 
 
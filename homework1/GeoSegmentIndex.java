@@ -0,0 +1,452 @@
+package homework1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A GeoSegmentIndex is a spatial index over a fixed catalog of GeoSegments.
+ * It answers "which segments are closest to this GeoPoint" and "which
+ * segments intersect this bounding box" without scanning the whole catalog.
+ * GeoSegmentIndexes are immutable, and therefore safe for concurrent use.
+ * <p>
+ * The index is an R-tree that is bulk loaded with the Sort-Tile-Recursive
+ * (STR) packing algorithm: the segments are grouped into leaves of up to
+ * NODE_CAPACITY segments whose bounding boxes are close together, and the
+ * leaves are grouped the same way level by level up to a single root. All
+ * bounding boxes are kept in integer millionths of degrees, and distances
+ * use the same flat-earth approximation as <tt>GeoPoint.distanceTo()</tt>.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   segments : set of GeoSegment    // the segments in the index
+ * </pre>
+ **/
+public class GeoSegmentIndex {
+
+	/** Maximum number of children of a node in the tree. **/
+	public static final int NODE_CAPACITY = 16;
+
+	private static final double KM_PER_LAT_UNIT =
+		GeoPoint.KM_PER_DEGREE_LATITUDE / 1000000;
+	private static final double KM_PER_LON_UNIT =
+		GeoPoint.KM_PER_DEGREE_LONGITUDE / 1000000;
+
+	// segments, in leaf order, and their endpoints
+	private final GeoSegment[] segments;
+	private final int[] lat1, lon1, lat2, lon2;
+
+	// nodes: the leaves first, then each level above them, the root last
+	private final int[] minLat, minLon, maxLat, maxLon;
+	private final int[] first, count;
+	private final int leafCount;
+	private final int height;
+
+	/*
+	 * Rep. Invariant:
+	 * all arrays of segment data have length segments.length, and all
+	 * arrays of node data have the same length;
+	 * a node i < leafCount is a leaf, whose children are the segments
+	 * first[i] .. first[i] + count[i] - 1; any other node's children are the
+	 * nodes first[i] .. first[i] + count[i] - 1, all on the level below;
+	 * the box (minLat, minLon, maxLat, maxLon) of every node contains the
+	 * boxes of all its children; the last node is the root, unless there
+	 * are no segments, in which case there are no nodes.
+	 * Abstraction Function:
+	 * segments = the set of all the elements of the array segments.
+	 */
+
+	/**
+	 * Constructs a new GeoSegmentIndex over the given segments.
+	 * @requires segments != null and contains no null elements
+	 * @effects constructs a new GeoSegmentIndex s.t. this.segments = segments
+	 **/
+	public GeoSegmentIndex(Collection<GeoSegment> segments) {
+		this(segments == null ? null : segments.toArray(new GeoSegment[0]));
+	}
+
+
+	/**
+	 * Constructs a new GeoSegmentIndex over the given segments.
+	 * @requires segments != null and contains no null elements
+	 * @effects constructs a new GeoSegmentIndex s.t. this.segments = segments
+	 **/
+	public GeoSegmentIndex(GeoSegment[] segments) {
+		if (segments == null) {
+			throw new IllegalArgumentException();
+		}
+		int n = segments.length;
+		int[] sLat1 = new int[n], sLon1 = new int[n], sLat2 = new int[n], sLon2 = new int[n];
+		int[] sMinLat = new int[n], sMinLon = new int[n], sMaxLat = new int[n], sMaxLon = new int[n];
+		for (int i = 0; i < n; i++) {
+			if (segments[i] == null) {
+				throw new IllegalArgumentException();
+			}
+			GeoPoint p1 = segments[i].getP1();
+			GeoPoint p2 = segments[i].getP2();
+			sLat1[i] = p1.getLatitude();
+			sLon1[i] = p1.getLongitude();
+			sLat2[i] = p2.getLatitude();
+			sLon2[i] = p2.getLongitude();
+			sMinLat[i] = Math.min(sLat1[i], sLat2[i]);
+			sMaxLat[i] = Math.max(sLat1[i], sLat2[i]);
+			sMinLon[i] = Math.min(sLon1[i], sLon2[i]);
+			sMaxLon[i] = Math.max(sLon1[i], sLon2[i]);
+		}
+
+		// order the segments for the leaves
+		int[] order = strOrder(n, sMinLat, sMinLon, sMaxLat, sMaxLon);
+		this.segments = new GeoSegment[n];
+		lat1 = new int[n];
+		lon1 = new int[n];
+		lat2 = new int[n];
+		lon2 = new int[n];
+		int[] bMinLat = new int[n], bMinLon = new int[n], bMaxLat = new int[n], bMaxLon = new int[n];
+		for (int i = 0; i < n; i++) {
+			int j = order[i];
+			this.segments[i] = segments[j];
+			lat1[i] = sLat1[j];
+			lon1[i] = sLon1[j];
+			lat2[i] = sLat2[j];
+			lon2[i] = sLon2[j];
+			bMinLat[i] = sMinLat[j];
+			bMinLon[i] = sMinLon[j];
+			bMaxLat[i] = sMaxLat[j];
+			bMaxLon[i] = sMaxLon[j];
+		}
+
+		// build the levels bottom up; each level packs the boxes of the
+		// level below (the ordered segments for the leaves)
+		ArrayList<int[][]> levels = new ArrayList<int[][]>();
+		int[][] below = { bMinLat, bMinLon, bMaxLat, bMaxLon, null, null };
+		int belowCount = n;
+		int belowOffset = 0;
+		int nodeTotal = 0;
+		while (belowCount > 1 || levels.isEmpty() && belowCount == 1) {
+			if (!levels.isEmpty()) {
+				// reorder the nodes of the level below, keeping their children
+				int[] o = strOrder(belowCount, below[0], below[1], below[2], below[3]);
+				for (int k = 0; k < below.length; k++) {
+					below[k] = permute(below[k], o);
+				}
+				levels.set(levels.size() - 1, below);
+			}
+			int nodes = (belowCount + NODE_CAPACITY - 1) / NODE_CAPACITY;
+			int[][] level = new int[6][nodes];
+			for (int i = 0; i < nodes; i++) {
+				int from = i * NODE_CAPACITY;
+				int to = Math.min(belowCount, from + NODE_CAPACITY);
+				level[0][i] = Integer.MAX_VALUE;
+				level[1][i] = Integer.MAX_VALUE;
+				level[2][i] = Integer.MIN_VALUE;
+				level[3][i] = Integer.MIN_VALUE;
+				for (int j = from; j < to; j++) {
+					level[0][i] = Math.min(level[0][i], below[0][j]);
+					level[1][i] = Math.min(level[1][i], below[1][j]);
+					level[2][i] = Math.max(level[2][i], below[2][j]);
+					level[3][i] = Math.max(level[3][i], below[3][j]);
+				}
+				level[4][i] = belowOffset + from;
+				level[5][i] = to - from;
+			}
+			if (!levels.isEmpty()) {
+				belowOffset += belowCount;
+			}
+			levels.add(level);
+			nodeTotal += nodes;
+			below = level;
+			belowCount = nodes;
+		}
+
+		minLat = new int[nodeTotal];
+		minLon = new int[nodeTotal];
+		maxLat = new int[nodeTotal];
+		maxLon = new int[nodeTotal];
+		first = new int[nodeTotal];
+		count = new int[nodeTotal];
+		int offset = 0;
+		for (int[][] level : levels) {
+			int nodes = level[0].length;
+			System.arraycopy(level[0], 0, minLat, offset, nodes);
+			System.arraycopy(level[1], 0, minLon, offset, nodes);
+			System.arraycopy(level[2], 0, maxLat, offset, nodes);
+			System.arraycopy(level[3], 0, maxLon, offset, nodes);
+			System.arraycopy(level[4], 0, first, offset, nodes);
+			System.arraycopy(level[5], 0, count, offset, nodes);
+			offset += nodes;
+		}
+		leafCount = levels.isEmpty() ? 0 : levels.get(0)[0].length;
+		height = levels.size();
+	}
+
+
+	/**
+	 * Returns the number of segments in this.
+	 * @return the size of this.segments.
+	 **/
+	public int size() {
+		return segments.length;
+	}
+
+
+	/**
+	 * Returns the segment closest to a point.
+	 * @requires gp != null && this.segments is not empty
+	 * @return a segment s of this.segments such that s.distanceTo(gp) is
+	 *         minimal.
+	 **/
+	public GeoSegment nearest(GeoPoint gp) {
+		if (segments.length == 0) {
+			throw new IllegalArgumentException();
+		}
+		return nearest(gp, 1).get(0);
+	}
+
+
+	/**
+	 * Returns the k segments closest to a point.
+	 * @requires gp != null && k >= 0
+	 * @return a list of min(k, this.segments.size) segments of this.segments,
+	 *         ordered by increasing distance to gp, such that no segment
+	 *         missing from the list is closer to gp than the last one.
+	 **/
+	public List<GeoSegment> nearest(GeoPoint gp, int k) {
+		if (gp == null || k < 0) {
+			throw new IllegalArgumentException();
+		}
+		ArrayList<GeoSegment> result = new ArrayList<GeoSegment>(Math.min(k, segments.length));
+		if (k == 0 || segments.length == 0) {
+			return result;
+		}
+		int lat = gp.getLatitude();
+		int lon = gp.getLongitude();
+
+		// best-first search: nodes are keyed by the distance to their box,
+		// segments (stored as ~index) by their exact distance
+		CandidateQueue queue = new CandidateQueue();
+		int root = minLat.length - 1;
+		queue.add(boxDistance(root, lat, lon), root);
+		while (!queue.isEmpty() && result.size() < k) {
+			int ref = queue.poll();
+			if (ref < 0) {
+				result.add(segments[~ref]);
+			} else if (ref < leafCount) {
+				for (int e = first[ref]; e < first[ref] + count[ref]; e++) {
+					queue.add(GeoSegment.distanceToSegment(lat, lon,
+						lat1[e], lon1[e], lat2[e], lon2[e]), ~e);
+				}
+			} else {
+				for (int c = first[ref]; c < first[ref] + count[ref]; c++) {
+					queue.add(boxDistance(c, lat, lon), c);
+				}
+			}
+		}
+		return result;
+	}
+
+
+	/**
+	 * Returns the segments that intersect a bounding box.
+	 * @requires corner1 != null && corner2 != null
+	 * @return the segments of this.segments that have at least one point
+	 *         inside the box whose opposite corners are corner1 and corner2
+	 *         (boundary included), in no particular order.
+	 **/
+	public List<GeoSegment> intersecting(GeoPoint corner1, GeoPoint corner2) {
+		if (corner1 == null || corner2 == null) {
+			throw new IllegalArgumentException();
+		}
+		return intersecting(
+			Math.min(corner1.getLatitude(), corner2.getLatitude()),
+			Math.min(corner1.getLongitude(), corner2.getLongitude()),
+			Math.max(corner1.getLatitude(), corner2.getLatitude()),
+			Math.max(corner1.getLongitude(), corner2.getLongitude()));
+	}
+
+
+	/**
+	 * Returns the segments that intersect a bounding box given in millionths
+	 * of degrees.
+	 * @requires boxMinLat <= boxMaxLat && boxMinLon <= boxMaxLon
+	 * @return the segments of this.segments that have at least one point
+	 *         inside the box [boxMinLat, boxMaxLat] x [boxMinLon, boxMaxLon],
+	 *         in no particular order.
+	 **/
+	public List<GeoSegment> intersecting(int boxMinLat, int boxMinLon,
+			int boxMaxLat, int boxMaxLon) {
+		if (boxMinLat > boxMaxLat || boxMinLon > boxMaxLon) {
+			throw new IllegalArgumentException();
+		}
+		ArrayList<GeoSegment> result = new ArrayList<GeoSegment>();
+		if (segments.length == 0) {
+			return result;
+		}
+		int[] stack = new int[height * NODE_CAPACITY + 1];
+		int top = 0;
+		stack[top++] = minLat.length - 1;
+		while (top > 0) {
+			int node = stack[--top];
+			if (minLat[node] > boxMaxLat || maxLat[node] < boxMinLat ||
+				minLon[node] > boxMaxLon || maxLon[node] < boxMinLon) {
+				continue;
+			}
+			if (node < leafCount) {
+				for (int e = first[node]; e < first[node] + count[node]; e++) {
+					if (segmentIntersectsBox(e, boxMinLat, boxMinLon, boxMaxLat, boxMaxLon)) {
+						result.add(segments[e]);
+					}
+				}
+			} else {
+				for (int c = first[node]; c < first[node] + count[node]; c++) {
+					stack[top++] = c;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the flat-earth distance from (lat, lon) to the box of a node,
+	 * which is a lower bound on the distance to anything inside it.
+	 */
+	private double boxDistance(int node, int lat, int lon) {
+		long dLat = Math.max(0L, Math.max((long)minLat[node] - lat, (long)lat - maxLat[node]));
+		long dLon = Math.max(0L, Math.max((long)minLon[node] - lon, (long)lon - maxLon[node]));
+		double y = dLat * KM_PER_LAT_UNIT;
+		double x = dLon * KM_PER_LON_UNIT;
+		return Math.sqrt(x * x + y * y);
+	}
+
+	/**
+	 * Tests segment e against a box: their bounding boxes must overlap and
+	 * the box corners must not all lie strictly on one side of the
+	 * segment's line (separating axis test).
+	 */
+	private boolean segmentIntersectsBox(int e, int boxMinLat, int boxMinLon,
+			int boxMaxLat, int boxMaxLon) {
+		if (Math.max(lat1[e], lat2[e]) < boxMinLat || Math.min(lat1[e], lat2[e]) > boxMaxLat ||
+			Math.max(lon1[e], lon2[e]) < boxMinLon || Math.min(lon1[e], lon2[e]) > boxMaxLon) {
+			return false;
+		}
+		int s1 = side(e, boxMinLat, boxMinLon);
+		int s2 = side(e, boxMinLat, boxMaxLon);
+		int s3 = side(e, boxMaxLat, boxMinLon);
+		int s4 = side(e, boxMaxLat, boxMaxLon);
+		return !((s1 > 0 && s2 > 0 && s3 > 0 && s4 > 0) ||
+			(s1 < 0 && s2 < 0 && s3 < 0 && s4 < 0));
+	}
+
+	private int side(int e, int lat, int lon) {
+		long cross = ((long)lon2[e] - lon1[e]) * ((long)lat - lat1[e]) -
+			((long)lat2[e] - lat1[e]) * ((long)lon - lon1[e]);
+		return Long.signum(cross);
+	}
+
+	/**
+	 * Returns the STR order of n boxes: sorted by the longitude of their
+	 * centers into vertical slices, and by the latitude of their centers
+	 * within each slice.
+	 */
+	private static int[] strOrder(int n, int[] bMinLat, int[] bMinLon,
+			int[] bMaxLat, int[] bMaxLon) {
+		long[] keys = new long[n];
+		for (int i = 0; i < n; i++) {
+			keys[i] = pack(center(bMinLon[i], bMaxLon[i]), i);
+		}
+		Arrays.sort(keys);
+
+		int nodes = (n + NODE_CAPACITY - 1) / NODE_CAPACITY;
+		int slices = (int)Math.ceil(Math.sqrt(nodes));
+		int sliceSize = slices * NODE_CAPACITY;
+		for (int from = 0; from < n; from += sliceSize) {
+			int to = Math.min(n, from + sliceSize);
+			for (int i = from; i < to; i++) {
+				int id = (int)keys[i];
+				keys[i] = pack(center(bMinLat[id], bMaxLat[id]), id);
+			}
+			Arrays.sort(keys, from, to);
+		}
+
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = (int)keys[i];
+		}
+		return order;
+	}
+
+	private static int center(int min, int max) {
+		return (int)(((long)min + max) / 2);
+	}
+
+	private static long pack(int key, int id) {
+		return ((long)key << 32) | (id & 0xffffffffL);
+	}
+
+	private static int[] permute(int[] a, int[] order) {
+		int[] b = new int[a.length];
+		for (int i = 0; i < order.length; i++) {
+			b[i] = a[order[i]];
+		}
+		return b;
+	}
+
+	/**
+	 * A binary min-heap of (distance, reference) pairs, kept in primitive
+	 * arrays so that a query does not allocate an object per candidate.
+	 */
+	private static class CandidateQueue {
+		private double[] keys = new double[64];
+		private int[] refs = new int[64];
+		private int size = 0;
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		void add(double key, int ref) {
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2);
+				refs = Arrays.copyOf(refs, size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (keys[parent] <= key) {
+					break;
+				}
+				keys[i] = keys[parent];
+				refs[i] = refs[parent];
+				i = parent;
+			}
+			keys[i] = key;
+			refs[i] = ref;
+		}
+
+		int poll() {
+			int result = refs[0];
+			size--;
+			double key = keys[size];
+			int ref = refs[size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && keys[child + 1] < keys[child]) {
+					child++;
+				}
+				if (key <= keys[child]) {
+					break;
+				}
+				keys[i] = keys[child];
+				refs[i] = refs[child];
+				i = child;
+			}
+			keys[i] = key;
+			refs[i] = ref;
+			return result;
+		}
+	}
+}
@@ -23,9 +23,23 @@ public class GeoSegmentsDialog extends JDialog {
 	/**
 	 * Creates a new GeoSegmentsDialog JDialog.
 	 * @effects Creates a new GeoSegmentsDialog JDialog with owner-frame
-	 * 			owner and parent pnlParent
+	 * 			owner and parent pnlParent, that offers the segments of
+	 * 			ExampleGeoSegments
 	 */
 	public GeoSegmentsDialog(Frame owner, RouteFormatterGUI pnlParent) {
+		this(owner, pnlParent, exampleSegments());
+	}
+
+
+	/**
+	 * Creates a new GeoSegmentsDialog JDialog.
+	 * @requires segments != null
+	 * @effects Creates a new GeoSegmentsDialog JDialog with owner-frame
+	 * 			owner and parent pnlParent, that offers the elements of
+	 * 			segments (such as the ListModel of a SegmentCatalog)
+	 */
+	public GeoSegmentsDialog(Frame owner, RouteFormatterGUI pnlParent,
+			ListModel<GeoSegment> segments) {
 		// create a modal JDialog with the an owner Frame (a modal window
 		// in one that doesn't allow other windows to be active at the
 		// same time).
@@ -47,12 +61,11 @@ public class GeoSegmentsDialog extends JDialog {
 		this.add(lbl, c);
 
 		// List of segments
-		DefaultListModel<GeoSegment> model = new DefaultListModel<>();
-		for (GeoSegment seg: ExampleGeoSegments.segments) {
-			model.addElement(seg);
+		lstSegments = new JList<>(segments);
+		if (segments.getSize() > 0) {
+			// a fixed cell size keeps the JList from measuring every element
+			lstSegments.setPrototypeCellValue(segments.getElementAt(0));
 		}
-
-		lstSegments = new JList<>(model);
 		JScrollPane scrollPane = new JScrollPane(lstSegments);
 
 		c.gridx = 0;
@@ -106,4 +119,17 @@ public class GeoSegmentsDialog extends JDialog {
 		this.setPreferredSize(new Dimension(400, 250));
 		this.pack();
 	}
+
+
+	/**
+	 * Returns a ListModel of the segments of ExampleGeoSegments.
+	 * @return a new ListModel of the segments of ExampleGeoSegments.
+	 */
+	static ListModel<GeoSegment> exampleSegments() {
+		DefaultListModel<GeoSegment> model = new DefaultListModel<>();
+		for (GeoSegment seg: ExampleGeoSegments.segments) {
+			model.addElement(seg);
+		}
+		return model;
+	}
 }
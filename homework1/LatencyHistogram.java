@@ -0,0 +1,149 @@
+package homework1;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A LatencyHistogram counts durations, in nanoseconds, in log-linear
+ * buckets, and reports their percentiles.
+ * <p>
+ * Each power of 2 is split into 16 buckets, so a reported percentile is at
+ * most 1/16 (about 6%) above the true value. The histogram has a fixed
+ * size whatever the number of values recorded, and <tt>record()</tt> takes
+ * no locks, so it may be called by many threads at once.
+ **/
+public class LatencyHistogram {
+
+	private static final int SUB_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts;
+	private final LongAdder count;
+	private final LongAdder sum;
+	private final LongAccumulator max;
+
+	/*
+	 * Rep. Invariant:
+	 * counts.length() == BUCKETS && count is the sum of counts && sum is the
+	 * sum and max the maximum of the recorded values
+	 * Abstraction Function:
+	 * counts[bucket(v)] is the number of recorded values v in each bucket;
+	 * values below SUB_BUCKETS have a bucket each, and the values from 2^e
+	 * to 2^(e+1) - 1 share SUB_BUCKETS buckets of equal width.
+	 */
+
+	/**
+	 * Constructs a new LatencyHistogram.
+	 * @effects constructs an empty LatencyHistogram.
+	 **/
+	public LatencyHistogram() {
+		counts = new AtomicLongArray(BUCKETS);
+		count = new LongAdder();
+		sum = new LongAdder();
+		max = new LongAccumulator(Math::max, 0);
+	}
+
+
+	/**
+	 * Records a duration.
+	 * @requires nanos >= 0
+	 * @modifies this
+	 * @effects adds nanos to the recorded values.
+	 **/
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		counts.incrementAndGet(bucket(nanos));
+		count.increment();
+		sum.add(nanos);
+		max.accumulate(nanos);
+	}
+
+
+	/**
+	 * Returns the number of recorded values.
+	 * @return the number of recorded values.
+	 **/
+	public long getCount() {
+		return count.sum();
+	}
+
+
+	/**
+	 * Returns the largest recorded value.
+	 * @return the largest recorded value, or 0 if there is none.
+	 **/
+	public long getMax() {
+		return max.get();
+	}
+
+
+	/**
+	 * Returns the mean of the recorded values.
+	 * @return the mean of the recorded values, or 0 if there is none.
+	 **/
+	public double getMean() {
+		long n = count.sum();
+		return n == 0 ? 0 : (double)sum.sum() / n;
+	}
+
+
+	/**
+	 * Returns a percentile of the recorded values.
+	 * @requires 0 < p <= 100
+	 * @return an upper bound, within 1/16, of the smallest recorded value v
+	 *         such that at least p percent of the values are <= v, or 0 if
+	 *         there is none.
+	 **/
+	public long getPercentile(double p) {
+		if (!(p > 0 && p <= 100)) {
+			throw new IllegalArgumentException();
+		}
+		long n = count.sum();
+		if (n == 0) {
+			return 0;
+		}
+		long target = (long)Math.ceil(p / 100 * n);
+		long seen = 0;
+		for (int b = 0; b < BUCKETS; b++) {
+			seen += counts.get(b);
+			if (seen >= target) {
+				return Math.min(upperBound(b), getMax());
+			}
+		}
+		return getMax();
+	}
+
+
+	/**
+	 * Returns a one-line summary of the recorded values, in microseconds.
+	 * @return a string with the count, mean, 50th, 90th and 99th
+	 *         percentiles and maximum of the recorded values.
+	 **/
+	public String toString() {
+		return String.format("count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus",
+			getCount(), getMean() / 1000, getPercentile(50) / 1000.0,
+			getPercentile(90) / 1000.0, getPercentile(99) / 1000.0, getMax() / 1000.0);
+	}
+
+	private static int bucket(long v) {
+		if (v < SUB_BUCKETS) {
+			return (int)v;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(v);
+		int sub = (int)(v >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	private static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		long width = 1L << (exponent - SUB_BITS);
+		return (SUB_BUCKETS + bucket % SUB_BUCKETS) * width + width - 1;
+	}
+}
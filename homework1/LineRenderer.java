@@ -0,0 +1,192 @@
+package homework1;
+
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * A LineRenderer holds the reusable state for writing lines of directions
+ * without allocating: a text buffer, a digit buffer and the number format
+ * symbols of the default locale. Each thread has its own LineRenderer,
+ * returned by <tt>get()</tt>, so none of it needs locking.
+ * <p>
+ * <tt>appendTenths()</tt> writes exactly what
+ * <tt>new DecimalFormat("#.#").format(value)</tt> returns: the value
+ * rounded half-even to one decimal, judged on its exact binary value (so
+ * 0.15, which is slightly less than 0.15, becomes "0.1"), with the
+ * digits and decimal separator of the default FORMAT locale, and without
+ * a trailing ".0". Values that a route cannot have (negative, not finite,
+ * or 10^14 or more) are passed to a DecimalFormat.
+ **/
+final class LineRenderer {
+
+	// text buffers larger than this are dropped rather than kept for reuse
+	private static final int MAX_KEPT_CAPACITY = 1 << 16;
+	// appendTenths() handles values below this itself
+	private static final double FAST_LIMIT = 1e14;
+
+	private static final ThreadLocal<LineRenderer> RENDERERS =
+		ThreadLocal.withInitial(LineRenderer::new);
+
+	private final char[] digits;
+	private StringBuilder buffer;
+	private boolean bufferInUse;
+	private Locale locale;
+	private char zeroDigit;
+	private char decimalSeparator;
+	private DecimalFormat fallback;
+
+	/*
+	 * Rep. Invariant:
+	 * digits.length >= 20 && buffer != null &&
+	 * zeroDigit and decimalSeparator are those of locale, and fallback is
+	 * null or a DecimalFormat("#.#") for locale
+	 * Abstraction Function:
+	 * the rendering state of one thread; buffer is lent out while
+	 * bufferInUse.
+	 */
+
+	private LineRenderer() {
+		digits = new char[20];
+		buffer = new StringBuilder(256);
+	}
+
+
+	/**
+	 * Returns the LineRenderer of the calling thread.
+	 * @return the LineRenderer of the calling thread.
+	 **/
+	static LineRenderer get() {
+		return RENDERERS.get();
+	}
+
+
+	/**
+	 * Lends out the text buffer of this thread. If it is already lent out,
+	 * as when a formatter's appendLine() calls computeLine(), returns a new
+	 * one instead.
+	 * @modifies this
+	 * @return an empty StringBuilder, to be passed back to
+	 *         releaseBuffer() when done.
+	 **/
+	StringBuilder acquireBuffer() {
+		if (bufferInUse) {
+			return new StringBuilder();
+		}
+		bufferInUse = true;
+		buffer.setLength(0);
+		return buffer;
+	}
+
+
+	/**
+	 * Takes back a buffer returned by acquireBuffer().
+	 * @modifies this
+	 * @effects makes the text buffer of this thread available again.
+	 **/
+	void releaseBuffer(StringBuilder s) {
+		if (s != buffer) {
+			return;
+		}
+		if (s.capacity() > MAX_KEPT_CAPACITY) {
+			buffer = new StringBuilder(256);
+		}
+		bufferInUse = false;
+	}
+
+
+	/**
+	 * Appends a number with at most one decimal.
+	 * @requires out != null
+	 * @modifies out
+	 * @effects appends <tt>new DecimalFormat("#.#").format(value)</tt> to
+	 *          out.
+	 * @throws IOException if out throws IOException.
+	 **/
+	void appendTenths(double value, Appendable out) throws IOException {
+		Locale current = Locale.getDefault(Locale.Category.FORMAT);
+		if (current != locale) {
+			setLocale(current);
+		}
+		// excludes -0.0, NaN and the infinities
+		if (Double.doubleToRawLongBits(value) < 0 || !(value < FAST_LIMIT)) {
+			if (fallback == null) {
+				fallback = new DecimalFormat("#.#");
+			}
+			out.append(fallback.format(value));
+			return;
+		}
+
+		// value * 10 = s + err exactly (value * 8 and value * 2 are exact,
+		// and their sum is split into its rounded value and error)
+		double a = value * 8;
+		double b = value * 2;
+		double s = a + b;
+		double bb = s - a;
+		double err = (a - (s - bb)) + (b - bb);
+
+		// tenths = floor(value * 10); s < 2^50, so whole numbers are
+		// multiples of ulp(s), and the differences below are exact
+		long tenths = (long)s;
+		if (tenths == s && err < 0) {
+			tenths--;
+		}
+		double half = (s - tenths) - 0.5;
+		if (half > 0 || (half == 0 && err > 0) ||
+				(half == 0 && err == 0 && (tenths & 1) == 1)) {
+			tenths++;
+		}
+
+		long whole = tenths / 10;
+		int fraction = (int)(tenths % 10);
+		appendDigits(whole, zeroDigit, out);
+		if (fraction != 0) {
+			out.append(decimalSeparator).append((char)(zeroDigit + fraction));
+		}
+	}
+
+
+	/**
+	 * Appends a whole number.
+	 * @requires out != null
+	 * @modifies out
+	 * @effects appends <tt>Long.toString(value)</tt> to out.
+	 * @throws IOException if out throws IOException.
+	 **/
+	void appendLong(long value, Appendable out) throws IOException {
+		if (value < 0) {
+			if (value == Long.MIN_VALUE) {
+				out.append(Long.toString(value));
+				return;
+			}
+			out.append('-');
+			value = -value;
+		}
+		appendDigits(value, '0', out);
+	}
+
+	private void appendDigits(long value, char zero, Appendable out) throws IOException {
+		int i = digits.length;
+		do {
+			digits[--i] = (char)(zero + (int)(value % 10));
+			value /= 10;
+		} while (value != 0);
+		if (out instanceof StringBuilder) {
+			((StringBuilder)out).append(digits, i, digits.length - i);
+		} else {
+			for (; i < digits.length; i++) {
+				out.append(digits[i]);
+			}
+		}
+	}
+
+	private void setLocale(Locale l) {
+		// the symbols that new DecimalFormat(pattern) uses
+		DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(l);
+		locale = l;
+		zeroDigit = symbols.getZeroDigit();
+		decimalSeparator = symbols.getDecimalSeparator();
+		fallback = null;
+	}
+}
@@ -0,0 +1,241 @@
+package homework1;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A LiveRouteRegistry keeps the growing routes of many vehicles, keyed by
+ * vehicle id, for any number of threads at once.
+ * <p>
+ * The state of each vehicle is an immutable Snapshot: its last position
+ * and the PersistentRoute it has traveled so far. Appending a position or
+ * a segment builds the next Snapshot from the current one and installs it
+ * with a compare-and-set on the vehicle's own AtomicReference, retrying if
+ * another thread appended first; appends to different vehicles never
+ * contend, and no locks are held. Readers get a Snapshot, whose length,
+ * end heading and current feature are always consistent with each other.
+ * <p>
+ * An append that races with <tt>remove()</tt> of the same vehicle may be
+ * lost.
+ **/
+public class LiveRouteRegistry {
+
+	private final ConcurrentHashMap<String, AtomicReference<Snapshot>> vehicles;
+
+	/*
+	 * Rep. Invariant:
+	 * vehicles != null && no value of vehicles is null
+	 * Abstraction Function:
+	 * the state of vehicle id is vehicles.get(id).get(). A vehicle that is
+	 * not a key of vehicles, or whose reference holds null because its
+	 * first append is in progress, is unknown.
+	 */
+
+	/**
+	 * The state of one vehicle at one moment. Snapshots are immutable.
+	 **/
+	public static final class Snapshot {
+
+		private final GeoPoint position;
+		private final PersistentRoute route;
+
+		private Snapshot(GeoPoint position, PersistentRoute route) {
+			this.position = position;
+			this.route = route;
+		}
+
+		/**
+		 * Returns the last known position of the vehicle.
+		 * @return the last known position of the vehicle.
+		 **/
+		public GeoPoint getPosition() {
+			return position;
+		}
+
+		/**
+		 * Returns the route the vehicle has traveled.
+		 * @return the route the vehicle has traveled, or null if it has
+		 *         only reported one position.
+		 **/
+		public PersistentRoute getRoute() {
+			return route;
+		}
+
+		/**
+		 * Returns the length the vehicle has traveled.
+		 * @return the length of getRoute(), in kilometers, or 0 if it is
+		 *         null.
+		 **/
+		public double getLength() {
+			return route == null ? 0 : route.getLength();
+		}
+
+		/**
+		 * Returns the number of segments the vehicle has traveled.
+		 * @return the segment count of getRoute(), or 0 if it is null.
+		 **/
+		public int getSegmentCount() {
+			return route == null ? 0 : route.getSegmentCount();
+		}
+
+		/**
+		 * Returns the last heading of the vehicle.
+		 * @requires getRoute() != null
+		 * @return the end heading of getRoute().
+		 **/
+		public double getHeading() {
+			if (route == null) {
+				throw new IllegalStateException();
+			}
+			return route.getEndHeading();
+		}
+
+		/**
+		 * Returns the name of the geographic feature the vehicle is on.
+		 * @return the name of the last feature of getRoute(), or null if it
+		 *         is null.
+		 **/
+		public String getCurrentFeatureName() {
+			return route == null ? null : route.getLastFeatureName();
+		}
+	}
+
+	// a transition from the current Snapshot (or null) to the next
+	private interface Update {
+		Snapshot apply(Snapshot current);
+	}
+
+
+	/**
+	 * Constructs a new LiveRouteRegistry.
+	 * @effects constructs a new LiveRouteRegistry with no vehicles.
+	 **/
+	public LiveRouteRegistry() {
+		vehicles = new ConcurrentHashMap<String, AtomicReference<Snapshot>>();
+	}
+
+
+	/**
+	 * Appends a position report of a vehicle. The first report of a vehicle
+	 * only sets its position; each following report appends a segment,
+	 * with the given name, from the previous position. A report at the
+	 * previous position is ignored.
+	 * @requires vehicleId != null && position != null && name != null
+	 * @modifies this
+	 * @effects adds the segment (name, previous position, position) to the
+	 *          route of the vehicle, and sets its position to position.
+	 * @return the Snapshot of the vehicle after the report.
+	 **/
+	public Snapshot appendPosition(String vehicleId, final GeoPoint position,
+			final String name) {
+		if (position == null || name == null) {
+			throw new IllegalArgumentException();
+		}
+		return update(vehicleId, current -> {
+			if (current == null) {
+				return new Snapshot(position, null);
+			}
+			if (current.position.equals(position)) {
+				return current;
+			}
+			GeoSegment gs = new GeoSegment(name, current.position, position);
+			return new Snapshot(position, current.route == null ?
+				new PersistentRoute(gs) : current.route.addSegment(gs));
+		});
+	}
+
+
+	/**
+	 * Appends a segment to the route of a vehicle.
+	 * @requires vehicleId != null && gs != null &&
+	 *           (the vehicle is unknown || gs.p1 = its position)
+	 * @modifies this
+	 * @effects adds gs to the route of the vehicle, and sets its position
+	 *          to gs.p2.
+	 * @return the Snapshot of the vehicle after the append.
+	 **/
+	public Snapshot append(String vehicleId, final GeoSegment gs) {
+		if (gs == null) {
+			throw new IllegalArgumentException();
+		}
+		return update(vehicleId, current -> {
+			if (current == null) {
+				return new Snapshot(gs.getP2(), new PersistentRoute(gs));
+			}
+			if (!current.position.equals(gs.getP1())) {
+				throw new IllegalArgumentException();
+			}
+			return new Snapshot(gs.getP2(), current.route == null ?
+				new PersistentRoute(gs) : current.route.addSegment(gs));
+		});
+	}
+
+
+	/**
+	 * Returns the state of a vehicle.
+	 * @requires vehicleId != null
+	 * @return the current Snapshot of the vehicle, or null if it is
+	 *         unknown.
+	 **/
+	public Snapshot getSnapshot(String vehicleId) {
+		if (vehicleId == null) {
+			throw new IllegalArgumentException();
+		}
+		AtomicReference<Snapshot> ref = vehicles.get(vehicleId);
+		return ref == null ? null : ref.get();
+	}
+
+
+	/**
+	 * Removes a vehicle.
+	 * @requires vehicleId != null
+	 * @modifies this
+	 * @effects makes the vehicle unknown.
+	 * @return the last Snapshot of the vehicle, or null if it was unknown.
+	 **/
+	public Snapshot remove(String vehicleId) {
+		if (vehicleId == null) {
+			throw new IllegalArgumentException();
+		}
+		AtomicReference<Snapshot> ref = vehicles.remove(vehicleId);
+		return ref == null ? null : ref.get();
+	}
+
+
+	/**
+	 * Returns the ids of the known vehicles.
+	 * @return an unmodifiable view of the ids of the known vehicles, which
+	 *         reflects later changes to this.
+	 **/
+	public Set<String> getVehicleIds() {
+		return Collections.unmodifiableSet(vehicles.keySet());
+	}
+
+
+	/**
+	 * Returns the number of known vehicles.
+	 * @return the number of known vehicles.
+	 **/
+	public int size() {
+		return vehicles.size();
+	}
+
+	private Snapshot update(String vehicleId, Update update) {
+		if (vehicleId == null) {
+			throw new IllegalArgumentException();
+		}
+		AtomicReference<Snapshot> ref = vehicles.get(vehicleId);
+		if (ref == null) {
+			ref = vehicles.computeIfAbsent(vehicleId, id -> new AtomicReference<Snapshot>());
+		}
+		while (true) {
+			Snapshot current = ref.get();
+			Snapshot next = update.apply(current);
+			if (next == current || ref.compareAndSet(current, next)) {
+				return next;
+			}
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A NodeHeap is a binary min-heap of graph nodes keyed by a distance, with
+ * decrease-key. Nodes are ints in [0, capacity), and all the state is kept
+ * in primitive arrays, so that shortest-path searches do not allocate an
+ * object per queued node.
+ * <p>
+ * A NodeHeap can be reused between searches: <tt>clear()</tt> only resets
+ * the nodes that are still queued.
+ */
+class NodeHeap {
+
+	private final int[] heap;
+	private final double[] keys;
+	private final int[] position;
+	private int size;
+
+	/*
+	 * Rep. Invariant:
+	 * 0 <= size <= heap.length &&
+	 * for all 0 <= i < size: position[heap[i]] == i &&
+	 *     keys[heap[(i - 1) / 2]] <= keys[heap[i]] (for i > 0) &&
+	 * position[v] == -1 for every node v not in heap[0 .. size - 1]
+	 * Abstraction Function:
+	 * the queued nodes are heap[0 .. size - 1], node v with key keys[v].
+	 */
+
+	/**
+	 * @effects constructs an empty NodeHeap for nodes 0 .. capacity - 1.
+	 */
+	NodeHeap(int capacity) {
+		heap = new int[capacity];
+		keys = new double[capacity];
+		position = new int[capacity];
+		Arrays.fill(position, -1);
+		size = 0;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	boolean contains(int node) {
+		return position[node] >= 0;
+	}
+
+	/**
+	 * @requires !isEmpty()
+	 * @return the smallest key in this.
+	 */
+	double peekKey() {
+		return keys[heap[0]];
+	}
+
+	/**
+	 * @modifies this
+	 * @effects queues node with the given key, or lowers its key if it is
+	 *          already queued with a larger one.
+	 */
+	void insertOrDecrease(int node, double key) {
+		int i = position[node];
+		if (i < 0) {
+			i = size++;
+		} else if (key >= keys[node]) {
+			return;
+		}
+		keys[node] = key;
+		siftUp(i, node);
+	}
+
+	/**
+	 * @requires !isEmpty()
+	 * @modifies this
+	 * @effects removes the node with the smallest key.
+	 * @return the removed node.
+	 */
+	int poll() {
+		int result = heap[0];
+		position[result] = -1;
+		size--;
+		if (size > 0) {
+			siftDown(0, heap[size]);
+		}
+		return result;
+	}
+
+	/**
+	 * @modifies this
+	 * @effects removes all the queued nodes.
+	 */
+	void clear() {
+		for (int i = 0; i < size; i++) {
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	private void siftUp(int i, int node) {
+		double key = keys[node];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			int p = heap[parent];
+			if (keys[p] <= key) {
+				break;
+			}
+			heap[i] = p;
+			position[p] = i;
+			i = parent;
+		}
+		heap[i] = node;
+		position[node] = i;
+	}
+
+	private void siftDown(int i, int node) {
+		double key = keys[node];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+				child++;
+			}
+			int c = heap[child];
+			if (key <= keys[c]) {
+				break;
+			}
+			heap[i] = c;
+			position[c] = i;
+			i = child;
+		}
+		heap[i] = node;
+		position[node] = i;
+	}
+}
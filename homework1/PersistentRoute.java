@@ -0,0 +1,326 @@
+package homework1;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A PersistentRoute is a Route that is really immutable: addSegment()
+ * leaves this PersistentRoute unchanged and returns a new one, in amortized
+ * O(1) time, that shares almost all of its structure with this one.
+ * <p>
+ * Any number of threads may therefore read a PersistentRoute, and extend
+ * it in different ways, without copying or locking. For example
+ * <pre>
+ *   PersistentRoute base = ...;
+ *   PersistentRoute viaHanita = base.addSegment(a);
+ *   PersistentRoute viaHagalil = base.addSegment(b);
+ * </pre>
+ * leaves three valid routes that share the segments of base.
+ * <p>
+ * A PersistentRoute has the same specification fields as Route, and
+ * equals() another PersistentRoute with the same segments. The GeoFeatures
+ * it returns are new objects, built from its segments on each call, so
+ * modifying them does not affect it. Use <tt>toRoute()</tt> to pass it to
+ * code that takes a Route, such as a RouteFormatter.
+ * @see Route
+ **/
+public final class PersistentRoute {
+
+	private final PersistentVector<GeoSegment> segments;
+	// index in segments of the first segment of each geographic feature
+	private final PersistentVector<Integer> featureStarts;
+	private final double length;
+	private final int hash;
+
+	/*
+	 * Rep. Invariant:
+	 * segments.size() >= 1 && featureStarts.size() >= 1 &&
+	 * featureStarts.get(0) == 0 && featureStarts is strictly increasing &&
+	 * for all 0 < i < segments.size():
+	 *   segments[i - 1].p2 == segments[i].p1 &&
+	 *   (segments[i - 1].name.equals(segments[i].name) iff
+	 *    i is not in featureStarts) &&
+	 * length is the sum of the lengths of segments &&
+	 * hash is the List.hashCode() of segments
+	 * Abstraction Function:
+	 * geoSegments = segments. geoFeatures[f] is made of segments
+	 * featureStarts[f] to featureStarts[f + 1] - 1 (to the last segment
+	 * for the last feature).
+	 */
+
+	/**
+	 * Constructs a new PersistentRoute.
+	 * @requires gs != null
+	 * @effects constructs a new PersistentRoute, r, such that
+	 *          r.geoSegments = [gs] and r.length = gs.length
+	 **/
+	public PersistentRoute(GeoSegment gs) {
+		if (gs == null) {
+			throw new IllegalArgumentException();
+		}
+		this.segments = PersistentVector.<GeoSegment>empty().append(gs);
+		this.featureStarts = PersistentVector.<Integer>empty().append(0);
+		this.length = gs.getLength();
+		this.hash = 31 + gs.hashCode();
+	}
+
+	private PersistentRoute(PersistentVector<GeoSegment> segments,
+			PersistentVector<Integer> featureStarts, double length, int hash) {
+		this.segments = segments;
+		this.featureStarts = featureStarts;
+		this.length = length;
+		this.hash = hash;
+	}
+
+
+	/**
+	 * Creates a PersistentRoute with the segments of a Route.
+	 * @requires route != null
+	 * @return a new PersistentRoute r such that
+	 *         r.geoSegments = route.geoSegments
+	 **/
+	public static PersistentRoute fromRoute(Route route) {
+		if (route == null) {
+			throw new IllegalArgumentException();
+		}
+		Iterator<GeoSegment> iter = route.getGeoSegments();
+		PersistentRoute r = new PersistentRoute(iter.next());
+		while (iter.hasNext()) {
+			r = r.addSegment(iter.next());
+		}
+		return r;
+	}
+
+
+	/**
+	 * Returns location of the start of the route.
+	 * @return location of the start of the route.
+	 **/
+	public GeoPoint getStart() {
+		return segments.get(0).getP1();
+	}
+
+
+	/**
+	 * Returns location of the end of the route.
+	 * @return location of the end of the route.
+	 **/
+	public GeoPoint getEnd() {
+		return segments.last().getP2();
+	}
+
+
+	/**
+	 * Returns direction of travel at the start of the route, in degrees.
+	 * @return direction (in compass heading) of travel at the start of the
+	 *         route, in degrees.
+	 **/
+	public double getStartHeading() {
+		return segments.get(0).getHeading();
+	}
+
+
+	/**
+	 * Returns direction of travel at the end of the route, in degrees.
+	 * @return direction (in compass heading) of travel at the end of the
+	 *         route, in degrees.
+	 **/
+	public double getEndHeading() {
+		return segments.last().getHeading();
+	}
+
+
+	/**
+	 * Returns total length of the route.
+	 * @return total length of the route, in kilometers.
+	 **/
+	public double getLength() {
+		return length;
+	}
+
+
+	/**
+	 * Returns the number of segments in the route.
+	 * @return the length of this.geoSegments.
+	 **/
+	public int getSegmentCount() {
+		return segments.size();
+	}
+
+
+	/**
+	 * Returns the number of geographic features in the route.
+	 * @return the length of this.geoFeatures.
+	 **/
+	public int getFeatureCount() {
+		return featureStarts.size();
+	}
+
+
+	/**
+	 * Returns a segment of the route.
+	 * @requires 0 <= i < this.getSegmentCount()
+	 * @return the i'th element of this.geoSegments.
+	 **/
+	public GeoSegment getSegment(int i) {
+		return segments.get(i);
+	}
+
+
+	/**
+	 * Returns the name of the last geographic feature of the route, the one
+	 * that its end is on.
+	 * @return the name of the last element of this.geoFeatures.
+	 **/
+	public String getLastFeatureName() {
+		return segments.last().getName();
+	}
+
+
+	/**
+	 * Returns a geographic feature of the route.
+	 * @requires 0 <= f < this.getFeatureCount()
+	 * @return a new GeoFeature equal to the f'th element of
+	 *         this.geoFeatures.
+	 **/
+	public GeoFeature getFeature(int f) {
+		int from = featureStarts.get(f);
+		int to = f + 1 < featureStarts.size() ? featureStarts.get(f + 1) : segments.size();
+		GeoFeature gf = new GeoFeature(segments.get(from));
+		for (int i = from + 1; i < to; i++) {
+			gf = gf.addSegment(segments.get(i));
+		}
+		return gf;
+	}
+
+
+	/**
+	 * Creates a new route that is equal to this route with gs appended to
+	 * its end. This route does not change.
+	 * @requires gs != null && gs.p1 == this.end
+	 * @return a new PersistentRoute r such that
+	 *         r.geoSegments = this.geoSegments + [gs] &&
+	 *         r.length = this.length + gs.length
+	 **/
+	public PersistentRoute addSegment(GeoSegment gs) {
+		if (gs == null || !gs.getP1().equals(getEnd())) {
+			throw new IllegalArgumentException();
+		}
+		PersistentVector<Integer> starts = featureStarts;
+		if (!segments.last().getName().equals(gs.getName())) {
+			starts = starts.append(segments.size());
+		}
+		return new PersistentRoute(segments.append(gs), starts,
+			length + gs.getLength(), 31 * hash + gs.hashCode());
+	}
+
+
+	/**
+	 * Returns an Iterator of new GeoFeature objects, as in
+	 * Route.getGeoFeatures().
+	 * @return an Iterator over new GeoFeatures equal to this.geoFeatures.
+	 * @see Route#getGeoFeatures()
+	 **/
+	public Iterator<GeoFeature> getGeoFeatures() {
+		return new Iterator<GeoFeature>() {
+			private int f = 0;
+
+			public boolean hasNext() {
+				return f < featureStarts.size();
+			}
+
+			public GeoFeature next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return getFeature(f++);
+			}
+		};
+	}
+
+
+	/**
+	 * Returns an Iterator of GeoSegment objects, as in
+	 * Route.getGeoSegments().
+	 * @return an Iterator over this.geoSegments.
+	 * @see Route#getGeoSegments()
+	 **/
+	public Iterator<GeoSegment> getGeoSegments() {
+		return new Iterator<GeoSegment>() {
+			private int i = 0;
+
+			public boolean hasNext() {
+				return i < segments.size();
+			}
+
+			public GeoSegment next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return segments.get(i++);
+			}
+		};
+	}
+
+
+	/**
+	 * Creates a Route with the segments of this.
+	 * @return a new Route r such that r.geoSegments = this.geoSegments
+	 **/
+	public Route toRoute() {
+		Route r = new Route(segments.get(0));
+		for (int i = 1; i < segments.size(); i++) {
+			r = r.addSegment(segments.get(i));
+		}
+		return r;
+	}
+
+
+	/**
+	 * Compares the specified Object with this PersistentRoute for equality.
+	 * @return true iff (o instanceof PersistentRoute) &&
+	 *         o.geoSegments and this.geoSegments contain the same elements
+	 *         in the same order.
+	 **/
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (o == null || !(o instanceof PersistentRoute)) {
+			return false;
+		}
+		PersistentRoute r = (PersistentRoute)o;
+		if (r.hash != hash || r.segments.size() != segments.size()) {
+			return false;
+		}
+		for (int i = 0; i < segments.size(); i++) {
+			if (!r.segments.get(i).equals(segments.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Returns a hash code for this.
+	 * @return a hash code for this.
+	 **/
+	public int hashCode() {
+		return hash;
+	}
+
+
+	/**
+	 * Returns a string representation of this.
+	 * @return a string representation of this.
+	 **/
+	public String toString() {
+		StringBuffer s = new StringBuffer();
+		Iterator<GeoFeature> iter = getGeoFeatures();
+		while (iter.hasNext()) {
+			s.append(iter.next().toString() + "\n");
+		}
+		return new String(s);
+	}
+}
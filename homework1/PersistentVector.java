@@ -0,0 +1,166 @@
+package homework1;
+
+import java.util.Arrays;
+
+/**
+ * A PersistentVector is an immutable sequence that supports indexed access
+ * and appending. Appending returns a new PersistentVector that shares all
+ * but O(log n) of its structure with the old one, which stays unchanged.
+ * <p>
+ * The elements are kept in a tree of arrays of 32 elements (a bitmapped
+ * vector trie), except for the last up to 32 elements, which are kept in a
+ * separate tail array. Most appends copy only the tail; once in 32 appends
+ * the full tail moves into the tree, copying one path from the root.
+ * get() takes O(log32 n) steps, which is at most 7 for any int index.
+ * <p>
+ * PersistentVectors may be shared freely between threads.
+ **/
+final class PersistentVector<E> {
+
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+
+	private static final PersistentVector<Object> EMPTY =
+		new PersistentVector<Object>(0, BITS, new Object[WIDTH], new Object[0]);
+
+	private final int size;
+	private final int shift;
+	private final Object[] root;
+	private final Object[] tail;
+
+	/*
+	 * Rep. Invariant:
+	 * root != null && tail != null && shift >= BITS && shift % BITS == 0 &&
+	 * tail.length == size - tailOffset() && 0 <= tail.length <= WIDTH &&
+	 * (tail.length > 0 || size == 0) &&
+	 * every node of the tree is an Object[WIDTH], and the leaves are at
+	 * depth shift / BITS under root
+	 * Abstraction Function:
+	 * element i, for 0 <= i < tailOffset(), is found in the tree by
+	 * taking child (i >>> level) & MASK at each level from shift down to
+	 * BITS, then element i & MASK of the leaf; element i, for
+	 * tailOffset() <= i < size, is tail[i - tailOffset()].
+	 */
+
+	private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+		this.size = size;
+		this.shift = shift;
+		this.root = root;
+		this.tail = tail;
+	}
+
+
+	/**
+	 * Returns the empty PersistentVector.
+	 * @return a PersistentVector with no elements.
+	 **/
+	@SuppressWarnings("unchecked")
+	static <E> PersistentVector<E> empty() {
+		return (PersistentVector<E>)EMPTY;
+	}
+
+
+	/**
+	 * Returns the number of elements.
+	 * @return the number of elements of this.
+	 **/
+	int size() {
+		return size;
+	}
+
+
+	/**
+	 * Returns an element.
+	 * @requires 0 <= i < this.size()
+	 * @return the i'th element of this.
+	 **/
+	@SuppressWarnings("unchecked")
+	E get(int i) {
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (i >= tailOffset()) {
+			return (E)tail[i & MASK];
+		}
+		Object[] node = root;
+		for (int level = shift; level > 0; level -= BITS) {
+			node = (Object[])node[(i >>> level) & MASK];
+		}
+		return (E)node[i & MASK];
+	}
+
+
+	/**
+	 * Returns the last element.
+	 * @requires this.size() > 0
+	 * @return the last element of this.
+	 **/
+	@SuppressWarnings("unchecked")
+	E last() {
+		if (size == 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		return (E)tail[tail.length - 1];
+	}
+
+
+	/**
+	 * Appends an element.
+	 * @return a new PersistentVector equal to this with e appended.
+	 **/
+	PersistentVector<E> append(E e) {
+		if (tail.length < WIDTH) {
+			Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+			newTail[tail.length] = e;
+			return new PersistentVector<E>(size + 1, shift, root, newTail);
+		}
+
+		// the tail is full: move it into the tree
+		Object[] newRoot;
+		int newShift = shift;
+		if ((size >>> BITS) > (1 << shift)) {
+			// the tree is full: add a level above the root
+			newRoot = new Object[WIDTH];
+			newRoot[0] = root;
+			newRoot[1] = newPath(shift, tail);
+			newShift += BITS;
+		} else {
+			newRoot = pushTail(shift, root, tail);
+		}
+		return new PersistentVector<E>(size + 1, newShift, newRoot, new Object[] { e });
+	}
+
+	private int tailOffset() {
+		return size == 0 ? 0 : ((size - 1) >>> BITS) << BITS;
+	}
+
+	/**
+	 * Returns a copy of the path from parent (at the given level) to the
+	 * leaf where the tail belongs, with the tail added as that leaf.
+	 */
+	private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+		int index = ((size - 1) >>> level) & MASK;
+		Object[] node = parent.clone();
+		if (level == BITS) {
+			node[index] = tailNode;
+		} else {
+			Object[] child = (Object[])parent[index];
+			node[index] = child != null ? pushTail(level - BITS, child, tailNode) :
+				newPath(level - BITS, tailNode);
+		}
+		return node;
+	}
+
+	/**
+	 * Returns a chain of new nodes from the given level down to leaf.
+	 */
+	private static Object[] newPath(int level, Object[] leaf) {
+		if (level == 0) {
+			return leaf;
+		}
+		Object[] node = new Object[WIDTH];
+		node[0] = newPath(level - BITS, leaf);
+		return node;
+	}
+}
@@ -0,0 +1,277 @@
+package homework1;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * A RoadGraph is a road network built from a collection of GeoSegments.
+ * Segments are joined wherever they share an endpoint, and shortest Routes
+ * between two points of the network can be computed with
+ * <tt>shortestRoute()</tt>. RoadGraphs are immutable, and therefore safe
+ * for concurrent queries.
+ * <p>
+ * Each segment can be traversed from p1 to p2, and, when the graph is
+ * built as two-way, also from p2 to p1 (as its reverse). Segments of zero
+ * length are ignored, since they have no heading and add nothing to a
+ * route.
+ * <p>
+ * The adjacency is kept in compressed sparse row (CSR) form: the edges
+ * leaving node v are edges <tt>edgeStart[v] .. edgeStart[v + 1] - 1</tt>
+ * of flat primitive arrays. Queries run A* with the flat-earth distance to
+ * the destination as heuristic; since edge lengths use the same metric,
+ * the heuristic never overestimates and the result is a shortest route.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   points : set of GeoPoint       // the endpoints of the segments
+ *   edges : set of GeoSegment      // the traversable segments
+ * </pre>
+ **/
+public class RoadGraph {
+
+	private final GeoPointTable nodes;
+	private final HashMap<GeoPoint, Integer> nodeIds;
+	private final int[] edgeStart;
+	private final int[] edgeTarget;
+	private final double[] edgeLength;
+	private final GeoSegment[] edgeSegment;
+
+	/*
+	 * Rep. Invariant:
+	 * nodeIds maps each point of nodes to its index in nodes, and nothing
+	 * else; edgeStart.length == nodes.size() + 1 && edgeStart[0] == 0 &&
+	 * edgeStart is non-decreasing && edgeStart[nodes.size()] == edgeTarget.length;
+	 * for every edge e leaving node v: edgeSegment[e].p1 == nodes[v] &&
+	 * edgeSegment[e].p2 == nodes[edgeTarget[e]] &&
+	 * edgeLength[e] == edgeSegment[e].length > 0
+	 * Abstraction Function:
+	 * points = the points of nodes; edges = the elements of edgeSegment.
+	 */
+
+	/**
+	 * Constructs a new RoadGraph.
+	 * @requires segments != null and contains no null elements
+	 * @effects constructs a new RoadGraph whose edges are the segments of
+	 *          positive length, plus their reverses if twoWay.
+	 **/
+	public RoadGraph(Collection<GeoSegment> segments, boolean twoWay) {
+		this(segments == null ? null : segments.toArray(new GeoSegment[0]), twoWay);
+	}
+
+
+	/**
+	 * Constructs a new RoadGraph.
+	 * @requires segments != null and contains no null elements
+	 * @effects constructs a new RoadGraph whose edges are the segments of
+	 *          positive length, plus their reverses if twoWay.
+	 **/
+	public RoadGraph(GeoSegment[] segments, boolean twoWay) {
+		if (segments == null) {
+			throw new IllegalArgumentException();
+		}
+		nodes = new GeoPointTable();
+		nodeIds = new HashMap<GeoPoint, Integer>();
+
+		// number the endpoints and collect the edges as (from, segment)
+		int[] from = new int[segments.length * (twoWay ? 2 : 1)];
+		GeoSegment[] segs = new GeoSegment[from.length];
+		int edges = 0;
+		for (GeoSegment gs : segments) {
+			if (gs == null) {
+				throw new IllegalArgumentException();
+			}
+			if (gs.getLength() == 0) {
+				continue;
+			}
+			int p1 = nodeOf(gs.getP1(), true);
+			int p2 = nodeOf(gs.getP2(), true);
+			from[edges] = p1;
+			segs[edges++] = gs;
+			if (twoWay) {
+				from[edges] = p2;
+				segs[edges++] = gs.reverse();
+			}
+		}
+		nodes.trimToSize();
+
+		// counting sort of the edges by their source node
+		int n = nodes.size();
+		edgeStart = new int[n + 1];
+		for (int e = 0; e < edges; e++) {
+			edgeStart[from[e] + 1]++;
+		}
+		for (int v = 0; v < n; v++) {
+			edgeStart[v + 1] += edgeStart[v];
+		}
+		int[] fill = Arrays.copyOf(edgeStart, n);
+		edgeTarget = new int[edges];
+		edgeLength = new double[edges];
+		edgeSegment = new GeoSegment[edges];
+		for (int e = 0; e < edges; e++) {
+			int slot = fill[from[e]]++;
+			edgeTarget[slot] = nodeIds.get(segs[e].getP2());
+			edgeLength[slot] = segs[e].getLength();
+			edgeSegment[slot] = segs[e];
+		}
+	}
+
+
+	/**
+	 * Returns the number of points in this.
+	 * @return the size of this.points.
+	 **/
+	public int getNodeCount() {
+		return nodes.size();
+	}
+
+
+	/**
+	 * Returns the number of traversable segments in this.
+	 * @return the size of this.edges.
+	 **/
+	public int getEdgeCount() {
+		return edgeTarget.length;
+	}
+
+
+	/**
+	 * Checks whether a point is part of this network.
+	 * @requires gp != null
+	 * @return gp is in this.points
+	 **/
+	public boolean containsPoint(GeoPoint gp) {
+		if (gp == null) {
+			throw new IllegalArgumentException();
+		}
+		return nodeIds.containsKey(gp);
+	}
+
+
+	/**
+	 * Computes a shortest route between two points of this network.
+	 * @requires from != null && to != null && !from.equals(to) &&
+	 *           from and to are in this.points
+	 * @return a Route r from <tt>from</tt> to <tt>to</tt> made of
+	 *         this.edges, such that no such route is shorter than r, or null
+	 *         if <tt>to</tt> cannot be reached from <tt>from</tt>.
+	 **/
+	public Route shortestRoute(GeoPoint from, GeoPoint to) {
+		if (from == null || to == null || from.equals(to)) {
+			throw new IllegalArgumentException();
+		}
+		int source = nodeOf(from, false);
+		int target = nodeOf(to, false);
+		if (source < 0 || target < 0) {
+			throw new IllegalArgumentException();
+		}
+
+		int n = nodes.size();
+		int targetLat = nodes.getLatitude(target);
+		int targetLon = nodes.getLongitude(target);
+		double[] dist = new double[n];
+		int[] parent = new int[n];
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		NodeHeap open = new NodeHeap(n);
+
+		dist[source] = 0;
+		parent[source] = -1;
+		open.insertOrDecrease(source, heuristic(source, targetLat, targetLon));
+		while (!open.isEmpty()) {
+			int v = open.poll();
+			if (v == target) {
+				return toRoute(parent, target);
+			}
+			for (int e = edgeStart[v]; e < edgeStart[v + 1]; e++) {
+				int w = edgeTarget[e];
+				double d = dist[v] + edgeLength[e];
+				if (d < dist[w]) {
+					dist[w] = d;
+					parent[w] = e;
+					open.insertOrDecrease(w, d + heuristic(w, targetLat, targetLon));
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the index of gp in nodes; if gp is not there, adds it when
+	 *         add is true, and returns -1 otherwise.
+	 */
+	final int nodeOf(GeoPoint gp, boolean add) {
+		Integer id = nodeIds.get(gp);
+		if (id != null) {
+			return id;
+		}
+		if (!add) {
+			return -1;
+		}
+		int v = nodes.add(gp);
+		nodeIds.put(gp, v);
+		return v;
+	}
+
+	/**
+	 * @return a new Route made of the edges that lead to target, following
+	 *         parent edges back to a node with parent -1.
+	 */
+	Route toRoute(int[] parent, int target) {
+		int count = 0;
+		for (int v = target; parent[v] >= 0; v = edgeSource(parent[v])) {
+			count++;
+		}
+		int[] path = new int[count];
+		for (int v = target; parent[v] >= 0; v = edgeSource(parent[v])) {
+			path[--count] = parent[v];
+		}
+		Route route = new Route(edgeSegment[path[0]]);
+		for (int i = 1; i < path.length; i++) {
+			route = route.addSegment(edgeSegment[path[i]]);
+		}
+		return route;
+	}
+
+	// package-private accessors for the routing engines built on this graph
+
+	int nodeCount() {
+		return nodes.size();
+	}
+
+	int firstEdge(int v) {
+		return edgeStart[v];
+	}
+
+	int endEdge(int v) {
+		return edgeStart[v + 1];
+	}
+
+	int edgeTarget(int e) {
+		return edgeTarget[e];
+	}
+
+	int edgeSource(int e) {
+		int v = Arrays.binarySearch(edgeStart, e);
+		if (v < 0) {
+			return -v - 2;
+		}
+		// several nodes may start at e if some have no edges; take the last
+		while (edgeStart[v + 1] == e) {
+			v++;
+		}
+		return v;
+	}
+
+	double edgeLength(int e) {
+		return edgeLength[e];
+	}
+
+	GeoSegment edgeSegment(int e) {
+		return edgeSegment[e];
+	}
+
+	private double heuristic(int v, int targetLat, int targetLon) {
+		return GeoPoint.distance(nodes.getLatitude(v), nodes.getLongitude(v),
+			targetLat, targetLon);
+	}
+}
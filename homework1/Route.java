@@ -2,15 +2,20 @@ package homework1;
 
 import java.util.Iterator;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 
 /**
  * A Route is a path that traverses arbitrary GeoSegments, regardless
  * of their names.
  * <p>
- * Routes are immutable. New Routes can be constructed by adding a segment 
- * to the end of a Route. An added segment must be properly oriented; that 
- * is, its p1 field must correspond to the end of the original Route, and
- * its p2 field corresponds to the end of the new Route.
+ * Routes are mutable: addSegment() appends a segment to the end of the
+ * Route it is called on, and returns it, to build long routes in linear
+ * time. An added segment must be properly oriented; that is, its p1 field
+ * must correspond to the end of the original Route, and its p2 field
+ * corresponds to the end of the new Route. To keep the original, or to
+ * share a route between threads that extend it, use PersistentRoute, which
+ * is immutable.
  * <p>
  * Because a Route is not necessarily straight, its length - the distance
  * traveled by following the path from start to end - is not necessarily
@@ -20,6 +25,11 @@ import java.util.ArrayList;
  * using the <tt>getGeoFeatures()</tt> method which returns an Iterator of
  * GeoFeature objects.
  * <p>
+ * A Route keeps the distance traveled up to each of its segments, so the
+ * point at a given distance along it, <tt>getPointAt()</tt>, and the part
+ * of it between two distances, <tt>slice()</tt>, are found by binary
+ * search instead of by walking the route.
+ * <p>
  * <b>The following fields are used in the specification:</b>
  * <pre>
  *   start : GeoPoint            // location of the start of the route
@@ -33,15 +43,32 @@ import java.util.ArrayList;
  * </pre>
  **/
 public class Route {
+   private static final int DEFAULT_CAPACITY = 8;
+
    private ArrayList<GeoFeature> features;
+   private double[] cumulative;
+   private int[] featureStarts;
+   private int segmentCount;
+   private int prefixHash;
+   private final ValidationPolicy policy;
+   private int changes;
 	
  	/*
     * Rep. Invariant:
     * A continuous non-linear path devided into sub-paths that share the same name
+    * segmentCount is the total number of segments in all the features
+    * cumulative[0] == 0 and cumulative[i + 1] == cumulative[i] + the length
+    * of the i'th segment of the route, for all 0 <= i < segmentCount
+    * featureStarts[f] is the number of segments in the features before the
+    * f'th one, for all 0 <= f < features.size()
+    * prefixHash is the List.hashCode() of all the features but the last one
+    * policy != null, changes is the number of segments added since
+    * construction, and every feature has the validation policy policy
     * Abstraction Function:
     * features represents a list of GeoFeatures, that together combine into one non-linear path
 	 * The end point of each GeoFeature is equal to the beggining of the next one in the list,
     * and the name is different.
+    * length = cumulative[segmentCount]
     */
 
 
@@ -55,11 +82,30 @@ public class Route {
      *          r.end = gs.p2
      **/
   	public Route(GeoSegment gs) {
-  		if (gs == null) {
+  		this(gs, ValidationPolicy.getDefault());
+  	}
+
+
+  	/**
+  	 * Constructs a new Route that checks its rep. invariant, and that of
+  	 * its geographic features, as policy says.
+     * @requires gs != null && policy != null
+     * @effects Constructs a new Route, r, as Route(gs) does, with the
+     *          validation policy policy.
+     **/
+  	public Route(GeoSegment gs, ValidationPolicy policy) {
+  		if (gs == null || policy == null) {
          throw new IllegalArgumentException();
       }
+      this.policy = policy;
       features = new ArrayList<GeoFeature>();
-      features.add(new GeoFeature(gs));
+      features.add(new GeoFeature(gs, policy));
+      cumulative = new double[DEFAULT_CAPACITY + 1];
+      cumulative[1] = gs.getLength();
+      featureStarts = new int[DEFAULT_CAPACITY];
+      segmentCount = 1;
+      prefixHash = 1;
+      validate();
   	}
 
 
@@ -68,7 +114,7 @@ public class Route {
      * @return location of the start of the route.
      **/
   	public GeoPoint getStart() {
-  		return features.get(0).getStart();
+  		return features.getFirst().getStart();
   	}
 
 
@@ -77,7 +123,7 @@ public class Route {
      * @return location of the end of the route.
      **/
   	public GeoPoint getEnd() {
-  		return features.get(features.size() - 1).getEnd();
+  		return features.getLast().getEnd();
   	}
 
 
@@ -108,44 +154,190 @@ public class Route {
      *         traverse the route. These values are not necessarily equal.
    	 **/
   	public double getLength() {
-  		Iterator<GeoFeature> iter = features.iterator();
+  		return cumulative[segmentCount];
+  	}
 
-      int length = 0;
 
-      while (iter.hasNext()) {
-         length += iter.next().getLength();
-      }
+  	/**
+  	 * Returns the number of segments in the route.
+     * @return the length of this.geoSegments.
+     **/
+  	public int getSegmentCount() {
+  		return segmentCount;
+  	}
 
-      return length;
+
+  	/**
+  	 * Returns the number of geographic features in the route.
+     * @return the length of this.geoFeatures.
+     **/
+  	public int getFeatureCount() {
+  		return features.size();
   	}
 
 
   	/**
-     * Creates a new route that is equal to this route with gs appended to
-     * its end.
+     * Returns the validation policy of the route.
+     * @return the ValidationPolicy that this route, and its geographic
+     *         features, check their rep. invariants with.
+     **/
+  	public ValidationPolicy getValidationPolicy() {
+  		return policy;
+  	}
+
+
+  	/**
+  	 * Returns one geographic feature of the route, without creating an
+  	 * Iterator or copying it, for the classes of this package; the result
+  	 * is the route's own GeoFeature, and must not be extended.
+  	 * @requires 0 <= i < this.getFeatureCount()
+     * @return the i'th element of this.geoFeatures.
+     **/
+  	GeoFeature getFeature(int i) {
+  		return features.get(i);
+  	}
+
+
+  	/**
+     * Appends gs to the end of this route.
    	 * @requires gs != null && gs.p1 == this.end
-     * @return a new Route r such that
-     *         r.end = gs.p2 &&
-     *         r.endHeading = gs.heading &&
-     *         r.length = this.length + gs.length
+     * @modifies this
+     * @effects this.end = gs.p2 &&
+     *          this.endHeading = gs.heading &&
+     *          this.length = old(this.length) + gs.length
+     * @return this
      **/
   	public Route addSegment(GeoSegment gs) {
-      checkRep();
       if (gs == null || !gs.getP1().equals(this.getEnd())) {
          throw new IllegalArgumentException();
       }
+      long start = RouteMetrics.start();
+      RouteMetrics.RouteBuildEvent event = RouteMetrics.beginBuild();
       
-      if (features.getLast().getName() == gs.getName()) {
+      if (features.getLast().getName().equals(gs.getName())) {
          features.getLast().addSegment(gs);
       } else {
-         features.add(new GeoFeature(gs));
+         prefixHash = 31 * prefixHash + features.getLast().hashCode();
+         if (features.size() == featureStarts.length) {
+            featureStarts = Arrays.copyOf(featureStarts, featureStarts.length * 2);
+         }
+         featureStarts[features.size()] = segmentCount;
+         features.add(new GeoFeature(gs, policy));
       }
+      if (segmentCount + 1 == cumulative.length) {
+         cumulative = Arrays.copyOf(cumulative, cumulative.length * 2);
+      }
+      cumulative[segmentCount + 1] = cumulative[segmentCount] + gs.getLength();
+      segmentCount++;
 
-      checkRep();
+      changes++;
+      validate();
+      RouteMetrics.endBuild(start, event, this);
       return this;
    }
 
 
+  	/**
+  	 * Creates a simplified route that follows this one to within a
+  	 * tolerance in meters, by simplifying each of its geographic features (see
+  	 * GeoFeature.simplify()). The features keep their names, end points
+  	 * and start and end headings, so the turns in the directions for the
+  	 * route stay the same; the lengths of the features shrink by at most
+  	 * the detours that were cut off.
+     * @requires tolerance >= 0
+     * @return a new Route r whose geoFeatures are the simplify(tolerance)
+     *         of this.geoFeatures, in order.
+     **/
+  	public Route simplify(double tolerance) {
+  		if (!(tolerance >= 0)) {
+         throw new IllegalArgumentException();
+      }
+      Route r = null;
+      for (GeoFeature gf : features) {
+         Iterator<GeoSegment> iter = gf.simplify(tolerance).getGeoSegments();
+         while (iter.hasNext()) {
+            GeoSegment gs = iter.next();
+            r = r == null ? new Route(gs, policy) : r.addSegment(gs);
+         }
+      }
+      return r;
+  	}
+
+
+  	/**
+  	 * Returns the point at a distance along the route, in O(log n) time for
+  	 * a route of n segments.
+     * @requires 0 <= distance <= this.length
+     * @return the point reached by traveling distance kilometers along the
+     *         route from its start, rounded to the precision of GeoPoint;
+     *         this.start if distance is 0 and this.end if it is this.length.
+     **/
+  	public GeoPoint getPointAt(double distance) {
+  		if (!(distance >= 0 && distance <= getLength())) {
+         throw new IllegalArgumentException();
+      }
+      int i = segmentAt(distance);
+      return pointOn(segment(i), distance - cumulative[i]);
+  	}
+
+
+  	/**
+  	 * Creates a new route that is the part of this route between two
+  	 * distances along it. The segments that the slice starts and ends in
+  	 * are split at those distances, and the segments between them are
+  	 * shared with this route. It takes O(log n + k) time for a route of n
+  	 * segments and a slice of k.
+     * @requires 0 <= from <= to <= this.length
+     * @return a new Route r, with the validation policy of this, such that
+     *         r.start = this.getPointAt(from) &&
+     *         r.end = this.getPointAt(to) &&
+     *         r.geoSegments are the parts of this.geoSegments between from
+     *         and to, in order, with their names;
+     *         r.length is to - from, to within the precision of GeoPoint.
+     *         If r.start = r.end, r is a single segment of length 0.
+     **/
+  	public Route slice(double from, double to) {
+  		if (!(from >= 0 && from <= to && to <= getLength())) {
+         throw new IllegalArgumentException();
+      }
+      int first = segmentAt(from);
+      int last = segmentAt(to);
+      GeoSegment gs = segment(first);
+      GeoPoint start = pointOn(gs, from - cumulative[first]);
+      GeoPoint end = pointOn(segment(last), to - cumulative[last]);
+      if (start.equals(end)) {
+         return new Route(new GeoSegment(gs.getName(), start, end), policy);
+      }
+
+      // walk the features from the one holding the first segment, so the
+      // segments between the ends cost O(1) each
+      int f = featureOf(first);
+      int j = first - featureStarts[f];
+      Route r = null;
+      for (int i = first; i <= last; i++) {
+         if (j == features.get(f).segments.size()) {
+            f++;
+            j = 0;
+         }
+         gs = features.get(f).segments.get(j++);
+         if (i == first || i == last) {
+            GeoPoint p1 = i == first ? start : gs.getP1();
+            GeoPoint p2 = i == last ? end : gs.getP2();
+            if (p1.equals(p2)) {
+               // the slice starts at the end of this segment, or ends at
+               // its start
+               continue;
+            }
+            if (!p1.equals(gs.getP1()) || !p2.equals(gs.getP2())) {
+               gs = new GeoSegment(gs.getName(), p1, p2);
+            }
+         }
+         r = r == null ? new Route(gs, policy) : r.addSegment(gs);
+      }
+      return r;
+  	}
+
+
     /**
      * Returns an Iterator of GeoFeature objects. The concatenation
      * of the GeoFeatures, in order, is equivalent to this route. No two
@@ -161,11 +353,19 @@ public class Route {
      *          (0 <= i < a.length - 1 => (a[i].name != a[i+1].name &&
      *                                     a[i].end  == a[i+1].start))
      * </pre>
-     * where <code>a[n]</code> denotes the nth element of the Iterator.
+     * where <code>a[n]</code> denotes the nth element of the Iterator,
+     * and every a[n] is a new GeoFeature, so extending it does not change
+     * this.
      * @see homework1.GeoFeature
      **/
   	public Iterator<GeoFeature> getGeoFeatures() {
-  		return features.iterator();
+  		// copies, since GeoFeature.addSegment() extends the feature in place
+  		// and would leave the distances, counts and hash of this stale
+  		ArrayList<GeoFeature> list = new ArrayList<GeoFeature>(features.size());
+  		for (GeoFeature gf : features) {
+  			list.add(gf.copy());
+  		}
+  		return Collections.unmodifiableList(list).iterator();
   	}
 
 
@@ -184,17 +384,13 @@ public class Route {
      * @see homework1.GeoSegment
      **/
   	public Iterator<GeoSegment> getGeoSegments() {
-  		ArrayList<GeoSegment> list = new ArrayList<GeoSegment>();
+  		ArrayList<GeoSegment> list = new ArrayList<GeoSegment>(segmentCount);
 
-      Iterator<GeoFeature> this_iter = getGeoFeatures();
-      while (this_iter.hasNext()) {
-         Iterator<GeoSegment> iter = this_iter.next().getGeoSegments();
-         while (iter.hasNext()) {
-            list.add(iter.next());
-         }
+      for (GeoFeature gf : features) {
+         list.addAll(gf.segments);
       }
 
-      return list.iterator();
+      return Collections.unmodifiableList(list).iterator();
   	}
 
 
@@ -205,20 +401,17 @@ public class Route {
      *          the same elements in the same order).
      **/
   	public boolean equals(Object o) {
+  		if (o == this) {
+         return true;
+      }
   		if (o == null || !(o instanceof Route)) {
          return false;
       }
+      Route r = (Route)o;
 
-      Iterator<GeoFeature> this_iter = features.iterator();
-      Iterator<GeoFeature> o_iter = ((Route)o).getGeoFeatures();
-
-      while (this_iter.hasNext() && o_iter.hasNext()) {
-         if (!this_iter.next().equals(o_iter.next())) {
-            return false;
-         }
-      }
-
-      return true;
+      return r.segmentCount == this.segmentCount &&
+         r.hashCode() == this.hashCode() &&
+         r.features.equals(this.features);
   	}
 
 
@@ -227,10 +420,8 @@ public class Route {
      * @return a hash code for this.
      **/
   	public int hashCode() {
-    	// This implementation will work, but you may want to modify it
-    	// for improved performance.
-
-    	return 1;
+      // equal to features.hashCode(), without walking the features
+    	return 31 * prefixHash + features.getLast().hashCode();
   	}
 
 
@@ -241,31 +432,140 @@ public class Route {
   	public String toString() {
       StringBuffer s = new StringBuffer();
 
-      Iterator<GeoFeature> iter = this.getGeoFeatures();
-
-      while (iter.hasNext()) {
-         s.append(iter.next().toString() + "\n");
+      for (GeoFeature gf : features) {
+         s.append(gf.toString() + "\n");
       }
 
       return new String(s);
   	}
 
+   /**
+    * Returns the index of the segment of the route at a distance along it.
+    * @requires 0 <= distance <= this.length
+    * @return an i such that cumulative[i] <= distance <= cumulative[i + 1].
+    */
+   private int segmentAt(double distance) {
+		int i = Arrays.binarySearch(cumulative, 1, segmentCount + 1, distance);
+		return (i >= 0 ? i : -i - 1) - 1;
+	}
+
+   private GeoSegment segment(int i) {
+		int f = featureOf(i);
+		return features.get(f).segments.get(i - featureStarts[f]);
+	}
+
+   private int featureOf(int i) {
+		int f = Arrays.binarySearch(featureStarts, 0, features.size(), i);
+		return f >= 0 ? f : -f - 2;
+	}
+
+   /**
+    * Returns the point at a distance along a segment.
+    * @return gs.p1 if distance <= 0, gs.p2 if distance >= gs.length, and
+    *         otherwise the point between them at distance from gs.p1,
+    *         rounded to the precision of GeoPoint.
+    */
+   private static GeoPoint pointOn(GeoSegment gs, double distance) {
+		if (distance <= 0) {
+			return gs.getP1();
+		}
+		if (distance >= gs.getLength()) {
+			return gs.getP2();
+		}
+		// the length of a segment is linear in its coordinates, so the
+		// point a fraction t along it is at t of each coordinate
+		double t = distance / gs.getLength();
+		GeoPoint p1 = gs.getP1();
+		GeoPoint p2 = gs.getP2();
+		return new GeoPoint(
+			p1.getLatitude() + (int)Math.round(t * (p2.getLatitude() - p1.getLatitude())),
+			p1.getLongitude() + (int)Math.round(t * (p2.getLongitude() - p1.getLongitude())));
+	}
+
+   /**
+    * Runs the check that the policy calls for after the latest change.
+    * The features check themselves when they change, so the checks here
+    * only cover the joins between them and what the route keeps about
+    * them.
+    */
+   private void validate() {
+		switch (policy.checkAfter(changes)) {
+			case FULL:
+				checkRep();
+				break;
+			case BOUNDARY:
+				checkJoin();
+				break;
+			default:
+				break;
+		}
+	}
+
+   /**
+    * Checks the whole rep. invariant of the route, including the distances
+    * and feature starts it keeps for every segment, but not the rep.
+    * invariants of its features.
+    * @throws IllegalStateException if it does not hold.
+    */
    private void checkRep() {
-		Iterator<GeoFeature> iter = this.getGeoFeatures(); 
-		GeoFeature last_gf;
-		GeoFeature gf;
+		long start = RouteMetrics.start();
+		ValidationPolicy.counted(ValidationPolicy.Check.FULL);
+		if (cumulative[0] != 0) {
+			throw new IllegalStateException("Route: distances do not start at 0");
+		}
+		int count = 0;
+		int h = 1;
+		for (int i = 0; i < features.size(); i++) {
+			if (i > 0) {
+				checkJoin(i);
+				h = 31 * h + features.get(i - 1).hashCode();
+			}
+			if (featureStarts[i] != count) {
+				throw new IllegalStateException("Route: feature " + i + " starts at segment " +
+					featureStarts[i] + ", not " + count);
+			}
+			for (GeoSegment gs : features.get(i).segments) {
+				if (count >= segmentCount ||
+						cumulative[count + 1] != cumulative[count] + gs.getLength()) {
+					throw new IllegalStateException("Route: stale distance at segment " + count);
+				}
+				count++;
+			}
+		}
+		if (count != segmentCount || h != prefixHash) {
+			throw new IllegalStateException("Route: stale segment count or hash");
+		}
+		RouteMetrics.end(RouteMetrics.Operation.CHECK_REP, start);
+	}
 
-		if (iter.hasNext()) {
-			last_gf = iter.next();
-		} else {
+   /**
+    * Checks the rep. invariant only at the join of the last two features,
+    * which is the only part of the rep. that addSegment() changes, and only
+    * when the last feature is new (an extended feature checks its own
+    * joins).
+    * @throws IllegalStateException if it does not hold.
+    */
+   private void checkJoin() {
+		int n = features.size();
+		if (n < 2 || features.get(n - 1).segments.size() > 1) {
 			return;
 		}
+		long start = RouteMetrics.start();
+		ValidationPolicy.counted(ValidationPolicy.Check.BOUNDARY);
+		checkJoin(n - 1);
+		RouteMetrics.end(RouteMetrics.Operation.CHECK_REP, start);
+	}
 
-		while (iter.hasNext()) {
-			gf = iter.next();
-			assert(last_gf.getEnd().equals(gf.getStart()));
-			assert(last_gf.getName() != gf.getName());
-			last_gf = gf;
+   private void checkJoin(int i) {
+		GeoFeature last_gf = features.get(i - 1);
+		GeoFeature gf = features.get(i);
+		if (!last_gf.getEnd().equals(gf.getStart())) {
+			throw new IllegalStateException("Route: feature " + i +
+				" does not start where feature " + (i - 1) + " ends");
+		}
+		if (last_gf.getName().equals(gf.getName())) {
+			throw new IllegalStateException("Route: features " + (i - 1) + " and " + i +
+				" are both named " + gf.getName());
 		}
 	}
 
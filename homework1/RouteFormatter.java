@@ -1,11 +1,14 @@
 package homework1;
 
-import java.util.Iterator;
+import java.io.IOException;
 
 /**
  * A RouteFormatter class knows how to create a textual description of
  * directions from one location to another. The class is abstract to
  * support different textual descriptions.
+ * <p>
+ * RouteFormatters keep no state between calls, so a single instance may be
+ * used by several threads at once (see DirectionsBatch).
  */
 public abstract class RouteFormatter {
 
@@ -20,21 +23,50 @@ public abstract class RouteFormatter {
      * 	       human-readable directions from start to end along this route.
      **/
   	public String computeDirections(Route route, double heading) {
-  		// Implementation hint:
-		// This method should call computeLine() for each geographic
-		// feature in this route and concatenate the results into a single
-		// String.
-  		
-  		StringBuffer s = new StringBuffer();
-      Iterator<GeoFeature> iter = route.getGeoFeatures();
+  		// the lines are built in a buffer that the thread reuses
+  		LineRenderer renderer = LineRenderer.get();
+  		StringBuilder s = renderer.acquireBuffer();
+      try {
+         computeDirections(route, heading, s);
+         return s.toString();
+      } catch (IOException e) {
+         // a StringBuilder never throws IOException
+         throw new IllegalStateException(e);
+      } finally {
+         renderer.releaseBuffer(s);
+      }
+  	}
 
-      while (iter.hasNext()) {
-         GeoFeature gf = iter.next();
-         s.append(computeLine(gf, heading));
+
+  	/**
+     * Writes directions for following this Route, starting at its start
+     * point and facing in the specified heading, to an Appendable (such as
+     * a Writer), one line at a time. Unlike the String version, the
+     * complete directions are never held in memory.
+     * @requires route != null && out != null &&
+     * 			0 <= heading < 360
+     * @param route the route for which to print directions.
+   	 * @param heading the initial heading.
+   	 * @param out the destination of the directions.
+     * @modifies out
+     * @effects appends to out the same text that
+     *          <tt>computeDirections(route, heading)</tt> returns.
+     * @throws IOException if out throws IOException.
+     **/
+  	public void computeDirections(Route route, double heading, Appendable out)
+  			throws IOException {
+  		if (route == null || out == null) {
+         throw new IllegalArgumentException();
+      }
+      long start = RouteMetrics.start();
+      RouteMetrics.DirectionsEvent event = RouteMetrics.beginDirections();
+      // the route's own features, since getGeoFeatures() copies them
+      for (int i = 0; i < route.getFeatureCount(); i++) {
+         GeoFeature gf = route.getFeature(i);
+         appendLine(gf, heading, out);
          heading = gf.getEndHeading();
       }
-
-      return new String(s);
+      RouteMetrics.endDirections(start, event, this, route);
   	}
 
 
@@ -51,6 +83,25 @@ public abstract class RouteFormatter {
   	public abstract String computeLine(GeoFeature geoFeature, double origHeading);
 
 
+  	/**
+     * Appends a single line of directions, the same text that
+     * <tt>computeLine()</tt> returns, to an Appendable. Subclasses may
+     * override this to write the parts of the line directly, without
+     * building an intermediate String.
+     * @requires geoFeature != null && out != null
+     * @param geoFeature the geographical feature to traverse.
+   	 * @param origHeading the initial heading.
+   	 * @param out the destination of the line.
+     * @modifies out
+     * @effects appends computeLine(geoFeature, origHeading) to out.
+     * @throws IOException if out throws IOException.
+     */
+  	protected void appendLine(GeoFeature geoFeature, double origHeading, Appendable out)
+  			throws IOException {
+  		out.append(computeLine(geoFeature, origHeading));
+  	}
+
+
   	/**
      * Computes directions to turn based on the heading change.
      * @requires 0 <= oldHeading < 360 &&
@@ -71,37 +122,7 @@ public abstract class RouteFormatter {
      * and likewise for left turns.
      */
   	protected String getTurnString(double origHeading, double newHeading) {
-  		if (origHeading < 0 || origHeading >= 360 || newHeading < 0 || newHeading >= 360) {
-         throw new IllegalArgumentException();
-      }
-      
-      if (origHeading - newHeading > 180) {
-         newHeading += 360;
-      } else if (origHeading - newHeading < -180) {
-         newHeading -= 360;
-      }
-      double angle = origHeading - newHeading;
-      
-      String dir;
-      if (angle < 0 && angle > -180) {
-         dir = new String("right");
-      } else {
-         dir = new String("left");
-      }
-
-      angle = Math.abs(angle);
-
-      if (angle < 10) {
-         return new String("Continue");
-      } else if (angle >= 10 && angle < 60) {
-         return new String("Turn slight " + dir);
-      } else if (angle >= 60 && angle < 120) {
-         return new String("Turn " + dir);
-      } else if (angle >= 120 && angle < 179) {
-         return new String("Turn sharp " + dir);
-      } else {
-         return new String("U-Turn");
-      }
+  		return TurnClassifier.classify(origHeading, newHeading).getPhrase();
   	}
 
 }
@@ -3,6 +3,8 @@ package homework1;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.IOException;
+import java.nio.file.Paths;
 
 /**
  * A JPanel GUI for representing a Route. This Route is shown as a list of
@@ -17,6 +19,14 @@ public class RouteFormatterGUI extends JPanel {
 
 	private Route route = null;				// Route shown in this
 
+	// the formatters keep no state between calls, so all GUIs share them
+	private static final RouteFormatter walkingFormatter = new WalkingRouteFormatter();
+	private static final RouteFormatter drivingFormatter = new DrivingRouteFormatter();
+
+	// offsets of the last line in each directions text area
+	private int walkingLastLineStart = 0;
+	private int drivingLastLineStart = 0;
+
 	private GeoSegmentsDialog dlgSegments;	// secondary window
 
 	// some of the controls contained in this
@@ -30,8 +40,19 @@ public class RouteFormatterGUI extends JPanel {
 	 * @effects Creates a new RoutFormatterGUI JPanel contained in frame.
 	 */
 	public RouteFormatterGUI(JFrame frame) {
+		this(frame, GeoSegmentsDialog.exampleSegments());
+	}
+
+
+	/**
+	 * Creates a new RoutFormatterGUI JPanel that offers the given segments.
+	 * @requires segments != null
+	 * @effects Creates a new RoutFormatterGUI JPanel contained in frame,
+	 * 			whose GeoSegmentsDialog offers the elements of segments.
+	 */
+	public RouteFormatterGUI(JFrame frame, ListModel<GeoSegment> segments) {
 		// create a GeoSegmentsDialog (secondary window)
-		dlgSegments = new GeoSegmentsDialog(frame, this);
+		dlgSegments = new GeoSegmentsDialog(frame, this, segments);
 		dlgSegments.setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
 		dlgSegments.pack();
 
@@ -140,36 +161,81 @@ public class RouteFormatterGUI extends JPanel {
 	 * 			walking direction and the driving direction of the GUI
 	 * 			with the return value of
 	 * 			RouteDirection.computeDirections(this.route,0)
+	 * 			Only the directions line of the last geographic feature is
+	 * 			recomputed, so adding a segment takes constant time
+	 * 			regardless of the length of the route.
 	 */
 	public void addSegment(GeoSegment segment) {
 		DefaultListModel<GeoSegment> model =
 				(DefaultListModel<GeoSegment>)(this.lstSegments.getModel());
 
+		// The segment either extends the last feature of the route or
+		// starts a new one
+		boolean newFeature = route == null || !route.getFeature(
+			route.getFeatureCount() - 1).getName().equals(segment.getName());
+
 		// Add segment to the route
 		if (route == null) {
 			route = new Route(segment);
 		} else {
-			route = route.addSegment(segment); // Note: Route is immutable!
+			route = route.addSegment(segment); // appends in place
 		}
 
 		// Update GUI components
 		model.addElement(segment);
 
-		// Compute and display directions
-		RouteFormatter walkingFormatter = new WalkingRouteFormatter();
-		String walkingDirections = walkingFormatter.computeDirections(route, 0);
-		txtWalkingDirections.setText(walkingDirections);
+		// The last feature is entered at the end heading of the one before
+		int last = route.getFeatureCount() - 1;
+		GeoFeature lastFeature = route.getFeature(last);
+		double lastFeatureHeading = last == 0 ? 0 : route.getFeature(last - 1).getEndHeading();
+
+		// Compute and display directions of the last feature only; the
+		// lines of all the other features are unchanged
+		walkingLastLineStart = updateLastLine(txtWalkingDirections,
+			walkingFormatter.computeLine(lastFeature, lastFeatureHeading),
+			walkingLastLineStart, newFeature);
+		drivingLastLineStart = updateLastLine(txtDrivingDirections,
+			drivingFormatter.computeLine(lastFeature, lastFeatureHeading),
+			drivingLastLineStart, newFeature);
+	}
+
 
-		RouteFormatter drivingFormatter = new DrivingRouteFormatter();
-		String drivingDirections = drivingFormatter.computeDirections(route, 0);
-		txtDrivingDirections.setText(drivingDirections);
+	/**
+	 * Replaces or appends the last line of a directions text area.
+	 * @effects if newLine, appends line to txt; otherwise replaces the text
+	 * 			of txt from lastLineStart to its end with line.
+	 * @return the offset of line in txt.
+	 */
+	private static int updateLastLine(JTextArea txt, String line,
+			int lastLineStart, boolean newLine) {
+		int end = txt.getDocument().getLength();
+		if (newLine) {
+			txt.append(line);
+			return end;
+		}
+		txt.replaceRange(line, lastLineStart, end);
+		return lastLineStart;
 	}
 
 
+	/**
+	 * Shows the GUI. If a path to a SegmentCatalog file is given as the
+	 * first argument, its segments are offered instead of the examples.
+	 */
     public static void main(String[] args) {
+		ListModel<GeoSegment> segments = GeoSegmentsDialog.exampleSegments();
+		if (args.length > 0) {
+			try {
+				segments = SegmentCatalog.open(Paths.get(args[0])).asListModel();
+			} catch (IOException e) {
+				System.err.println("Cannot open " + args[0] + ": " + e.getMessage());
+				System.exit(1);
+			}
+		}
+
 		JFrame frame = new JFrame("Route Formatter GUI");
 		Container contentPane = frame.getContentPane();
-		contentPane.add(new RouteFormatterGUI(frame));
+		contentPane.add(new RouteFormatterGUI(frame, segments));
 
 		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 		frame.pack();
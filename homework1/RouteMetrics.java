@@ -0,0 +1,401 @@
+package homework1;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MutableCallSite;
+import java.util.EnumMap;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * RouteMetrics counts and times the hot operations of routes and
+ * formatters: Route.addSegment(), the rep. invariant checks of Route and
+ * GeoFeature, GeoFeature.getLength() and RouteFormatter.computeDirections().
+ * <p>
+ * Metrics are off by default, and then the checks in the instrumented
+ * operations are compiled away. They are turned on with
+ * <tt>setEnabled(true)</tt>, or from the start with
+ * <tt>-Dhomework1.metrics=true</tt>. While they are on, every operation is
+ * counted, every operation but getLength() (whose cost is a field read,
+ * less than the clock) is timed into a LatencyHistogram, and route
+ * building and formatting also emit JDK Flight Recorder events,
+ * "homework1.RouteBuild" and "homework1.Directions", that carry the size of
+ * the route. The events are only created, and written, while a recording
+ * enables them, as in
+ * <pre>
+ *   java -Dhomework1.metrics=true -XX:StartFlightRecording:filename=routes.jfr ...
+ * </pre>
+ * <tt>snapshot()</tt> returns the current counts and latencies, for a
+ * scraper or a /stats page. All the methods may be called by any thread.
+ **/
+public final class RouteMetrics {
+
+	/**
+	 * An instrumented operation.
+	 **/
+	public enum Operation {
+		/** Route.addSegment() */
+		ADD_SEGMENT,
+		/** the rep. invariant checks of Route and GeoFeature */
+		CHECK_REP,
+		/** GeoFeature.getLength(), counted but not timed */
+		FEATURE_LENGTH,
+		/** RouteFormatter.computeDirections() */
+		COMPUTE_DIRECTIONS
+	}
+
+	// start() returns this when metrics are off
+	static final long NOT_TIMED = Long.MIN_VALUE;
+
+	private static final Operation[] OPERATIONS = Operation.values();
+
+	// the on/off switch is a call site that returns a constant, so the JIT
+	// compiler folds the checks away, and recompiles the code that uses
+	// them when it is flipped; a volatile boolean made addSegment() about
+	// 10% slower even while off
+	private static final MutableCallSite SWITCH = new MutableCallSite(
+		MethodHandles.constant(boolean.class, Boolean.getBoolean("homework1.metrics")));
+	private static final MethodHandle ENABLED = SWITCH.dynamicInvoker();
+
+	private static volatile Counters counters = new Counters();
+
+	// whether a recording enables the events, read before creating each one
+	private static final EventType BUILD_EVENT = EventType.getEventType(RouteBuildEvent.class);
+	private static final EventType DIRECTIONS_EVENT =
+		EventType.getEventType(DirectionsEvent.class);
+
+	/*
+	 * Abstraction Function:
+	 * the target of SWITCH returns whether the operations are being
+	 * measured; counters holds the counts and latencies since the last
+	 * reset(), indexed by Operation.ordinal().
+	 */
+
+	// replaced as a whole by reset(), so a snapshot never mixes old and new
+	private static final class Counters {
+		final LongAdder[] counts = new LongAdder[OPERATIONS.length];
+		final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+
+		Counters() {
+			for (int i = 0; i < OPERATIONS.length; i++) {
+				counts[i] = new LongAdder();
+				latencies[i] = new LatencyHistogram();
+			}
+		}
+	}
+
+
+	/**
+	 * The measurements of one operation.
+	 **/
+	public static final class Stats {
+
+		private final long count;
+		private final long timed;
+		private final double mean;
+		private final long p50;
+		private final long p90;
+		private final long p99;
+		private final long max;
+
+		private Stats(long count, LatencyHistogram latency) {
+			this.count = count;
+			this.timed = latency.getCount();
+			this.mean = latency.getMean();
+			this.p50 = latency.getPercentile(50);
+			this.p90 = latency.getPercentile(90);
+			this.p99 = latency.getPercentile(99);
+			this.max = latency.getMax();
+		}
+
+		/**
+		 * Returns the number of times the operation ran.
+		 * @return the number of times the operation ran.
+		 **/
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the number of runs that were timed.
+		 * @return the number of runs whose latency was recorded.
+		 **/
+		public long getTimedCount() {
+			return timed;
+		}
+
+		/**
+		 * Returns the mean latency.
+		 * @return the mean latency of the timed runs, in nanoseconds.
+		 **/
+		public double getMean() {
+			return mean;
+		}
+
+		/**
+		 * Returns a latency percentile.
+		 * @requires p is 50, 90 or 99
+		 * @return the p'th percentile latency of the timed runs, in
+		 *         nanoseconds, within 1/16.
+		 **/
+		public long getPercentile(int p) {
+			switch (p) {
+				case 50: return p50;
+				case 90: return p90;
+				case 99: return p99;
+				default: throw new IllegalArgumentException();
+			}
+		}
+
+		/**
+		 * Returns the largest latency.
+		 * @return the largest latency of the timed runs, in nanoseconds.
+		 **/
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * Returns a one-line summary of the measurements.
+		 * @return a string with the count and latencies, in nanoseconds.
+		 **/
+		public String toString() {
+			return String.format("count=%d mean=%.0fns p50=%dns p90=%dns p99=%dns max=%dns",
+				count, mean, p50, p90, p99, max);
+		}
+	}
+
+
+	/**
+	 * The measurements of all the operations at one moment.
+	 **/
+	public static final class Snapshot {
+
+		private final EnumMap<Operation, Stats> stats;
+
+		private Snapshot(Counters c) {
+			stats = new EnumMap<Operation, Stats>(Operation.class);
+			for (Operation op : OPERATIONS) {
+				stats.put(op, new Stats(c.counts[op.ordinal()].sum(), c.latencies[op.ordinal()]));
+			}
+		}
+
+		/**
+		 * Returns the measurements of an operation.
+		 * @requires op != null
+		 * @return the measurements of op.
+		 **/
+		public Stats get(Operation op) {
+			if (op == null) {
+				throw new IllegalArgumentException();
+			}
+			return stats.get(op);
+		}
+
+		/**
+		 * Returns the measurements, one operation per line.
+		 * @return a string with a line "OPERATION stats" per operation.
+		 **/
+		public String toString() {
+			StringBuilder s = new StringBuilder();
+			for (Operation op : OPERATIONS) {
+				s.append(op).append(' ').append(stats.get(op)).append('\n');
+			}
+			return s.toString();
+		}
+	}
+
+
+	@Name("homework1.RouteBuild")
+	@Label("Route Build")
+	@Category("Routes")
+	@Description("A segment appended to a Route")
+	static final class RouteBuildEvent extends Event {
+		@Label("Segments")
+		int segmentCount;
+		@Label("Features")
+		int featureCount;
+		@Label("Length (km)")
+		double length;
+	}
+
+
+	@Name("homework1.Directions")
+	@Label("Directions")
+	@Category("Routes")
+	@Description("Directions computed for a Route")
+	static final class DirectionsEvent extends Event {
+		@Label("Formatter")
+		Class<?> formatter;
+		@Label("Segments")
+		int segmentCount;
+		@Label("Features")
+		int featureCount;
+	}
+
+
+	private RouteMetrics() {
+	}
+
+
+	/**
+	 * Turns the metrics on or off.
+	 * @modifies RouteMetrics
+	 * @effects sets whether the operations are measured; the measurements
+	 *          so far are kept.
+	 **/
+	public static synchronized void setEnabled(boolean on) {
+		SWITCH.setTarget(MethodHandles.constant(boolean.class, on));
+		MutableCallSite.syncAll(new MutableCallSite[] { SWITCH });
+	}
+
+
+	/**
+	 * Checks whether the metrics are on.
+	 * @return true iff the operations are being measured.
+	 **/
+	public static boolean isEnabled() {
+		try {
+			return (boolean)ENABLED.invokeExact();
+		} catch (Throwable e) {
+			// a constant method handle throws nothing
+			throw new IllegalStateException(e);
+		}
+	}
+
+
+	/**
+	 * Discards the measurements.
+	 * @modifies RouteMetrics
+	 * @effects sets all the counts to 0 and empties the latencies.
+	 **/
+	public static void reset() {
+		counters = new Counters();
+	}
+
+
+	/**
+	 * Returns the current measurements.
+	 * @return a Snapshot of the counts and latencies since the last
+	 *         reset().
+	 **/
+	public static Snapshot snapshot() {
+		return new Snapshot(counters);
+	}
+
+
+	/**
+	 * Starts timing an operation.
+	 * @return the start time to pass to end(), or NOT_TIMED if the metrics
+	 *         are off.
+	 **/
+	static long start() {
+		return isEnabled() ? System.nanoTime() : NOT_TIMED;
+	}
+
+
+	/**
+	 * Ends timing an operation.
+	 * @effects if start is not NOT_TIMED, counts op and records the time
+	 *          since start.
+	 **/
+	static void end(Operation op, long start) {
+		if (start != NOT_TIMED) {
+			record(op, System.nanoTime() - start);
+		}
+	}
+
+
+	/**
+	 * Counts an untimed operation.
+	 * @effects if the metrics are on, counts op.
+	 **/
+	static void count(Operation op) {
+		if (isEnabled()) {
+			counters.counts[op.ordinal()].increment();
+		}
+	}
+
+
+	/**
+	 * Starts the flight recorder event of Route.addSegment().
+	 * @return the event to pass to endBuild(), or null if the metrics are
+	 *         off or no recording enables the event.
+	 **/
+	static RouteBuildEvent beginBuild() {
+		if (!isEnabled() || !BUILD_EVENT.isEnabled()) {
+			return null;
+		}
+		RouteBuildEvent event = new RouteBuildEvent();
+		event.begin();
+		return event;
+	}
+
+
+	/**
+	 * Ends measuring Route.addSegment().
+	 * @effects if start is not NOT_TIMED, records the operation; if event
+	 *          is not null, commits it with the size of route.
+	 **/
+	static void endBuild(long start, RouteBuildEvent event, Route route) {
+		end(Operation.ADD_SEGMENT, start);
+		if (event == null) {
+			return;
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.segmentCount = route.getSegmentCount();
+			event.featureCount = route.getFeatureCount();
+			event.length = route.getLength();
+			event.commit();
+		}
+	}
+
+
+	/**
+	 * Starts the flight recorder event of RouteFormatter.computeDirections().
+	 * @return the event to pass to endDirections(), or null if the metrics
+	 *         are off or no recording enables the event.
+	 **/
+	static DirectionsEvent beginDirections() {
+		if (!isEnabled() || !DIRECTIONS_EVENT.isEnabled()) {
+			return null;
+		}
+		DirectionsEvent event = new DirectionsEvent();
+		event.begin();
+		return event;
+	}
+
+
+	/**
+	 * Ends measuring RouteFormatter.computeDirections().
+	 * @effects if start is not NOT_TIMED, records the operation; if event
+	 *          is not null, commits it with the formatter and the size of
+	 *          route.
+	 **/
+	static void endDirections(long start, DirectionsEvent event, RouteFormatter formatter,
+			Route route) {
+		end(Operation.COMPUTE_DIRECTIONS, start);
+		if (event == null) {
+			return;
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.formatter = formatter.getClass();
+			event.segmentCount = route.getSegmentCount();
+			event.featureCount = route.getFeatureCount();
+			event.commit();
+		}
+	}
+
+	private static void record(Operation op, long nanos) {
+		Counters c = counters;
+		c.counts[op.ordinal()].increment();
+		c.latencies[op.ordinal()].record(nanos);
+	}
+}
@@ -0,0 +1,188 @@
+package homework1;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * A RouteReader reads Routes from a channel, in the binary format written
+ * by RouteWriter.
+ * <p>
+ * The segments of a Route that is read share their end points: the p2 of
+ * each segment is the same GeoPoint object as the p1 of the next one. All
+ * the segments with the same name share one String.
+ * @see RouteWriter
+ **/
+public class RouteReader implements Closeable {
+
+	private final ReadableByteChannel channel;
+	private final ByteBuffer buffer;
+	private final ArrayList<String> names;
+	private boolean started;
+
+	/*
+	 * Rep. Invariant:
+	 * channel != null && buffer != null && names != null
+	 * Abstraction Function:
+	 * a route stream read from channel, of which the bytes between
+	 * buffer.position() and buffer.limit() are read from the channel but not
+	 * yet decoded. names.get(k - 1) is the name with reference number k.
+	 * started is true iff the header of the stream has been read.
+	 */
+
+	/**
+	 * Constructs a new RouteReader.
+	 * @requires channel != null
+	 * @effects constructs a new RouteReader that reads a route stream from
+	 *          channel.
+	 **/
+	public RouteReader(ReadableByteChannel channel) {
+		if (channel == null) {
+			throw new IllegalArgumentException();
+		}
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocate(RouteWriter.BUFFER_SIZE);
+		buffer.flip();
+		this.names = new ArrayList<String>();
+		this.started = false;
+	}
+
+
+	/**
+	 * Reads the next Route.
+	 * @modifies this
+	 * @effects consumes the next route record of the stream.
+	 * @return the next Route of the stream, or null if the stream has
+	 *         ended.
+	 * @throws IOException if the channel throws IOException, or if the
+	 *         stream is not a valid route stream.
+	 **/
+	public Route read() throws IOException {
+		if (!started) {
+			if (!fill(5) || buffer.getInt() != RouteWriter.MAGIC) {
+				throw new IOException("not a route stream");
+			}
+			if (buffer.get() != RouteWriter.VERSION) {
+				throw new IOException("unsupported route stream version");
+			}
+			started = true;
+		}
+		if (!fill(1)) {
+			return null;
+		}
+
+		try {
+			int featureCount = getVarint();
+			if (featureCount < 1) {
+				throw new IOException("corrupt route stream");
+			}
+			int lat = getZigzag();
+			int lon = getZigzag();
+			GeoPoint p1 = new GeoPoint(lat, lon);
+			Route route = null;
+			for (int f = 0; f < featureCount; f++) {
+				String name = readName();
+				int segmentCount = getVarint();
+				if (segmentCount < 1) {
+					throw new IOException("corrupt route stream");
+				}
+				for (int i = 0; i < segmentCount; i++) {
+					lat += getZigzag();
+					lon += getZigzag();
+					GeoPoint p2 = new GeoPoint(lat, lon);
+					GeoSegment gs = new GeoSegment(name, p1, p2);
+					route = route == null ? new Route(gs) : route.addSegment(gs);
+					p1 = p2;
+				}
+			}
+			return route;
+		} catch (IllegalArgumentException e) {
+			// a coordinate out of range
+			throw new IOException("corrupt route stream", e);
+		}
+	}
+
+
+	/**
+	 * Closes the channel.
+	 * @modifies this
+	 * @effects closes the channel.
+	 * @throws IOException if the channel throws IOException.
+	 **/
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private String readName() throws IOException {
+		int ref = getVarint();
+		if (ref < 0 || ref > names.size()) {
+			throw new IOException("corrupt route stream");
+		}
+		if (ref > 0) {
+			return names.get(ref - 1);
+		}
+		// a corrupt length must not make us allocate a huge array
+		int length = getVarint();
+		if (length < 0 || length > RouteWriter.MAX_NAME_LENGTH) {
+			throw new IOException("corrupt route stream");
+		}
+		byte[] bytes = new byte[length];
+		int offset = 0;
+		while (offset < length) {
+			if (!fill(1)) {
+				throw new EOFException();
+			}
+			int n = Math.min(buffer.remaining(), length - offset);
+			buffer.get(bytes, offset, n);
+			offset += n;
+		}
+		String name = new String(bytes, StandardCharsets.UTF_8);
+		names.add(name);
+		return name;
+	}
+
+	/**
+	 * Reads from the channel until at least n bytes are buffered.
+	 * @return false iff the channel ended before that.
+	 */
+	private boolean fill(int n) throws IOException {
+		if (buffer.remaining() >= n) {
+			return true;
+		}
+		buffer.compact();
+		try {
+			while (buffer.position() < n) {
+				if (channel.read(buffer) < 0) {
+					return false;
+				}
+			}
+		} finally {
+			buffer.flip();
+		}
+		return true;
+	}
+
+	private int getZigzag() throws IOException {
+		int x = getVarint();
+		return (x >>> 1) ^ -(x & 1);
+	}
+
+	private int getVarint() throws IOException {
+		int x = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			if (!buffer.hasRemaining() && !fill(1)) {
+				throw new EOFException();
+			}
+			byte b = buffer.get();
+			x |= (b & 0x7f) << shift;
+			if (b >= 0) {
+				return x;
+			}
+		}
+		throw new IOException("corrupt route stream");
+	}
+}
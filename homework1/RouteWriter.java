@@ -0,0 +1,203 @@
+package homework1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+/**
+ * A RouteWriter writes Routes to a channel in a compact binary format,
+ * which a RouteReader reads back.
+ * <p>
+ * The stream starts with the 4 bytes "ROUT" and a version byte, followed by
+ * one record per Route:
+ * <pre>
+ *   featureCount                 varint
+ *   start latitude, longitude    zigzag varints
+ *   for each feature:
+ *     name                       varint: 0 followed by a new name, or
+ *                                k > 0 for the k'th name of the stream
+ *     segmentCount               varint
+ *     for each segment:
+ *       latitude, longitude of p2 - p1    zigzag varints
+ * </pre>
+ * A new name is written as the varint length of its UTF-8 encoding and the
+ * encoding itself, at most MAX_NAME_LENGTH bytes, and is added to the name
+ * dictionary of the stream, which is shared by all the routes written to
+ * it. Since the segments of a Route
+ * chain, each point is written once, as its difference from the previous
+ * point; nearby points take 1 to 3 bytes per coordinate.
+ * <p>
+ * A varint is an unsigned integer written 7 bits per byte, least
+ * significant first, with the high bit set on all the bytes but the last.
+ * A signed integer x is written in zigzag form, (x << 1) ^ (x >> 31), so
+ * that small negative values are short as well.
+ * <p>
+ * Output is buffered: call <tt>flush()</tt> or <tt>close()</tt> to send it
+ * to the channel.
+ **/
+public class RouteWriter implements Closeable {
+
+	// "ROUT" and the version of the format
+	static final int MAGIC = 0x524f5554;
+	static final byte VERSION = 1;
+
+	static final int BUFFER_SIZE = 1 << 16;
+
+	/** The longest UTF-8 encoding of a name that a route stream may hold. */
+	public static final int MAX_NAME_LENGTH = 1 << 16;
+
+	// longest varint of an int
+	private static final int MAX_VARINT = 5;
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer;
+	private final HashMap<String, Integer> names;
+
+	/*
+	 * Rep. Invariant:
+	 * channel != null && buffer != null && names != null &&
+	 * the values of names are 1..names.size(), in the order the names were
+	 * first written
+	 * Abstraction Function:
+	 * a stream of route records to channel, of which the ones that are not
+	 * yet on channel are between 0 and buffer.position() in buffer. names
+	 * maps each name written so far to its reference number.
+	 */
+
+	/**
+	 * Constructs a new RouteWriter.
+	 * @requires channel != null
+	 * @effects constructs a new RouteWriter that writes a route stream to
+	 *          channel.
+	 **/
+	public RouteWriter(WritableByteChannel channel) {
+		if (channel == null) {
+			throw new IllegalArgumentException();
+		}
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		this.names = new HashMap<String, Integer>();
+		buffer.putInt(MAGIC);
+		buffer.put(VERSION);
+	}
+
+
+	/**
+	 * Writes a Route.
+	 * @requires route != null && the UTF-8 encoding of the name of each
+	 *           of its geographic features is at most MAX_NAME_LENGTH bytes
+	 * @modifies this
+	 * @effects appends the record of route to the stream.
+	 * @throws IOException if the channel throws IOException.
+	 **/
+	public void write(Route route) throws IOException {
+		if (route == null) {
+			throw new IllegalArgumentException();
+		}
+		// check the names first, so that a rejected route writes nothing
+		for (int f = 0; f < route.getFeatureCount(); f++) {
+			String name = route.getFeature(f).getName();
+			if (!names.containsKey(name) &&
+					name.getBytes(StandardCharsets.UTF_8).length > MAX_NAME_LENGTH) {
+				throw new IllegalArgumentException("name longer than " + MAX_NAME_LENGTH + " bytes");
+			}
+		}
+		ensure(3 * MAX_VARINT);
+		putVarint(route.getFeatureCount());
+		GeoPoint start = route.getStart();
+		int lat = start.getLatitude();
+		int lon = start.getLongitude();
+		putZigzag(lat);
+		putZigzag(lon);
+
+		for (int f = 0; f < route.getFeatureCount(); f++) {
+			GeoFeature gf = route.getFeature(f);
+			writeName(gf.getName());
+			ensure(MAX_VARINT);
+			putVarint(gf.segments.size());
+			for (int i = 0; i < gf.segments.size(); i++) {
+				GeoPoint p2 = gf.segments.get(i).getP2();
+				ensure(2 * MAX_VARINT);
+				putZigzag(p2.getLatitude() - lat);
+				putZigzag(p2.getLongitude() - lon);
+				lat = p2.getLatitude();
+				lon = p2.getLongitude();
+			}
+		}
+	}
+
+
+	/**
+	 * Writes all the buffered output to the channel.
+	 * @modifies this
+	 * @effects writes the buffered part of the stream to the channel.
+	 * @throws IOException if the channel throws IOException.
+	 **/
+	public void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+
+	/**
+	 * Flushes this and closes the channel.
+	 * @modifies this
+	 * @effects writes the buffered part of the stream to the channel, and
+	 *          closes it.
+	 * @throws IOException if the channel throws IOException.
+	 **/
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void writeName(String name) throws IOException {
+		Integer ref = names.get(name);
+		if (ref != null) {
+			ensure(MAX_VARINT);
+			putVarint(ref);
+			return;
+		}
+		names.put(name, names.size() + 1);
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		ensure(2 * MAX_VARINT);
+		putVarint(0);
+		putVarint(bytes.length);
+		int offset = 0;
+		while (offset < bytes.length) {
+			if (!buffer.hasRemaining()) {
+				flush();
+			}
+			int n = Math.min(buffer.remaining(), bytes.length - offset);
+			buffer.put(bytes, offset, n);
+			offset += n;
+		}
+	}
+
+	private void ensure(int n) throws IOException {
+		if (buffer.remaining() < n) {
+			flush();
+		}
+	}
+
+	private void putZigzag(int x) {
+		putVarint((x << 1) ^ (x >> 31));
+	}
+
+	private void putVarint(int x) {
+		while ((x & ~0x7f) != 0) {
+			buffer.put((byte)((x & 0x7f) | 0x80));
+			x >>>= 7;
+		}
+		buffer.put((byte)x);
+	}
+}
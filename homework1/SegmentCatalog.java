@@ -0,0 +1,401 @@
+package homework1;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import javax.swing.AbstractListModel;
+import javax.swing.ListModel;
+
+/**
+ * A SegmentCatalog is a read-only catalog of GeoSegments stored in a file
+ * and memory-mapped, so that opening it takes the same time whatever the
+ * number of segments, and the segments do not live on the heap. Opening
+ * checks the header and the name table, but not the records.
+ * <p>
+ * The file holds a 24 byte header, then one fixed 20 byte record per
+ * segment, then a table of the distinct names of the segments:
+ * <pre>
+ *   header:  magic "GSEG", version, segmentCount, nameCount   ints
+ *            offset of the name table                        long
+ *   record:  p1 latitude, p1 longitude,
+ *            p2 latitude, p2 longitude, nameId               ints
+ *   names:   nameCount + 1 offsets into the name bytes       ints
+ *            the UTF-8 encoding of all the names
+ * </pre>
+ * The coordinates and the name id of a segment are read straight from the
+ * mapped file. <tt>get()</tt> builds a GeoSegment for a single record when
+ * it is needed; a small cache of decoded names keeps the heap usage
+ * bounded.
+ * <p>
+ * A SegmentCatalog may be read by several threads at once.
+ * <p>
+ * <b>The following fields are used in the specification:</b>
+ * <pre>
+ *   segments : sequence    // the GeoSegments of the catalog, in file order
+ *   names : sequence       // the distinct names of segments, by name id
+ * </pre>
+ **/
+public class SegmentCatalog {
+
+	// "GSEG" and the version of the format
+	private static final int MAGIC = 0x47534547;
+	private static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 24;
+	private static final int RECORD_SIZE = 20;
+
+	// records per mapped chunk: a mapping is limited to 2GB
+	private static final int CHUNK_RECORDS = 1 << 26;
+
+	// number of decoded names kept, a power of 2
+	private static final int NAME_CACHE_SIZE = 1024;
+
+	private final MappedByteBuffer[] chunks;
+	private final MappedByteBuffer nameTable;
+	private final int size;
+	private final int nameCount;
+	private final CachedName[] nameCache;
+
+	/*
+	 * Rep. Invariant:
+	 * chunks != null && nameTable != null && size >= 0 && nameCount >= 0 &&
+	 * chunks.length == ceil(size / CHUNK_RECORDS) && every chunk but the
+	 * last holds CHUNK_RECORDS records &&
+	 * nameCache.length == NAME_CACHE_SIZE
+	 * Abstraction Function:
+	 * segments[i] is the segment of record i % CHUNK_RECORDS of
+	 * chunks[i / CHUNK_RECORDS]. names[id] is the string that the name table
+	 * encodes at index id. nameCache[id % NAME_CACHE_SIZE] is either null
+	 * or a name whose id has that index in the cache.
+	 */
+
+	// a decoded name; immutable, so it can be shared between threads
+	private static class CachedName {
+		final int id;
+		final String name;
+
+		CachedName(int id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+	}
+
+	private SegmentCatalog(MappedByteBuffer[] chunks, MappedByteBuffer nameTable,
+			int size, int nameCount) {
+		this.chunks = chunks;
+		this.nameTable = nameTable;
+		this.size = size;
+		this.nameCount = nameCount;
+		this.nameCache = new CachedName[NAME_CACHE_SIZE];
+	}
+
+
+	/**
+	 * Opens a catalog file.
+	 * @requires file != null
+	 * @return a SegmentCatalog of the segments in file.
+	 * @throws IOException if file cannot be read or is not a catalog file.
+	 **/
+	public static SegmentCatalog open(Path file) throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException();
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining()) {
+				if (channel.read(header) < 0) {
+					throw new IOException("not a segment catalog");
+				}
+			}
+			header.flip();
+			if (header.getInt() != MAGIC) {
+				throw new IOException("not a segment catalog");
+			}
+			if (header.getInt() != VERSION) {
+				throw new IOException("unsupported segment catalog version");
+			}
+			int size = header.getInt();
+			int nameCount = header.getInt();
+			long namesOffset = header.getLong();
+			if (size < 0 || nameCount < 0 ||
+				namesOffset != HEADER_SIZE + (long)size * RECORD_SIZE ||
+				namesOffset + 4L * (nameCount + 1) > channel.size() ||
+				channel.size() - namesOffset > Integer.MAX_VALUE) {
+				throw new IOException("corrupt segment catalog");
+			}
+
+			// the mappings stay valid after the channel is closed
+			MappedByteBuffer[] chunks = new MappedByteBuffer[(size + CHUNK_RECORDS - 1) / CHUNK_RECORDS];
+			for (int c = 0; c < chunks.length; c++) {
+				int records = Math.min(CHUNK_RECORDS, size - c * CHUNK_RECORDS);
+				chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY,
+					HEADER_SIZE + (long)c * CHUNK_RECORDS * RECORD_SIZE,
+					(long)records * RECORD_SIZE);
+			}
+			MappedByteBuffer nameTable = channel.map(FileChannel.MapMode.READ_ONLY,
+				namesOffset, channel.size() - namesOffset);
+			// the name offsets must rise from 0 and stay in the name bytes,
+			// so that getName() cannot read outside the table
+			int previous = 0;
+			for (int id = 0; id <= nameCount; id++) {
+				int offset = nameTable.getInt(4 * id);
+				if (offset < previous ||
+					4L * (nameCount + 1) + offset > nameTable.capacity()) {
+					throw new IOException("corrupt segment catalog");
+				}
+				previous = offset;
+			}
+			return new SegmentCatalog(chunks, nameTable, size, nameCount);
+		}
+	}
+
+
+	/**
+	 * Writes a catalog file.
+	 * @requires file != null && segments != null && segments contains no
+	 *           null elements
+	 * @modifies file
+	 * @effects replaces the contents of file with a catalog of the
+	 *          segments, in order.
+	 * @throws IOException if file cannot be written.
+	 **/
+	public static void write(Path file, Iterator<GeoSegment> segments) throws IOException {
+		if (file == null || segments == null) {
+			throw new IllegalArgumentException();
+		}
+		HashMap<String, Integer> ids = new HashMap<String, Integer>();
+		ArrayList<String> names = new ArrayList<String>();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+			channel.position(HEADER_SIZE);
+			int size = 0;
+			while (segments.hasNext()) {
+				GeoSegment gs = segments.next();
+				if (gs == null) {
+					throw new IllegalArgumentException();
+				}
+				Integer id = ids.get(gs.getName());
+				if (id == null) {
+					id = names.size();
+					ids.put(gs.getName(), id);
+					names.add(gs.getName());
+				}
+				if (buffer.remaining() < RECORD_SIZE) {
+					writeFully(channel, buffer);
+				}
+				buffer.putInt(gs.getP1().getLatitude());
+				buffer.putInt(gs.getP1().getLongitude());
+				buffer.putInt(gs.getP2().getLatitude());
+				buffer.putInt(gs.getP2().getLongitude());
+				buffer.putInt(id);
+				size++;
+			}
+			writeFully(channel, buffer);
+
+			// name offsets, then name bytes
+			byte[][] encoded = new byte[names.size()][];
+			int offset = 0;
+			for (int i = 0; i < encoded.length; i++) {
+				encoded[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+				if (buffer.remaining() < 4) {
+					writeFully(channel, buffer);
+				}
+				buffer.putInt(offset);
+				offset += encoded[i].length;
+			}
+			if (buffer.remaining() < 4) {
+				writeFully(channel, buffer);
+			}
+			buffer.putInt(offset);
+			for (byte[] bytes : encoded) {
+				int written = 0;
+				while (written < bytes.length) {
+					if (!buffer.hasRemaining()) {
+						writeFully(channel, buffer);
+					}
+					int n = Math.min(buffer.remaining(), bytes.length - written);
+					buffer.put(bytes, written, n);
+					written += n;
+				}
+			}
+			writeFully(channel, buffer);
+
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(size);
+			buffer.putInt(names.size());
+			buffer.putLong(HEADER_SIZE + (long)size * RECORD_SIZE);
+			channel.position(0);
+			writeFully(channel, buffer);
+		}
+	}
+
+
+	/**
+	 * Returns the number of segments in the catalog.
+	 * @return the length of this.segments.
+	 **/
+	public int size() {
+		return size;
+	}
+
+
+	/**
+	 * Returns the number of distinct names in the catalog.
+	 * @return the length of this.names.
+	 **/
+	public int getNameCount() {
+		return nameCount;
+	}
+
+
+	/**
+	 * Returns a segment of the catalog.
+	 * @requires 0 <= i < this.size()
+	 * @return a new GeoSegment equal to segments[i].
+	 * @throws UncheckedIOException if the record of segments[i] has no
+	 *         valid name id, which open() does not check so that it does
+	 *         not read every record.
+	 **/
+	public GeoSegment get(int i) {
+		checkIndex(i);
+		ByteBuffer chunk = chunks[i / CHUNK_RECORDS];
+		int at = (i % CHUNK_RECORDS) * RECORD_SIZE;
+		return new GeoSegment(getName(checkNameId(chunk.getInt(at + 16))),
+			new GeoPoint(chunk.getInt(at), chunk.getInt(at + 4)),
+			new GeoPoint(chunk.getInt(at + 8), chunk.getInt(at + 12)));
+	}
+
+
+	/**
+	 * Returns the latitude of the first end point of a segment.
+	 * @requires 0 <= i < this.size()
+	 * @return segments[i].p1.latitude
+	 **/
+	public int getP1Latitude(int i) {
+		return field(i, 0);
+	}
+
+
+	/**
+	 * Returns the longitude of the first end point of a segment.
+	 * @requires 0 <= i < this.size()
+	 * @return segments[i].p1.longitude
+	 **/
+	public int getP1Longitude(int i) {
+		return field(i, 4);
+	}
+
+
+	/**
+	 * Returns the latitude of the second end point of a segment.
+	 * @requires 0 <= i < this.size()
+	 * @return segments[i].p2.latitude
+	 **/
+	public int getP2Latitude(int i) {
+		return field(i, 8);
+	}
+
+
+	/**
+	 * Returns the longitude of the second end point of a segment.
+	 * @requires 0 <= i < this.size()
+	 * @return segments[i].p2.longitude
+	 **/
+	public int getP2Longitude(int i) {
+		return field(i, 12);
+	}
+
+
+	/**
+	 * Returns the name id of a segment.
+	 * @requires 0 <= i < this.size()
+	 * @return the id of segments[i].name in this.names.
+	 * @throws UncheckedIOException if the record of segments[i] has no
+	 *         valid name id.
+	 **/
+	public int getNameId(int i) {
+		return checkNameId(field(i, 16));
+	}
+
+
+	/**
+	 * Returns a name of the catalog.
+	 * @requires 0 <= id < this.getNameCount()
+	 * @return names[id]
+	 **/
+	public String getName(int id) {
+		if (id < 0 || id >= nameCount) {
+			throw new IndexOutOfBoundsException();
+		}
+		int slot = id & (NAME_CACHE_SIZE - 1);
+		CachedName cached = nameCache[slot];
+		if (cached != null && cached.id == id) {
+			return cached.name;
+		}
+		int from = nameTable.getInt(4 * id);
+		int to = nameTable.getInt(4 * (id + 1));
+		byte[] bytes = new byte[to - from];
+		nameTable.get(4 * (nameCount + 1) + from, bytes);
+		String name = new String(bytes, StandardCharsets.UTF_8);
+		// a racing thread may overwrite the slot; either value is valid
+		nameCache[slot] = new CachedName(id, name);
+		return name;
+	}
+
+
+	/**
+	 * Returns a ListModel view of the catalog, for a JList. The view reads
+	 * a segment from the catalog only when the JList displays it.
+	 * @return a ListModel whose elements are this.segments.
+	 **/
+	public ListModel<GeoSegment> asListModel() {
+		return new AbstractListModel<GeoSegment>() {
+
+			private static final long serialVersionUID = 1L;
+
+			public int getSize() {
+				return size;
+			}
+
+			public GeoSegment getElementAt(int index) {
+				return get(index);
+			}
+		};
+	}
+
+	private int field(int i, int offset) {
+		checkIndex(i);
+		return chunks[i / CHUNK_RECORDS].getInt((i % CHUNK_RECORDS) * RECORD_SIZE + offset);
+	}
+
+	private int checkNameId(int id) {
+		if (id < 0 || id >= nameCount) {
+			throw new UncheckedIOException(new IOException("corrupt segment catalog"));
+		}
+		return id;
+	}
+
+	private void checkIndex(int i) {
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,774 @@
+package homework1;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * TrackImporter reads recorded tracks from GPX and GeoJSON files into
+ * Routes, in a single streaming pass.
+ * <p>
+ * GPX is read with a StAX parser: the points of all the &lt;trk&gt; and
+ * &lt;rte&gt; elements (&lt;trkpt&gt; and &lt;rtept&gt;), named by the
+ * &lt;name&gt; of their track or route. GeoJSON is read with a small pull
+ * tokenizer: the coordinates of all the LineString and MultiLineString
+ * geometries, in a bare geometry, a Feature or a FeatureCollection, named
+ * by the "name" property of their feature. A track without a name is named
+ * UNNAMED.
+ * <p>
+ * All the points of a file, in document order, form one path. A gap, from
+ * the last point of a line (a track, a &lt;trkseg&gt;, or a part of a
+ * MultiLineString) to the first point of the next one, was not recorded,
+ * so it is joined by a segment named GAP; a line that starts where the one
+ * before it ended is joined without one. A point equal to the one before it
+ * is skipped, since a segment needs two distinct end points. Consecutive
+ * segments share their end point objects, and Route groups consecutive
+ * segments with the same name into one GeoFeature as they are added.
+ * <p>
+ * Memory use is bounded by the Route being built: GPX is never held in
+ * memory, and GeoJSON only one feature at a time (its name may follow its
+ * coordinates). The chunk iterators split a long track into Routes of a
+ * bounded number of segments, each starting where the one before it ended.
+ **/
+public class TrackImporter {
+
+	/**
+	 * The name of the segments of a track that has no name.
+	 **/
+	public static final String UNNAMED = "unnamed";
+
+	/**
+	 * The name of the segments that join a line to the next one.
+	 **/
+	public static final String GAP = "(gap)";
+
+	// deepest nesting of JSON objects and arrays that is accepted
+	private static final int MAX_DEPTH = 64;
+
+	private TrackImporter() {
+	}
+
+
+	/**
+	 * Reads a GPX file into one Route.
+	 * @requires in != null
+	 * @return a Route through all the track and route points of in.
+	 * @throws IOException if in throws IOException, is not valid GPX, or
+	 *         has fewer than two distinct points.
+	 **/
+	public static Route importGpx(InputStream in) throws IOException {
+		return importAll(new GpxSource(in));
+	}
+
+
+	/**
+	 * Reads a GeoJSON file into one Route.
+	 * @requires in != null
+	 * @return a Route through all the LineString coordinates of in.
+	 * @throws IOException if in throws IOException, is not valid JSON, or
+	 *         has fewer than two distinct points.
+	 **/
+	public static Route importGeoJson(Reader in) throws IOException {
+		return importAll(new GeoJsonSource(in));
+	}
+
+
+	/**
+	 * Reads a GPX file as a sequence of Routes of at most maxSegments
+	 * segments each. The input is read as the Iterator is advanced.
+	 * @requires in != null && maxSegments >= 1
+	 * @return an Iterator of Routes whose concatenation is
+	 *         importGpx(in). Its methods throw UncheckedIOException where
+	 *         importGpx would throw IOException.
+	 **/
+	public static Iterator<Route> gpxChunks(InputStream in, int maxSegments) {
+		if (maxSegments < 1) {
+			throw new IllegalArgumentException();
+		}
+		return new Chunks(new GpxSource(in), maxSegments);
+	}
+
+
+	/**
+	 * Reads a GeoJSON file as a sequence of Routes of at most maxSegments
+	 * segments each. The input is read as the Iterator is advanced.
+	 * @requires in != null && maxSegments >= 1
+	 * @return an Iterator of Routes whose concatenation is
+	 *         importGeoJson(in). Its methods throw UncheckedIOException
+	 *         where importGeoJson would throw IOException.
+	 **/
+	public static Iterator<Route> geoJsonChunks(Reader in, int maxSegments) {
+		if (maxSegments < 1) {
+			throw new IllegalArgumentException();
+		}
+		return new Chunks(new GeoJsonSource(in), maxSegments);
+	}
+
+	private static Route importAll(PointSource source) throws IOException {
+		Chunks chunks = new Chunks(source, Integer.MAX_VALUE);
+		try {
+			if (!chunks.hasNext()) {
+				throw new IOException("no track in input");
+			}
+			return chunks.next();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static int toMicrodegrees(double degrees) throws IOException {
+		if (!(Math.abs(degrees) <= 180)) {
+			throw new IOException("coordinate out of range: " + degrees);
+		}
+		return (int)Math.round(degrees * 1000000);
+	}
+
+
+	/**
+	 * A sequence of named points read from a file.
+	 */
+	private interface PointSource {
+		/**
+		 * Reads the next point.
+		 * @return false iff there are no more points.
+		 */
+		boolean advance() throws IOException;
+		/**
+		 * Checks whether the point starts a new line, which is not
+		 * joined to the point before it.
+		 */
+		boolean startsLine();
+		int latitude();
+		int longitude();
+		String name();
+	}
+
+
+	/**
+	 * Builds Routes of at most maxSegments segments from a PointSource.
+	 */
+	private static class Chunks implements Iterator<Route> {
+
+		private final PointSource source;
+		private final int maxSegments;
+		private GeoPoint last;			// the last point read
+		private GeoSegment pending;		// the next segment, if read ahead
+		private boolean done;
+
+		Chunks(PointSource source, int maxSegments) {
+			this.source = source;
+			this.maxSegments = maxSegments;
+		}
+
+		public boolean hasNext() {
+			if (pending == null && !done) {
+				pending = nextSegment();
+			}
+			return pending != null;
+		}
+
+		public Route next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Route route = new Route(pending);
+			pending = null;
+			for (int n = 1; n < maxSegments; n++) {
+				GeoSegment gs = nextSegment();
+				if (gs == null) {
+					break;
+				}
+				route = route.addSegment(gs);
+			}
+			return route;
+		}
+
+		private GeoSegment nextSegment() {
+			try {
+				while (source.advance()) {
+					GeoPoint p = new GeoPoint(source.latitude(), source.longitude());
+					if (last == null) {
+						last = p;
+						continue;
+					}
+					if (p.equals(last)) {
+						continue;
+					}
+					GeoSegment gs = new GeoSegment(
+						source.startsLine() ? GAP : source.name(), last, p);
+					last = p;
+					return gs;
+				}
+				done = true;
+				return null;
+			} catch (IllegalArgumentException e) {
+				// a latitude beyond the poles
+				throw new UncheckedIOException(new IOException("coordinate out of range", e));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+
+	/**
+	 * The track and route points of a GPX document.
+	 */
+	private static class GpxSource implements PointSource {
+
+		private final InputStream in;
+		private XMLStreamReader reader;
+		private int depth;				// depth of the current element
+		private int trackDepth;			// depth of the current trk or rte, or -1
+		private String name;
+		private boolean lineStart;		// the next point starts a line
+		private boolean startsLine;
+		private int latitude;
+		private int longitude;
+
+		GpxSource(InputStream in) {
+			if (in == null) {
+				throw new IllegalArgumentException();
+			}
+			this.in = in;
+			this.trackDepth = -1;
+			this.name = UNNAMED;
+		}
+
+		public boolean advance() throws IOException {
+			try {
+				if (reader == null) {
+					XMLInputFactory factory = XMLInputFactory.newFactory();
+					factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+					factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+					reader = factory.createXMLStreamReader(in);
+				}
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.END_ELEMENT) {
+						if (depth == trackDepth) {
+							trackDepth = -1;
+						}
+						depth--;
+						continue;
+					}
+					if (event != XMLStreamConstants.START_ELEMENT) {
+						continue;
+					}
+					depth++;
+					String element = reader.getLocalName();
+					if (element.equals("trk") || element.equals("rte")) {
+						trackDepth = depth;
+						name = UNNAMED;
+						lineStart = true;
+					} else if (element.equals("trkseg")) {
+						lineStart = true;
+					} else if (element.equals("name") && trackDepth >= 0 &&
+							depth == trackDepth + 1) {
+						String text = reader.getElementText().trim();
+						name = text.isEmpty() ? UNNAMED : text;
+						// getElementText() read the end of the element
+						depth--;
+					} else if (trackDepth >= 0 &&
+							(element.equals("trkpt") || element.equals("rtept"))) {
+						String lat = reader.getAttributeValue(null, "lat");
+						String lon = reader.getAttributeValue(null, "lon");
+						if (lat == null || lon == null) {
+							throw new IOException("point without lat and lon");
+						}
+						latitude = toMicrodegrees(Double.parseDouble(lat));
+						longitude = toMicrodegrees(Double.parseDouble(lon));
+						startsLine = lineStart;
+						lineStart = false;
+						return true;
+					}
+				}
+				return false;
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			} catch (NumberFormatException e) {
+				throw new IOException(e);
+			}
+		}
+
+		public boolean startsLine() {
+			return startsLine;
+		}
+
+		public int latitude() {
+			return latitude;
+		}
+
+		public int longitude() {
+			return longitude;
+		}
+
+		public String name() {
+			return name;
+		}
+	}
+
+
+	/**
+	 * The LineString coordinates of a GeoJSON document.
+	 */
+	private static class GeoJsonSource implements PointSource {
+
+		// parser states
+		private static final int START = 0;
+		private static final int TOP = 1;			// in the top level object
+		private static final int FEATURES = 2;		// in its "features" array
+		private static final int DONE = 3;
+
+		private final JsonTokenizer tokens;
+		private final GeoPointTable points;		// the current feature
+		private final BitSet lineStarts;		// indices of points that start lines
+		private int state;
+		private boolean first;		// the next member or feature of TOP or FEATURES is its first
+		private int cursor;
+		private String name;
+
+		GeoJsonSource(Reader in) {
+			this.tokens = new JsonTokenizer(in);
+			this.points = new GeoPointTable();
+			this.lineStarts = new BitSet();
+			this.state = START;
+			this.name = UNNAMED;
+		}
+
+		public boolean advance() throws IOException {
+			while (cursor >= points.size()) {
+				if (!nextFeature()) {
+					return false;
+				}
+			}
+			cursor++;
+			return true;
+		}
+
+		public boolean startsLine() {
+			return lineStarts.get(cursor - 1);
+		}
+
+		public int latitude() {
+			return points.getLatitude(cursor - 1);
+		}
+
+		public int longitude() {
+			return points.getLongitude(cursor - 1);
+		}
+
+		public String name() {
+			return name;
+		}
+
+		/**
+		 * Reads the points of the next feature that has any.
+		 * @return false iff there are no more features.
+		 */
+		private boolean nextFeature() throws IOException {
+			points.truncate(0);
+			lineStarts.clear();
+			cursor = 0;
+			name = UNNAMED;
+			while (true) {
+				if (state == START) {
+					if (tokens.next() != JsonTokenizer.BEGIN_OBJECT) {
+						throw new IOException("GeoJSON must be an object");
+					}
+					state = TOP;
+					first = true;
+				}
+				if (state == TOP) {
+					if (readObject(true, first, 0)) {
+						state = FEATURES;
+						first = true;
+					} else {
+						if (tokens.next() != JsonTokenizer.EOF) {
+							throw new IOException("unexpected data after GeoJSON");
+						}
+						state = DONE;
+						// a bare geometry or Feature
+						return points.size() > 0;
+					}
+				}
+				if (state == FEATURES) {
+					int token = tokens.nextElement(first, JsonTokenizer.END_ARRAY);
+					first = false;
+					if (token == JsonTokenizer.END_ARRAY) {
+						// the rest of the top level object, after "features"
+						state = TOP;
+						continue;
+					}
+					if (token != JsonTokenizer.BEGIN_OBJECT) {
+						throw new IOException("a feature must be an object");
+					}
+					readObject(false, true, 1);
+					if (points.size() > 0) {
+						return true;
+					}
+				}
+				if (state == DONE) {
+					return false;
+				}
+			}
+		}
+
+		/**
+		 * Reads the members of an object whose '{' was read, as a Feature
+		 * or as a geometry, from its first member if first is true, and
+		 * otherwise from after a member. If top is true, stops at a
+		 * "features" member, after its '['.
+		 * @return true iff it stopped at a "features" member.
+		 */
+		private boolean readObject(boolean top, boolean first, int depth) throws IOException {
+			if (depth > MAX_DEPTH) {
+				throw new IOException("GeoJSON nested too deeply");
+			}
+			int mark = points.size();
+			boolean coordinates = false;
+			String type = null;
+			while (true) {
+				int token = tokens.nextElement(first, JsonTokenizer.END_OBJECT);
+				first = false;
+				if (token == JsonTokenizer.END_OBJECT) {
+					break;
+				}
+				if (token != JsonTokenizer.STRING || tokens.next() != JsonTokenizer.COLON) {
+					throw new IOException("malformed JSON object");
+				}
+				String key = tokens.text();
+				token = tokens.next();
+				if (key.equals("type") && token == JsonTokenizer.STRING) {
+					type = tokens.text();
+				} else if (key.equals("coordinates")) {
+					readCoordinates(token, depth + 1);
+					coordinates = true;
+				} else if (key.equals("geometry") && token == JsonTokenizer.BEGIN_OBJECT) {
+					readObject(false, true, depth + 1);
+				} else if (key.equals("geometries") && token == JsonTokenizer.BEGIN_ARRAY) {
+					boolean firstGeometry = true;
+					while ((token = tokens.nextElement(firstGeometry, JsonTokenizer.END_ARRAY)) !=
+							JsonTokenizer.END_ARRAY) {
+						if (token != JsonTokenizer.BEGIN_OBJECT) {
+							throw new IOException("a geometry must be an object");
+						}
+						readObject(false, true, depth + 1);
+						firstGeometry = false;
+					}
+				} else if (key.equals("properties") && token == JsonTokenizer.BEGIN_OBJECT) {
+					readProperties();
+				} else if (top && key.equals("features") && token == JsonTokenizer.BEGIN_ARRAY) {
+					return true;
+				} else {
+					tokens.skip(token);
+				}
+			}
+			if (coordinates && !"LineString".equals(type) && !"MultiLineString".equals(type)) {
+				// points of a Point or a Polygon
+				points.truncate(mark);
+				lineStarts.clear(mark, Integer.MAX_VALUE);
+			}
+			return false;
+		}
+
+		private void readProperties() throws IOException {
+			boolean first = true;
+			while (true) {
+				int token = tokens.nextElement(first, JsonTokenizer.END_OBJECT);
+				first = false;
+				if (token == JsonTokenizer.END_OBJECT) {
+					return;
+				}
+				if (token != JsonTokenizer.STRING || tokens.next() != JsonTokenizer.COLON) {
+					throw new IOException("malformed JSON object");
+				}
+				String key = tokens.text();
+				token = tokens.next();
+				if (key.equals("name") && token == JsonTokenizer.STRING) {
+					String text = tokens.text().trim();
+					name = text.isEmpty() ? UNNAMED : text;
+				} else {
+					tokens.skip(token);
+				}
+			}
+		}
+
+		/**
+		 * Reads a position [longitude, latitude, ...] or an array of them,
+		 * at any depth, into points, and marks the first position of each
+		 * array of positions in lineStarts.
+		 * @return true iff it read a single position.
+		 */
+		private boolean readCoordinates(int token, int depth) throws IOException {
+			if (depth > MAX_DEPTH) {
+				throw new IOException("GeoJSON nested too deeply");
+			}
+			if (token != JsonTokenizer.BEGIN_ARRAY) {
+				throw new IOException("coordinates must be arrays");
+			}
+			token = tokens.nextElement(true, JsonTokenizer.END_ARRAY);
+			if (token == JsonTokenizer.NUMBER) {
+				int lon = toMicrodegrees(tokens.number());
+				if (tokens.next() != JsonTokenizer.COMMA ||
+					tokens.next() != JsonTokenizer.NUMBER) {
+					throw new IOException("a position needs a latitude");
+				}
+				int lat = toMicrodegrees(tokens.number());
+				if (Math.abs(lat) > 90000000) {
+					throw new IOException("coordinate out of range");
+				}
+				points.add(lat, lon);
+				// an optional elevation
+				while ((token = tokens.nextElement(false, JsonTokenizer.END_ARRAY)) !=
+						JsonTokenizer.END_ARRAY) {
+					if (token != JsonTokenizer.NUMBER) {
+						throw new IOException("malformed position");
+					}
+				}
+				return true;
+			}
+			int start = points.size();
+			boolean first = true;
+			while (token != JsonTokenizer.END_ARRAY) {
+				if (readCoordinates(token, depth + 1) && first) {
+					lineStarts.set(start);
+				}
+				first = false;
+				token = tokens.nextElement(false, JsonTokenizer.END_ARRAY);
+			}
+			return false;
+		}
+	}
+
+
+	/**
+	 * Splits JSON text into tokens, reading it as needed.
+	 */
+	private static class JsonTokenizer {
+
+		static final int EOF = 0;
+		static final int BEGIN_OBJECT = 1;
+		static final int END_OBJECT = 2;
+		static final int BEGIN_ARRAY = 3;
+		static final int END_ARRAY = 4;
+		static final int COLON = 5;
+		static final int COMMA = 6;
+		static final int STRING = 7;
+		static final int NUMBER = 8;
+		static final int LITERAL = 9;		// true, false or null
+
+		private final Reader in;
+		private final char[] buffer;
+		private int position;
+		private int limit;
+		private final StringBuilder text;
+		private final BitSet objects;		// for each array or object open in skip(), whether it is an object
+
+		JsonTokenizer(Reader in) {
+			if (in == null) {
+				throw new IllegalArgumentException();
+			}
+			this.in = in;
+			this.buffer = new char[8192];
+			this.text = new StringBuilder();
+			this.objects = new BitSet();
+		}
+
+		/**
+		 * Returns the text of the last STRING, NUMBER or LITERAL token.
+		 */
+		String text() {
+			return text.toString();
+		}
+
+		double number() throws IOException {
+			try {
+				return Double.parseDouble(text.toString());
+			} catch (NumberFormatException e) {
+				throw new IOException("malformed number: " + text);
+			}
+		}
+
+		int next() throws IOException {
+			int c = read();
+			while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+				c = read();
+			}
+			switch (c) {
+			case -1:
+				return EOF;
+			case '{':
+				return BEGIN_OBJECT;
+			case '}':
+				return END_OBJECT;
+			case '[':
+				return BEGIN_ARRAY;
+			case ']':
+				return END_ARRAY;
+			case ':':
+				return COLON;
+			case ',':
+				return COMMA;
+			case '"':
+				readString();
+				return STRING;
+			default:
+				text.setLength(0);
+				if (c == '-' || (c >= '0' && c <= '9')) {
+					readWhile(c, "0123456789+-.eE");
+					return NUMBER;
+				}
+				if (c >= 'a' && c <= 'z') {
+					readWhile(c, "abcdefghijklmnopqrstuvwxyz");
+					String word = text.toString();
+					if (word.equals("true") || word.equals("false") || word.equals("null")) {
+						return LITERAL;
+					}
+				}
+				throw new IOException("unexpected character in JSON: " + (char)c);
+			}
+		}
+
+		/**
+		 * Reads the first token of the next element of an object or an
+		 * array, after the comma that separates it from the one before it
+		 * unless first is true.
+		 * @return that token, or end if the object or array ends there.
+		 * @throws IOException unless the element is preceded by exactly one
+		 *         comma, or by none if first is true.
+		 */
+		int nextElement(boolean first, int end) throws IOException {
+			int token = next();
+			if (token == end) {
+				return end;
+			}
+			if (!first) {
+				if (token != COMMA) {
+					throw new IOException(token == EOF ? "unexpected end of JSON" :
+						"missing ',' in JSON");
+				}
+				token = next();
+			}
+			if (token == COMMA || token == end) {
+				throw new IOException("misplaced ',' in JSON");
+			}
+			return token;
+		}
+
+		/**
+		 * Skips the value that starts with the given token.
+		 * @throws IOException if the value is not well formed.
+		 */
+		void skip(int token) throws IOException {
+			int depth = 0;
+			while (true) {
+				// token starts a value
+				if (token == BEGIN_OBJECT || token == BEGIN_ARRAY) {
+					objects.set(depth++, token == BEGIN_OBJECT);
+					token = nextElement(true, token == BEGIN_OBJECT ? END_OBJECT : END_ARRAY);
+				} else if (token == STRING || token == NUMBER || token == LITERAL) {
+					if (depth == 0) {
+						return;
+					}
+					token = nextElement(false, objects.get(depth - 1) ? END_OBJECT : END_ARRAY);
+				} else {
+					throw new IOException(token == EOF ? "unexpected end of JSON" :
+						"malformed JSON value");
+				}
+				while (token == (objects.get(depth - 1) ? END_OBJECT : END_ARRAY)) {
+					if (--depth == 0) {
+						return;
+					}
+					token = nextElement(false, objects.get(depth - 1) ? END_OBJECT : END_ARRAY);
+				}
+				// token starts an element; a member of an object starts with its key
+				if (objects.get(depth - 1)) {
+					if (token != STRING || next() != COLON) {
+						throw new IOException("malformed JSON object");
+					}
+					token = next();
+				}
+			}
+		}
+
+		private void readWhile(int c, String chars) throws IOException {
+			text.append((char)c);
+			while (true) {
+				if (position == limit && !fill()) {
+					return;
+				}
+				char d = buffer[position];
+				if (chars.indexOf(d) < 0) {
+					return;
+				}
+				text.append(d);
+				position++;
+			}
+		}
+
+		private void readString() throws IOException {
+			text.setLength(0);
+			while (true) {
+				int c = read();
+				if (c == -1) {
+					throw new IOException("unterminated JSON string");
+				}
+				if (c == '"') {
+					return;
+				}
+				if (c == '\\') {
+					c = read();
+					switch (c) {
+					case 'b': c = '\b'; break;
+					case 'f': c = '\f'; break;
+					case 'n': c = '\n'; break;
+					case 'r': c = '\r'; break;
+					case 't': c = '\t'; break;
+					case 'u':
+						int code = 0;
+						for (int i = 0; i < 4; i++) {
+							int digit = Character.digit(read(), 16);
+							if (digit < 0) {
+								throw new IOException("malformed JSON escape");
+							}
+							code = code * 16 + digit;
+						}
+						c = code;
+						break;
+					case '"': case '\\': case '/':
+						break;
+					default:
+						throw new IOException("malformed JSON escape");
+					}
+				}
+				text.append((char)c);
+			}
+		}
+
+		private int read() throws IOException {
+			if (position == limit && !fill()) {
+				return -1;
+			}
+			return buffer[position++];
+		}
+
+		private boolean fill() throws IOException {
+			int n = in.read(buffer, 0, buffer.length);
+			if (n <= 0) {
+				return false;
+			}
+			position = 0;
+			limit = n;
+			return true;
+		}
+	}
+}
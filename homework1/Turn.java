@@ -0,0 +1,44 @@
+package homework1;
+
+/**
+ * A Turn is the instruction for changing from one direction of travel to
+ * another, as it appears at the start of a line of directions.
+ * <p>
+ * Let a be the angle from the old heading to the new one, positive to the
+ * right. The turns are:
+ * <pre>
+ * CONTINUE             if |a| < 10
+ * SLIGHT_RIGHT/LEFT    if 10 <= |a| < 60
+ * RIGHT/LEFT           if 60 <= |a| < 120
+ * SHARP_RIGHT/LEFT     if 120 <= |a| < 179
+ * U_TURN               if 179 <= |a|
+ * </pre>
+ * @see TurnClassifier
+ **/
+public enum Turn {
+	CONTINUE("Continue"),
+	SLIGHT_RIGHT("Turn slight right"),
+	RIGHT("Turn right"),
+	SHARP_RIGHT("Turn sharp right"),
+	SLIGHT_LEFT("Turn slight left"),
+	LEFT("Turn left"),
+	SHARP_LEFT("Turn sharp left"),
+	U_TURN("U-Turn");
+
+	private final String phrase;
+
+	private Turn(String phrase) {
+		this.phrase = phrase;
+	}
+
+
+	/**
+	 * Returns the English phrase for this turn.
+	 * @return the English phrase for this turn, as used in directions,
+	 *         e.g. "Turn slight left". The same String object is returned
+	 *         on every call.
+	 **/
+	public String getPhrase() {
+		return phrase;
+	}
+}
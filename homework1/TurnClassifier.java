@@ -0,0 +1,152 @@
+package homework1;
+
+/**
+ * TurnClassifier decides which Turn leads from one direction of travel to
+ * another.
+ * <p>
+ * Directions can be given as compass headings, or as direction vectors of
+ * latitude and longitude differences in millionths of degrees (such as the
+ * difference between the end points of a GeoSegment). Vectors are
+ * classified without trigonometry: the sine and cosine of the angle between
+ * them are proportional to their cross and dot products, which are compared
+ * against the squared cosines of the thresholds of Turn, precomputed once.
+ * The vectors are scaled by the same kilometers per degree as GeoPoint, so
+ * the angle between them is the angle between the segment headings.
+ * <p>
+ * No method of this class allocates memory.
+ **/
+public final class TurnClassifier {
+
+	// squared cosines of the thresholds between the kinds of turns
+	private static final double COS2_10 = square(Math.cos(Math.toRadians(10)));
+	private static final double COS2_60 = square(Math.cos(Math.toRadians(60)));
+	private static final double COS2_120 = square(Math.cos(Math.toRadians(120)));
+	private static final double COS2_179 = square(Math.cos(Math.toRadians(179)));
+
+	private TurnClassifier() {
+	}
+
+
+	/**
+	 * Classifies the turn between two compass headings.
+	 * @requires 0 <= origHeading < 360 && 0 <= newHeading < 360
+	 * @return the Turn from origHeading to newHeading.
+	 **/
+	public static Turn classify(double origHeading, double newHeading) {
+		if (origHeading < 0 || origHeading >= 360 || newHeading < 0 || newHeading >= 360) {
+			throw new IllegalArgumentException();
+		}
+
+		if (origHeading - newHeading > 180) {
+			newHeading += 360;
+		} else if (origHeading - newHeading < -180) {
+			newHeading -= 360;
+		}
+		double angle = origHeading - newHeading;
+		boolean right = angle < 0 && angle > -180;
+
+		angle = Math.abs(angle);
+
+		if (angle < 10) {
+			return Turn.CONTINUE;
+		} else if (angle < 60) {
+			return right ? Turn.SLIGHT_RIGHT : Turn.SLIGHT_LEFT;
+		} else if (angle < 120) {
+			return right ? Turn.RIGHT : Turn.LEFT;
+		} else if (angle < 179) {
+			return right ? Turn.SHARP_RIGHT : Turn.SHARP_LEFT;
+		} else {
+			return Turn.U_TURN;
+		}
+	}
+
+
+	/**
+	 * Classifies the turn between two direction vectors.
+	 * @requires (latDiff1, longDiff1) != (0, 0) &&
+	 *           (latDiff2, longDiff2) != (0, 0)
+	 * @return the Turn from the direction of (latDiff1, longDiff1) to the
+	 *         direction of (latDiff2, longDiff2), where the differences are
+	 *         in millionths of degrees.
+	 **/
+	public static Turn classify(int latDiff1, int longDiff1, int latDiff2, int longDiff2) {
+		if ((latDiff1 == 0 && longDiff1 == 0) || (latDiff2 == 0 && longDiff2 == 0)) {
+			throw new IllegalArgumentException();
+		}
+		double north1 = latDiff1 * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double east1 = longDiff1 * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+		double north2 = latDiff2 * GeoPoint.KM_PER_DEGREE_LATITUDE;
+		double east2 = longDiff2 * GeoPoint.KM_PER_DEGREE_LONGITUDE;
+
+		// cross is positive for a clockwise (right) turn
+		double cross = north1 * east2 - east1 * north2;
+		double dot = north1 * north2 + east1 * east2;
+		// dot * dot / norm is the squared cosine of the angle
+		double norm = cross * cross + dot * dot;
+		double dot2 = dot * dot;
+		boolean right = cross > 0;
+
+		if (dot > 0 && dot2 > COS2_10 * norm) {
+			return Turn.CONTINUE;
+		} else if (dot > 0 && dot2 > COS2_60 * norm) {
+			return right ? Turn.SLIGHT_RIGHT : Turn.SLIGHT_LEFT;
+		} else if (dot >= 0 || dot2 < COS2_120 * norm) {
+			return right ? Turn.RIGHT : Turn.LEFT;
+		} else if (dot2 < COS2_179 * norm) {
+			return right ? Turn.SHARP_RIGHT : Turn.SHARP_LEFT;
+		} else {
+			return Turn.U_TURN;
+		}
+	}
+
+
+	/**
+	 * Classifies the turn from the end of one segment to the start of
+	 * another.
+	 * @requires from != null && to != null &&
+	 *           from.length > 0 && to.length > 0
+	 * @return the Turn from the heading of from to the heading of to.
+	 **/
+	public static Turn classify(GeoSegment from, GeoSegment to) {
+		if (from == null || to == null) {
+			throw new IllegalArgumentException();
+		}
+		GeoPoint p1 = from.getP1();
+		GeoPoint p2 = from.getP2();
+		GeoPoint q1 = to.getP1();
+		GeoPoint q2 = to.getP2();
+		return classify(p2.getLatitude() - p1.getLatitude(), p2.getLongitude() - p1.getLongitude(),
+			q2.getLatitude() - q1.getLatitude(), q2.getLongitude() - q1.getLongitude());
+	}
+
+
+	/**
+	 * Classifies the turns between consecutive geographic features of a
+	 * route, in one pass.
+	 * @requires route != null && out != null &&
+	 *           out.length >= route.getFeatureCount() - 1 &&
+	 *           no segment of route has length 0
+	 * @modifies out
+	 * @effects out[i] = the Turn from the end of feature i of route to the
+	 *          start of feature i + 1, for all
+	 *          0 <= i < route.getFeatureCount() - 1.
+	 * @return the number of turns classified, route.getFeatureCount() - 1.
+	 **/
+	public static int classifyBoundaries(Route route, Turn[] out) {
+		if (route == null || out == null || out.length < route.getFeatureCount() - 1) {
+			throw new IllegalArgumentException();
+		}
+		int n = route.getFeatureCount() - 1;
+		GeoSegment last = route.getFeature(0).getLastSegment();
+		for (int i = 0; i < n; i++) {
+			GeoFeature next = route.getFeature(i + 1);
+			out[i] = classify(last, next.getFirstSegment());
+			last = next.getLastSegment();
+		}
+		return n;
+	}
+
+	private static double square(double x) {
+		return x * x;
+	}
+}
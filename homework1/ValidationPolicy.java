@@ -0,0 +1,206 @@
+package homework1;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A ValidationPolicy says how much of its rep. invariant a Route or a
+ * GeoFeature checks when it changes. The checks run whether or not
+ * assertions are enabled, and a violation throws IllegalStateException.
+ * <p>
+ * The policies are
+ * <pre>
+ * FULL           the whole invariant after every change: O(n) per change
+ * BOUNDARY_ONLY  only the join that the change made: O(1) per change
+ * sampled(n)     the whole invariant after every n'th change of each
+ *                object, nothing after the others: O(1) amortized per
+ *                change when n is about the size of the object
+ * OFF            nothing
+ * </pre>
+ * A new object with one segment is checked under every policy but OFF.
+ * <p>
+ * Each Route and GeoFeature gets its policy when it is constructed, either
+ * explicitly or from <tt>getDefault()</tt>, and passes it on to the
+ * GeoFeatures it creates. The default is BOUNDARY_ONLY, unless the system
+ * property <tt>homework1.validation</tt> names another policy
+ * ("FULL", "BOUNDARY_ONLY", "sampled(n)" or "OFF"). The number of checks
+ * performed is counted, so the cost of a policy can be observed.
+ * <p>
+ * ValidationPolicies are immutable.
+ **/
+public final class ValidationPolicy {
+
+	/** Checks the whole rep. invariant after every change. */
+	public static final ValidationPolicy FULL = new ValidationPolicy("FULL", 1, true);
+
+	/** Checks only the part of the rep. invariant that a change affects. */
+	public static final ValidationPolicy BOUNDARY_ONLY =
+		new ValidationPolicy("BOUNDARY_ONLY", 1, false);
+
+	/** Checks nothing. */
+	public static final ValidationPolicy OFF = new ValidationPolicy("OFF", 0, false);
+
+	// what an object checks after one change
+	enum Check { NONE, BOUNDARY, FULL }
+
+	private static volatile ValidationPolicy defaultPolicy =
+		parse(System.getProperty("homework1.validation", "BOUNDARY_ONLY"));
+	private static final LongAdder fullChecks = new LongAdder();
+	private static final LongAdder boundaryChecks = new LongAdder();
+
+	private final String name;
+	private final int period;
+	private final boolean full;
+
+	/*
+	 * Rep. Invariant:
+	 * name != null && period >= 0 && (period == 0 => !full)
+	 * Abstraction Function:
+	 * a policy that checks after every period'th change (never if period
+	 * is 0), the whole invariant if full and only the boundary otherwise.
+	 */
+
+	private ValidationPolicy(String name, int period, boolean full) {
+		this.name = name;
+		this.period = period;
+		this.full = full;
+	}
+
+
+	/**
+	 * Returns a policy that checks the whole rep. invariant after every
+	 * n'th change.
+	 * @requires n >= 1
+	 * @return a policy that checks the whole rep. invariant of an object
+	 *         after its n'th, 2n'th, ... change, and nothing after the
+	 *         others.
+	 **/
+	public static ValidationPolicy sampled(int n) {
+		if (n < 1) {
+			throw new IllegalArgumentException();
+		}
+		return n == 1 ? FULL : new ValidationPolicy("sampled(" + n + ")", n, true);
+	}
+
+
+	/**
+	 * Returns the policy named by a string.
+	 * @requires s != null
+	 * @return the policy p such that p.toString() equals s, ignoring case.
+	 * @throws IllegalArgumentException if s names no policy.
+	 **/
+	public static ValidationPolicy parse(String s) {
+		if (s == null) {
+			throw new IllegalArgumentException();
+		}
+		String t = s.trim();
+		for (ValidationPolicy p : new ValidationPolicy[] { FULL, BOUNDARY_ONLY, OFF }) {
+			if (t.equalsIgnoreCase(p.name)) {
+				return p;
+			}
+		}
+		if (t.regionMatches(true, 0, "sampled(", 0, 8) && t.endsWith(")")) {
+			try {
+				return sampled(Integer.parseInt(t.substring(8, t.length() - 1).trim()));
+			} catch (NumberFormatException e) {
+				// fall through
+			}
+		}
+		throw new IllegalArgumentException("no validation policy " + s);
+	}
+
+
+	/**
+	 * Returns the default policy.
+	 * @return the policy of the Routes and GeoFeatures that are constructed
+	 *         without one.
+	 **/
+	public static ValidationPolicy getDefault() {
+		return defaultPolicy;
+	}
+
+
+	/**
+	 * Sets the default policy. Objects that already exist keep their
+	 * policy.
+	 * @requires policy != null
+	 * @modifies ValidationPolicy
+	 * @effects makes policy the policy of the Routes and GeoFeatures that
+	 *          are constructed without one from now on.
+	 **/
+	public static void setDefault(ValidationPolicy policy) {
+		if (policy == null) {
+			throw new IllegalArgumentException();
+		}
+		defaultPolicy = policy;
+	}
+
+
+	/**
+	 * Returns the number of checks performed.
+	 * @return the number of rep. invariant checks, full or boundary, that
+	 *         Routes and GeoFeatures have performed since the last
+	 *         resetCounts().
+	 **/
+	public static long getValidationCount() {
+		return fullChecks.sum() + boundaryChecks.sum();
+	}
+
+
+	/**
+	 * Returns the number of full checks performed.
+	 * @return the number of checks of a whole rep. invariant since the last
+	 *         resetCounts().
+	 **/
+	public static long getFullValidationCount() {
+		return fullChecks.sum();
+	}
+
+
+	/**
+	 * Resets the check counts.
+	 * @modifies ValidationPolicy
+	 * @effects sets the check counts to 0.
+	 **/
+	public static void resetCounts() {
+		fullChecks.reset();
+		boundaryChecks.reset();
+	}
+
+
+	/**
+	 * Returns the name of this policy.
+	 * @return "FULL", "BOUNDARY_ONLY", "OFF" or "sampled(n)".
+	 **/
+	public String toString() {
+		return name;
+	}
+
+
+	/**
+	 * Returns the check to run after a change.
+	 * @requires changes >= 0
+	 * @return the check to run after the changes'th change of an object,
+	 *         where its construction is change 0.
+	 **/
+	Check checkAfter(int changes) {
+		if (period == 0) {
+			return Check.NONE;
+		}
+		if (changes == 0) {
+			return Check.FULL;
+		}
+		if (!full) {
+			return Check.BOUNDARY;
+		}
+		return changes % period == 0 ? Check.FULL : Check.NONE;
+	}
+
+
+	/**
+	 * Counts a check.
+	 * @effects adds 1 to the count of full or boundary checks.
+	 **/
+	static void counted(Check check) {
+		(check == Check.FULL ? fullChecks : boundaryChecks).increment();
+	}
+}
@@ -1,5 +1,7 @@
 package homework1;
 
+import java.io.IOException;
+
 /**
  * A WalkingDirections class knows how to create a textual description of
  * directions from one location to another suitable for a pedestrian.
@@ -50,20 +52,36 @@ public class WalkingRouteFormatter extends RouteFormatter {
      * above.
      **/
   	public String computeLine(GeoFeature geoFeature, double origHeading) {
-  		
-		// Implementation hint:
-		// You may find the class java.text.DecimalFormat useful when
-		// implementing this method. More info can be found at:
-		// http://docs.oracle.com/javase/tutorial/java/data/numberformat.html
-		// and at:
-		// http://docs.oracle.com/javase/8/docs/api/java/text/DecimalFormat.html
-					 
-  		StringBuffer s = new StringBuffer();
+  		LineRenderer renderer = LineRenderer.get();
+      StringBuilder s = renderer.acquireBuffer();
+      try {
+         appendLine(geoFeature, origHeading, s);
+         return s.toString();
+      } catch (IOException e) {
+         // a StringBuilder never throws IOException
+         throw new IllegalStateException(e);
+      } finally {
+         renderer.releaseBuffer(s);
+      }
+  	}
+
 
-      s.append(getTurnString(origHeading, geoFeature.getStartHeading()));
+  	/**
+     * Appends the line computed by <tt>computeLine()</tt> to out, part by
+     * part.
+     * @requires 0 <= origHeading < 360 && out != null
+     * @modifies out
+     * @effects appends computeLine(geoFeature, origHeading) to out.
+     * @throws IOException if out throws IOException.
+     **/
+  	protected void appendLine(GeoFeature geoFeature, double origHeading, Appendable out)
+  			throws IOException {
       double minutes = geoFeature.getLength() * 20;
-      s.append(" onto " + geoFeature.getName() + " and walk for " + Math.round(minutes) + " minutes.\n");
 
-      return new String(s);
+      out.append(getTurnString(origHeading, geoFeature.getStartHeading()))
+         .append(" onto ").append(geoFeature.getName())
+         .append(" and walk for ");
+      LineRenderer.get().appendLong(Math.round(minutes), out);
+      out.append(" minutes.\n");
   	}
 }
@@ -0,0 +1,101 @@
+package tests;
+
+import homework1.*;
+import java.util.Iterator;
+
+public class ColumnarRouteTest {
+
+	private static final double tolerance = 0.0000001;
+
+	private Route mRoute;
+	private ColumnarRoute mColumnar;
+
+
+	public ColumnarRouteTest() {
+		GeoSegment[] segs = ExampleGeoSegments.segments;
+		// Hankin -> Trumpeldor x2 -> Hagalil x2 -> Hanita x2
+		mRoute = new Route(segs[0]);
+		mColumnar = new ColumnarRoute(segs[0]);
+		for (int i = 1; i <= 6; i++) {
+			mRoute = mRoute.addSegment(segs[i]);
+			mColumnar = mColumnar.addSegment(segs[i]);
+		}
+	}
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	public void test() {
+		show("counts");
+		show("7 segments", mColumnar.getSegmentCount() == 7);
+		show("4 features", mColumnar.getFeatureCount() == 4);
+
+		show("lengths");
+		double total = 0;
+		Iterator<GeoFeature> features = mRoute.getGeoFeatures();
+		int f = 0;
+		boolean featuresOk = true;
+		while (features.hasNext()) {
+			GeoFeature gf = features.next();
+			featuresOk &= same(gf.getLength(), mColumnar.getFeatureLength(f));
+			featuresOk &= gf.getName().equals(mColumnar.getFeatureName(f));
+			total += gf.getLength();
+			f++;
+		}
+		show("Feature lengths and names match Route", featuresOk);
+		show("Total length matches sum of features", same(total, mColumnar.getLength()));
+		show("Distance at first segment is 0", mColumnar.getDistanceAt(0) == 0);
+		show("Distance at end is total length",
+			same(mColumnar.getDistanceAt(7), mColumnar.getLength()));
+		show("Distance at segment 1 is first segment length",
+			same(mColumnar.getDistanceAt(1), ExampleGeoSegments.segments[0].getLength()));
+
+		show("endpoints and headings");
+		show("start", mColumnar.getStart().equals(mRoute.getStart()));
+		show("end", mColumnar.getEnd().equals(mRoute.getEnd()));
+		show("start heading", same(mColumnar.getStartHeading(), mRoute.getStartHeading()));
+		show("end heading", same(mColumnar.getEndHeading(), mRoute.getEndHeading()));
+
+		show("conversion");
+		show("toRoute() equals original", mColumnar.toRoute().equals(mRoute));
+		show("fromRoute() round trip",
+			ColumnarRoute.fromRoute(mRoute).toRoute().equals(mRoute));
+		show("getGeoSegment(4) is Hagalil", mColumnar.getGeoSegment(4).equals(ExampleGeoSegments.segments[4]));
+		show("Directions match",
+			new DrivingRouteFormatter().computeDirections(mColumnar.toRoute(), 0).equals(
+			new DrivingRouteFormatter().computeDirections(mRoute, 0)));
+
+		show("addSegment()");
+		boolean thrown = false;
+		try {
+			mColumnar.addSegment(ExampleGeoSegments.segments[0]);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Disconnected segment is rejected", thrown);
+	}
+
+
+	public static void main(String[] args) {
+		ColumnarRouteTest test = new ColumnarRouteTest();
+		test.test();
+	}
+}
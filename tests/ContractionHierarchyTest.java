@@ -0,0 +1,155 @@
+package tests;
+
+import homework1.*;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+
+public class ContractionHierarchyTest {
+
+	private static final double tolerance = 0.0000001;
+
+	private GeoPoint[][] mGrid;
+	private ArrayList<GeoSegment> mSegments;
+	private RoadGraph mGraph;
+	private RoadGraph mOneWayGraph;
+	private ContractionHierarchy mHierarchy;
+	private ContractionHierarchy mOneWayHierarchy;
+
+
+	public ContractionHierarchyTest() {
+		// a 40x40 street grid around the Technion with some streets missing
+		Random random = new Random(2024);
+		int size = 40;
+		mGrid = new GeoPoint[size][size];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				mGrid[i][j] = new GeoPoint(32700000 + i * 1000 + random.nextInt(300),
+					34900000 + j * 1000 + random.nextInt(300));
+			}
+		}
+		mSegments = new ArrayList<GeoSegment>();
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				if (j + 1 < size && random.nextInt(8) > 0)
+					mSegments.add(new GeoSegment("Street " + i, mGrid[i][j], mGrid[i][j + 1]));
+				if (i + 1 < size && random.nextInt(8) > 0)
+					mSegments.add(new GeoSegment("Avenue " + j, mGrid[i + 1][j], mGrid[i][j]));
+			}
+		}
+		mGraph = new RoadGraph(mSegments, true);
+		mOneWayGraph = new RoadGraph(mSegments, false);
+		mHierarchy = new ContractionHierarchy(mGraph);
+		mOneWayHierarchy = new ContractionHierarchy(mOneWayGraph);
+	}
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	/**
+	 * Checks that route is a chain of edges of graph from "from" to "to".
+	 */
+	static boolean isValidRoute(Route route, ArrayList<GeoSegment> segments,
+			boolean twoWay, GeoPoint from, GeoPoint to) {
+		if (!route.getStart().equals(from) || !route.getEnd().equals(to))
+			return false;
+		Iterator<GeoSegment> iter = route.getGeoSegments();
+		while (iter.hasNext()) {
+			GeoSegment s = iter.next();
+			if (!segments.contains(s) && !(twoWay && segments.contains(s.reverse())))
+				return false;
+		}
+		return true;
+	}
+
+
+	/**
+	 * Compares the hierarchy against plain A* on random queries.
+	 */
+	boolean compare(RoadGraph graph, ContractionHierarchy hierarchy, boolean twoWay, boolean checkRoutes) {
+		Random random = new Random(7);
+		boolean ok = true;
+		for (int q = 0; q < 200; q++) {
+			GeoPoint from = mGrid[random.nextInt(40)][random.nextInt(40)];
+			GeoPoint to = mGrid[random.nextInt(40)][random.nextInt(40)];
+			if (from.equals(to) || !graph.containsPoint(from) || !graph.containsPoint(to))
+				continue;
+			Route expected = graph.shortestRoute(from, to);
+			Route actual = hierarchy.shortestRoute(from, to);
+			if (expected == null || actual == null) {
+				ok &= expected == null && actual == null;
+				continue;
+			}
+			ok &= same(expected.getLength(), actual.getLength());
+			if (checkRoutes)
+				ok &= isValidRoute(actual, mSegments, twoWay, from, to);
+		}
+		return ok;
+	}
+
+
+	/**
+	 * Checks that a hierarchy that has answered a query on this thread can
+	 * be collected once it is no longer used.
+	 */
+	boolean isCollectable() {
+		ContractionHierarchy hierarchy = new ContractionHierarchy(new RoadGraph(mSegments, true));
+		hierarchy.shortestRoute(mGrid[0][0], mGrid[39][39]);
+		WeakReference<ContractionHierarchy> ref = new WeakReference<ContractionHierarchy>(hierarchy);
+		hierarchy = null;
+		for (int i = 0; i < 50 && ref.get() != null; i++) {
+			System.gc();
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return ref.get() == null;
+	}
+
+
+	public void test() {
+		show("preprocessing");
+		show("Shortcuts were added", mHierarchy.getShortcutCount() > 0);
+
+		show("shortestRoute()");
+		show("Two-way lengths match A*", compare(mGraph, mHierarchy, true, false));
+		show("Two-way routes are unpacked to segments", compare(mGraph, mHierarchy, true, true));
+		show("One-way lengths and routes match A*", compare(mOneWayGraph, mOneWayHierarchy, false, true));
+
+		show("formatting");
+		Route r = mHierarchy.shortestRoute(mGrid[0][0], mGrid[39][39]);
+		show("Unpacked route can be formatted",
+			new DrivingRouteFormatter().computeDirections(r, 0).endsWith("kilometers.\n"));
+
+		show("memory");
+		show("Query state does not keep the hierarchy alive", isCollectable());
+	}
+
+
+	public static void main(String[] args) {
+		ContractionHierarchyTest test = new ContractionHierarchyTest();
+		test.test();
+	}
+}
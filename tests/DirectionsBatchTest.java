@@ -0,0 +1,196 @@
+package tests;
+
+import homework1.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class DirectionsBatchTest {
+
+	private static final int JOBS = 300;
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// a zigzag of n segments, with a new street every 3, all named after tag
+	private static Route route(String tag, int n) {
+		GeoPoint p = new GeoPoint(32000000, 35000000);
+		Route r = null;
+		for (int i = 0; i < n; i++) {
+			GeoPoint q = new GeoPoint(p.getLatitude() + 100, p.getLongitude() + (i % 2 == 0 ? 70 : -30));
+			GeoSegment gs = new GeoSegment(tag + " " + i / 3, p, q);
+			r = r == null ? new Route(gs) : r.addSegment(gs);
+			p = q;
+		}
+		return r;
+	}
+
+
+	// jobs of different sizes and headings, so that chunks finish out of order
+	private static List<DirectionsBatch.Job> jobs(String tag) {
+		List<DirectionsBatch.Job> jobs = new ArrayList<DirectionsBatch.Job>();
+		for (int i = 0; i < JOBS; i++) {
+			jobs.add(new DirectionsBatch.Job(route(tag + i, 1 + (i * 37) % 120), (i * 13) % 360));
+		}
+		return jobs;
+	}
+
+
+	private static boolean sameAsSequential(List<DirectionsBatch.Result> results,
+			List<DirectionsBatch.Job> jobs, RouteFormatter formatter) {
+		if (results.size() != jobs.size())
+			return false;
+		for (int i = 0; i < jobs.size(); i++) {
+			DirectionsBatch.Job job = jobs.get(i);
+			if (!results.get(i).isSuccess() || !results.get(i).getDirections().equals(
+					formatter.computeDirections(job.getRoute(), job.getHeading())))
+				return false;
+		}
+		return true;
+	}
+
+
+	/**
+	 * A DrivingRouteFormatter that throws, for the features whose names
+	 * start with "Runtime", "Assertion", "Overflow" or "Memory", the
+	 * corresponding exception or error.
+	 */
+	private static class FailingFormatter extends DrivingRouteFormatter {
+		protected void appendLine(GeoFeature geoFeature, double origHeading,
+				Appendable out) throws IOException {
+			String name = geoFeature.getName();
+			if (name.startsWith("Runtime"))
+				throw new IllegalStateException(name);
+			if (name.startsWith("Assertion"))
+				throw new AssertionError(name);
+			if (name.startsWith("Overflow"))
+				throw new StackOverflowError(name);
+			if (name.startsWith("Memory"))
+				throw new OutOfMemoryError(name);
+			super.appendLine(geoFeature, origHeading, out);
+		}
+	}
+
+
+	public void test() throws Exception {
+		RouteFormatter walking = new WalkingRouteFormatter();
+		RouteFormatter driving = new DrivingRouteFormatter();
+		List<DirectionsBatch.Job> jobs = jobs("Street");
+
+		show("order");
+		show("Walking results in job order",
+			sameAsSequential(new DirectionsBatch(walking).computeDirections(jobs), jobs, walking));
+		show("Driving results in job order",
+			sameAsSequential(new DirectionsBatch(driving).computeDirections(jobs), jobs, driving));
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			show("On a given executor", sameAsSequential(
+				new DirectionsBatch(driving, pool, 4).computeDirections(jobs), jobs, driving));
+			show("More threads than jobs", sameAsSequential(
+				new DirectionsBatch(driving, pool, 64).computeDirections(jobs.subList(0, 3)),
+				jobs.subList(0, 3), driving));
+			show("No jobs", new DirectionsBatch(driving, pool, 4)
+				.computeDirections(new ArrayList<DirectionsBatch.Job>()).isEmpty());
+
+			show("concurrent use of both formatters");
+			final DirectionsBatch walkingBatch = new DirectionsBatch(walking, pool, 4);
+			final DirectionsBatch drivingBatch = new DirectionsBatch(driving, pool, 4);
+			final List<DirectionsBatch.Job> shared = jobs;
+			ExecutorService callers = Executors.newFixedThreadPool(4);
+			try {
+				List<Future<List<DirectionsBatch.Result>>> futures =
+					new ArrayList<Future<List<DirectionsBatch.Result>>>();
+				for (int k = 0; k < 8; k++) {
+					final DirectionsBatch batch = k % 2 == 0 ? walkingBatch : drivingBatch;
+					futures.add(callers.submit(() -> batch.computeDirections(shared)));
+				}
+				boolean same = true;
+				for (int k = 0; k < futures.size(); k++) {
+					same &= sameAsSequential(futures.get(k).get(), jobs, k % 2 == 0 ? walking : driving);
+				}
+				show("Batches from several threads", same);
+			} finally {
+				callers.shutdown();
+			}
+
+			show("isolation");
+			List<DirectionsBatch.Job> mixed = new ArrayList<DirectionsBatch.Job>(jobs.subList(0, 40));
+			mixed.set(5, new DirectionsBatch.Job(route("Runtime", 4), 0));
+			mixed.set(6, new DirectionsBatch.Job(route("Assertion", 4), 0));
+			mixed.set(7, new DirectionsBatch.Job(route("Overflow", 4), 0));
+			List<DirectionsBatch.Result> results =
+				new DirectionsBatch(new FailingFormatter(), pool, 2).computeDirections(mixed);
+			show("Failed jobs hold their failures",
+				results.get(5).getFailure() instanceof IllegalStateException &&
+				results.get(6).getFailure() instanceof AssertionError &&
+				results.get(7).getFailure() instanceof StackOverflowError);
+			boolean others = true;
+			for (int i = 0; i < mixed.size(); i++) {
+				if (i < 5 || i > 7) {
+					DirectionsBatch.Job job = mixed.get(i);
+					others &= results.get(i).isSuccess() && results.get(i).getDirections()
+						.equals(driving.computeDirections(job.getRoute(), job.getHeading()));
+				}
+			}
+			show("The other jobs of the chunk succeed", others);
+			boolean thrown = false;
+			try {
+				results.get(6).getDirections();
+			} catch (IllegalStateException e) {
+				thrown = e.getCause() instanceof AssertionError;
+			}
+			show("getDirections of a failed job throws", thrown);
+
+			mixed.set(20, new DirectionsBatch.Job(route("Memory", 4), 0));
+			thrown = false;
+			try {
+				new DirectionsBatch(new FailingFormatter(), pool, 2).computeDirections(mixed);
+			} catch (OutOfMemoryError e) {
+				thrown = true;
+			}
+			show("A fatal error aborts the batch", thrown);
+		} finally {
+			pool.shutdown();
+		}
+
+		show("arguments");
+		boolean thrown = false;
+		try {
+			new DirectionsBatch(driving).computeDirections(null);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Null job list", thrown);
+		thrown = false;
+		try {
+			List<DirectionsBatch.Job> withNull = new ArrayList<DirectionsBatch.Job>(jobs.subList(0, 2));
+			withNull.add(null);
+			new DirectionsBatch(driving).computeDirections(withNull);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Null job", thrown);
+	}
+
+
+	public static void main(String[] args) throws Exception {
+		DirectionsBatchTest test = new DirectionsBatchTest();
+		test.test();
+	}
+}
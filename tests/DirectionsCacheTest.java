@@ -0,0 +1,133 @@
+package tests;
+
+import homework1.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DirectionsCacheTest {
+
+	private static final int THREADS = 4;
+	private static final int LOOKUPS = 5000;
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// segments 0 to count - 1 of the example tour around the Technion
+	private static Route exampleRoute(int count) {
+		GeoSegment[] segs = ExampleGeoSegments.segments;
+		int[] path = { 0, 1, 2, 3, 4, 5, 7, 8, 9, 10, 11, 12 };
+		Route route = new Route(segs[path[0]]);
+		for (int i = 1; i < count; i++) {
+			route = route.addSegment(segs[path[i]]);
+		}
+		return route;
+	}
+
+
+	public void test() throws InterruptedException {
+		RouteFormatter walking = new WalkingRouteFormatter();
+		RouteFormatter driving = new DrivingRouteFormatter();
+
+		show("hits and misses");
+		DirectionsCache cache = new DirectionsCache(1 << 20);
+		Route route = exampleRoute(6);
+		String first = cache.computeDirections(driving, route, 0);
+		show("First lookup misses", first.equals(driving.computeDirections(route, 0)) &&
+			cache.getMisses() == 1 && cache.getHits() == 0 && cache.size() == 1);
+		show("Same route hits", cache.computeDirections(driving, route, 0) == first &&
+			cache.getHits() == 1);
+		show("Equal route hits", cache.computeDirections(driving, exampleRoute(6), 0) == first &&
+			cache.getHits() == 2);
+		show("Other heading misses", cache.computeDirections(driving, route, 90)
+			.equals(driving.computeDirections(route, 90)) && cache.getMisses() == 2);
+		show("Other formatter misses", cache.computeDirections(walking, route, 0)
+			.equals(walking.computeDirections(route, 0)) && cache.getMisses() == 3);
+
+		show("mutated routes");
+		route = route.addSegment(ExampleGeoSegments.segments[7]);
+		show("Extended route misses", cache.computeDirections(driving, route, 0)
+			.equals(driving.computeDirections(route, 0)) && cache.getMisses() == 4);
+		show("Old entry still matches the old route",
+			cache.computeDirections(driving, exampleRoute(6), 0) == first);
+
+		show("eviction");
+		String one = driving.computeDirections(exampleRoute(1), 0);
+		String two = driving.computeDirections(exampleRoute(2), 0);
+		// room for the first two entries but not a third
+		cache = new DirectionsCache(one.length() + 1 + two.length() + 2);
+		cache.computeDirections(driving, exampleRoute(1), 0);
+		cache.computeDirections(driving, exampleRoute(2), 0);
+		show("Both fit", cache.size() == 2 && cache.getEvictions() == 0 &&
+			cache.getWeight() == one.length() + 1 + two.length() + 2);
+		cache.computeDirections(driving, exampleRoute(1), 0);
+		cache.computeDirections(driving, exampleRoute(3), 0);
+		show("Least recently used is evicted", cache.getEvictions() >= 1 &&
+			cache.getWeight() <= one.length() + 1 + two.length() + 2);
+		long hits = cache.getHits();
+		cache.computeDirections(driving, exampleRoute(1), 0);
+		show("Recently used entry is kept", cache.getHits() == hits + 1);
+		long misses = cache.getMisses();
+		cache.computeDirections(driving, exampleRoute(2), 0);
+		show("Evicted entry misses", cache.getMisses() == misses + 1);
+		DirectionsCache tiny = new DirectionsCache(1);
+		show("Oversized entry is not cached", tiny.computeDirections(driving, route, 0)
+			.equals(driving.computeDirections(route, 0)) && tiny.size() == 0);
+		boolean thrown = false;
+		try {
+			new DirectionsCache(0);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Zero weight is rejected", thrown);
+
+		show("concurrent lookups");
+		final DirectionsCache shared = new DirectionsCache(1 << 20);
+		final RouteFormatter formatter = driving;
+		final boolean[] correct = new boolean[THREADS];
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < THREADS; t++) {
+			final int id = t;
+			threads.add(new Thread(() -> {
+				boolean ok = true;
+				for (int i = 0; i < LOOKUPS; i++) {
+					Route r = exampleRoute(1 + i % 12);
+					ok &= shared.computeDirections(formatter, r, 0)
+						.equals(formatter.computeDirections(r, 0));
+				}
+				correct[id] = ok;
+			}));
+		}
+		for (Thread t : threads) {
+			t.start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		boolean allCorrect = true;
+		for (boolean ok : correct) {
+			allCorrect &= ok;
+		}
+		show("Every lookup is correct", allCorrect);
+		show("Every lookup is counted", shared.getHits() + shared.getMisses() == THREADS * LOOKUPS);
+		show("Mostly hits", shared.size() == 12 && shared.getHits() >= THREADS * LOOKUPS - 12 * THREADS);
+	}
+
+
+	public static void main(String[] args) throws InterruptedException {
+		DirectionsCacheTest test = new DirectionsCacheTest();
+		test.test();
+	}
+}
@@ -0,0 +1,183 @@
+package tests;
+
+import homework1.*;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class DirectionsServerTest {
+
+	private static final int CONCURRENT = 200;
+	// directions requests sent before the concurrent ones
+	private static final int SEQUENTIAL = 11;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+	private String base;
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// the example segments from Hankin Road around the Technion and back
+	private static Route exampleRoute() {
+		GeoSegment[] segs = ExampleGeoSegments.segments;
+		int[] path = { 0, 1, 2, 3, 4, 5, 7, 8, 9, 10, 11, 12 };
+		Route route = new Route(segs[path[0]]);
+		for (int i = 1; i < path.length; i++) {
+			route = route.addSegment(segs[path[i]]);
+		}
+		return route;
+	}
+
+
+	private static String encode(Route route, double heading) {
+		StringBuilder s = new StringBuilder();
+		s.append(heading).append('\n');
+		Iterator<GeoSegment> iter = route.getGeoSegments();
+		while (iter.hasNext()) {
+			GeoSegment gs = iter.next();
+			s.append(gs.getName()).append('\t')
+				.append(gs.getP1().getLatitude()).append('\t')
+				.append(gs.getP1().getLongitude()).append('\t')
+				.append(gs.getP2().getLatitude()).append('\t')
+				.append(gs.getP2().getLongitude()).append('\n');
+		}
+		return s.toString();
+	}
+
+
+	private static String expected(Route route, double heading) {
+		return "walking\n" + new WalkingRouteFormatter().computeDirections(route, heading) +
+			"driving\n" + new DrivingRouteFormatter().computeDirections(route, heading);
+	}
+
+
+	private HttpRequest post(String path, String body) {
+		return HttpRequest.newBuilder(URI.create(base + path))
+			.POST(HttpRequest.BodyPublishers.ofString(body)).build();
+	}
+
+
+	private HttpResponse<String> send(HttpRequest request)
+			throws IOException, InterruptedException {
+		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+
+	public void test() throws IOException, InterruptedException {
+		DirectionsServer server = new DirectionsServer(
+			new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 64);
+		server.start();
+		base = "http://localhost:" + server.getPort();
+		try {
+			Route route = exampleRoute();
+
+			show("single route");
+			HttpResponse<String> r = send(post("/directions", encode(route, 90)));
+			show("Status 200", r.statusCode() == 200);
+			show("Directions match the formatters", r.body().equals(expected(route, 90)));
+
+			show("batch");
+			Route other = new Route(ExampleGeoSegments.segments[13])
+				.addSegment(ExampleGeoSegments.segments[14])
+				.addSegment(ExampleGeoSegments.segments[15]);
+			r = send(post("/directions/batch", encode(route, 0) + "\n" + encode(other, 180.5)));
+			show("Status 200", r.statusCode() == 200);
+			show("Routes answered in order", r.body().equals(
+				expected(route, 0) + "\n" + expected(other, 180.5)));
+
+			show("bad requests");
+			show("Bad heading is 400", send(post("/directions", "north\n")).statusCode() == 400);
+			show("Heading out of range is 400",
+				send(post("/directions", encode(route, 360))).statusCode() == 400);
+			show("Disconnected segments are 400", send(post("/directions",
+				"0\na\t1\t1\t2\t2\nb\t3\t3\t4\t4\n")).statusCode() == 400);
+			show("Missing fields are 400",
+				send(post("/directions", "0\na\t1\t1\t2\n")).statusCode() == 400);
+			show("Two routes to /directions are 400", send(post("/directions",
+				encode(route, 0) + "\n" + encode(route, 0))).statusCode() == 400);
+			show("Empty body is 400", send(post("/directions", "")).statusCode() == 400);
+			show("GET is 405", send(HttpRequest.newBuilder(URI.create(base + "/directions"))
+				.GET().build()).statusCode() == 405);
+			show("Unknown path is 404",
+				send(post("/directions/other", encode(route, 0))).statusCode() == 404);
+			StringBuilder big = new StringBuilder();
+			while (big.length() <= DirectionsServer.MAX_BODY_BYTES) {
+				big.append(encode(route, 0));
+			}
+			show("Oversized body is 413",
+				send(post("/directions/batch", big.toString())).statusCode() == 413);
+
+			show("concurrent clients");
+			List<CompletableFuture<HttpResponse<String>>> futures =
+				new ArrayList<CompletableFuture<HttpResponse<String>>>();
+			for (int i = 0; i < CONCURRENT; i++) {
+				futures.add(client.sendAsync(post("/directions", encode(route, i)),
+					HttpResponse.BodyHandlers.ofString()));
+			}
+			boolean answered = true;
+			for (int i = 0; i < CONCURRENT; i++) {
+				HttpResponse<String> f = futures.get(i).join();
+				// with maxInFlight < CONCURRENT some requests may be rejected
+				answered &= f.statusCode() == 503 ||
+					(f.statusCode() == 200 && f.body().equals(expected(route, i)));
+			}
+			show("Every request is answered correctly or rejected", answered);
+
+			show("stats");
+			r = send(HttpRequest.newBuilder(URI.create(base + "/stats")).GET().build());
+			show("Status 200", r.statusCode() == 200);
+			show("Counts all directions requests",
+				r.body().startsWith("requests " + (SEQUENTIAL + CONCURRENT) + "\n"));
+			show("Nothing in flight", r.body().contains("\ninFlight 0\n"));
+			// a latency is recorded just after its response is sent
+			LatencyHistogram latency = server.getLatency();
+			for (int i = 0; i < 100 && latency.getCount() < SEQUENTIAL + CONCURRENT; i++) {
+				Thread.sleep(10);
+			}
+			show("Latency recorded", latency.getCount() == SEQUENTIAL + CONCURRENT &&
+				latency.getPercentile(50) <= latency.getMax());
+		} finally {
+			server.stop(0);
+		}
+
+		show("latency histogram");
+		LatencyHistogram h = new LatencyHistogram();
+		show("Empty histogram", h.getCount() == 0 && h.getPercentile(99) == 0);
+		for (int i = 1; i <= 1000; i++) {
+			h.record(i * 1000L);
+		}
+		long p50 = h.getPercentile(50);
+		long p99 = h.getPercentile(99);
+		show("Percentiles within 1/16", p50 >= 500000 && p50 <= 500000 + 500000 / 16 &&
+			p99 >= 990000 && p99 <= 990000 + 990000 / 16);
+		show("Max and mean", h.getMax() == 1000000 && h.getMean() == 500500);
+		show("p100 is the max", h.getPercentile(100) == 1000000);
+	}
+
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		DirectionsServerTest test = new DirectionsServerTest();
+		test.test();
+	}
+}
@@ -0,0 +1,124 @@
+package tests;
+
+import homework1.*;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Random;
+
+public class FormatterRenderingTest {
+
+	private static final int FEATURES = 20000;
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// a route of one-segment features of random lengths, up to about a kilometer
+	private static Route randomRoute(long seed) {
+		Random random = new Random(seed);
+		GeoPoint p = new GeoPoint(31000000, 34800000);
+		Route route = null;
+		for (int f = 0; f < FEATURES; f++) {
+			int scale = 1 << random.nextInt(14);
+			GeoPoint q;
+			do {
+				q = new GeoPoint(p.getLatitude() + random.nextInt(2 * scale + 1) - scale,
+					p.getLongitude() + random.nextInt(2 * scale + 1) - scale);
+			} while (q.equals(p) || Math.abs(q.getLatitude() - 31000000) > 1000000);
+			GeoSegment gs = new GeoSegment("Street " + f, p, q);
+			route = route == null ? new Route(gs) : route.addSegment(gs);
+			p = q;
+		}
+		return route;
+	}
+
+
+	// the lines as the formatters wrote them with DecimalFormat and Long.toString
+	private static String reference(Route route, double heading, boolean driving) {
+		RouteFormatter turns = new WalkingRouteFormatter();
+		StringBuilder s = new StringBuilder();
+		Iterator<GeoFeature> iter = route.getGeoFeatures();
+		while (iter.hasNext()) {
+			GeoFeature gf = iter.next();
+			String line = turns.computeLine(gf, heading);
+			String turn = line.substring(0, line.indexOf(" onto "));
+			if (driving) {
+				s.append(turn + " onto " + gf.getName() + " and go " +
+					new DecimalFormat("#.#").format(gf.getLength()) + " kilometers.\n");
+			} else {
+				s.append(turn + " onto " + gf.getName() + " and walk for " +
+					Math.round(gf.getLength() * 20) + " minutes.\n");
+			}
+			heading = gf.getEndHeading();
+		}
+		return s.toString();
+	}
+
+
+	public void test() {
+		RouteFormatter walking = new WalkingRouteFormatter();
+		RouteFormatter driving = new DrivingRouteFormatter();
+		Route route = randomRoute(11);
+
+		show("same text as before");
+		show("Driving directions", driving.computeDirections(route, 0).equals(reference(route, 0, true)));
+		show("Walking directions", walking.computeDirections(route, 0).equals(reference(route, 0, false)));
+		String[] expected = reference(route, 0, true).split("\n");
+		Iterator<GeoFeature> iter = route.getGeoFeatures();
+		double heading = 0;
+		boolean lines = true;
+		for (int i = 0; iter.hasNext(); i++) {
+			GeoFeature gf = iter.next();
+			lines &= driving.computeLine(gf, heading).equals(expected[i] + "\n");
+			heading = gf.getEndHeading();
+		}
+		show("Single lines", lines);
+
+		show("other locales");
+		Locale saved = Locale.getDefault(Locale.Category.FORMAT);
+		try {
+			for (String tag : new String[] { "de-DE", "ar-EG", "hi-IN-u-nu-deva" }) {
+				Locale.setDefault(Locale.Category.FORMAT, Locale.forLanguageTag(tag));
+				show("Driving directions in " + tag,
+					driving.computeDirections(route, 0).equals(reference(route, 0, true)));
+			}
+		} finally {
+			Locale.setDefault(Locale.Category.FORMAT, saved);
+		}
+		show("Default locale restored",
+			driving.computeDirections(route, 0).equals(reference(route, 0, true)));
+
+		show("nested formatting");
+		final RouteFormatter inner = new DrivingRouteFormatter();
+		RouteFormatter nested = new DrivingRouteFormatter() {
+			// builds each line with another formatter while the directions
+			// are being built
+			protected void appendLine(GeoFeature geoFeature, double origHeading,
+					Appendable out) throws IOException {
+				out.append(inner.computeLine(geoFeature, origHeading));
+			}
+		};
+		show("Nested use of the line buffer",
+			nested.computeDirections(route, 0).equals(driving.computeDirections(route, 0)));
+	}
+
+
+	public static void main(String[] args) {
+		FormatterRenderingTest test = new FormatterRenderingTest();
+		test.test();
+	}
+}
@@ -0,0 +1,100 @@
+package tests;
+
+import homework1.*;
+
+public class GeoKernelsTest {
+
+	private GeoPoint[] mPoints;
+	private int[] mLats;
+	private int[] mLons;
+
+
+	public GeoKernelsTest() {
+		mPoints = ExampleGeoSegments.points;
+		mLats = new int[mPoints.length];
+		mLons = new int[mPoints.length];
+		for (int i = 0; i < mPoints.length; i++) {
+			mLats[i] = mPoints[i].getLatitude();
+			mLons[i] = mPoints[i].getLongitude();
+		}
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	public void test() {
+		int n = mPoints.length;
+		GeoPoint p = mPoints[0];
+
+		show("one to many");
+		double[] out = new double[n];
+		GeoKernels.distances(p.getLatitude(), p.getLongitude(), mLats, mLons, 0, n, out);
+		boolean ok = true;
+		for (int i = 0; i < n; i++) {
+			ok &= out[i] == p.distanceTo(mPoints[i]);
+		}
+		show("distances() equal distanceTo() exactly", ok);
+
+		GeoKernels.squaredDistances(p.getLatitude(), p.getLongitude(), mLats, mLons, 0, n, out);
+		ok = true;
+		for (int i = 0; i < n; i++) {
+			ok &= Math.sqrt(out[i]) == p.distanceTo(mPoints[i]);
+		}
+		show("squaredDistances() are the squares of distanceTo()", ok);
+
+		int nearest = GeoKernels.nearest(mLats[3], mLons[3], mLats, mLons, 1, n);
+		show("nearest() finds the point itself", nearest == 3);
+		int within = GeoKernels.countWithin(p.getLatitude(), p.getLongitude(),
+			mLats, mLons, 0, n, p.distanceTo(mPoints[1]));
+		int expected = 0;
+		for (int i = 0; i < n; i++) {
+			if (p.distanceTo(mPoints[i]) <= p.distanceTo(mPoints[1])) {
+				expected++;
+			}
+		}
+		show("countWithin() counts the points in the radius", within == expected);
+
+		show("polyline");
+		double[] segs = new double[n - 1];
+		GeoKernels.segmentLengths(mLats, mLons, n, segs);
+		ok = true;
+		for (int i = 0; i < n - 1; i++) {
+			ok &= segs[i] == mPoints[i].distanceTo(mPoints[i + 1]);
+		}
+		show("segmentLengths() equal distanceTo() exactly", ok);
+		GeoKernels.segmentHeadings(mLats, mLons, n, segs);
+		ok = true;
+		for (int i = 0; i < n - 1; i++) {
+			ok &= segs[i] == mPoints[i].headingTo(mPoints[i + 1]);
+		}
+		show("segmentHeadings() equal headingTo() exactly", ok);
+
+		show("bad arguments");
+		boolean thrown = false;
+		try {
+			GeoKernels.distances(0, 0, mLats, mLons, 0, n + 1, new double[n + 1]);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Range past the end is rejected", thrown);
+	}
+
+
+	public static void main(String[] args) {
+		GeoKernelsTest test = new GeoKernelsTest();
+		test.test();
+	}
+}
@@ -0,0 +1,106 @@
+package tests;
+
+import homework1.*;
+
+public class GeoPointTableTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// whether get(i) of table throws IndexOutOfBoundsException
+	private static boolean outOfBounds(GeoPointTable table, int i) {
+		try {
+			table.get(i);
+		} catch (IndexOutOfBoundsException e) {
+			return true;
+		}
+		return false;
+	}
+
+
+	public void test() {
+		GeoPoint[] points = ExampleGeoSegments.points;
+
+		show("add and grow");
+		// a capacity of 2 makes the table grow several times
+		GeoPointTable table = new GeoPointTable(2);
+		show("New table is empty", table.size() == 0);
+		boolean indices = true;
+		for (int i = 0; i < points.length; i++) {
+			indices &= table.add(points[i]) == i;
+		}
+		show("add() returns the index of the new point", indices);
+		show("Size counts all the points", table.size() == points.length);
+		show("add() of coordinates", table.add(32000000, -35000000) == points.length &&
+			table.size() == points.length + 1);
+		GeoPointTable empty = new GeoPointTable(0);
+		show("Empty capacity grows", empty.add(points[0]) == 0 && empty.size() == 1);
+
+		show("get");
+		boolean fields = true;
+		for (int i = 0; i < points.length; i++) {
+			fields &= table.getLatitude(i) == points[i].getLatitude() &&
+				table.getLongitude(i) == points[i].getLongitude();
+		}
+		show("Coordinates of every point survive growing", fields);
+		boolean equal = true;
+		for (int i = 0; i < points.length; i++) {
+			GeoPoint gp = table.get(i);
+			equal &= gp.equals(points[i]) && gp.hashCode() == points[i].hashCode();
+		}
+		show("Rebuilt GeoPoints are equal to the originals", equal);
+		show("Rebuilt GeoPoints are new objects", table.get(0) != table.get(0));
+		show("Point added by coordinates",
+			table.get(points.length).equals(new GeoPoint(32000000, -35000000)));
+		show("Distance and heading agree with GeoPoint",
+			table.distanceTo(0, 1) == points[0].distanceTo(points[1]) &&
+			table.headingTo(0, 1) == points[0].headingTo(points[1]));
+		table.trimToSize();
+		show("trimToSize() keeps the points", table.size() == points.length + 1 &&
+			table.get(3).equals(points[3]));
+
+		show("bounds");
+		show("Negative index is rejected", outOfBounds(table, -1));
+		show("Index past the end is rejected", outOfBounds(table, table.size()));
+		show("Index into an empty table is rejected", outOfBounds(new GeoPointTable(), 0));
+		boolean thrown = false;
+		try {
+			table.getLatitude(table.size());
+		} catch (IndexOutOfBoundsException e) {
+			thrown = true;
+		}
+		show("getLatitude() past the end is rejected", thrown);
+		thrown = false;
+		try {
+			table.add(GeoPoint.MAX_LATITUDE + 1, 0);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Latitude out of range is rejected", thrown && table.size() == points.length + 1);
+		thrown = false;
+		try {
+			new GeoPointTable(-1);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Negative capacity is rejected", thrown);
+	}
+
+
+	public static void main(String[] args) {
+		GeoPointTableTest test = new GeoPointTableTest();
+		test.test();
+	}
+}
@@ -0,0 +1,64 @@
+package tests;
+
+import homework1.*;
+import java.util.HashSet;
+
+public class GeoPointTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// the number of distinct hash codes of a size x size grid of points,
+	// step microdegrees apart
+	private static int distinctHashes(int size, int step) {
+		HashSet<Integer> hashes = new HashSet<Integer>();
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				hashes.add(new GeoPoint(32000000 + i * step, 35000000 + j * step).hashCode());
+			}
+		}
+		return hashes.size();
+	}
+
+
+	public void test() {
+		show("hashCode");
+		show(".equals() objects must have the same .hashCode()",
+			new GeoPoint(32000000, -35000000).hashCode() == new GeoPoint(32000000, -35000000).hashCode());
+		show("Swapped coordinates have different .hashCode()",
+			new GeoPoint(32000000, 35000000).hashCode() != new GeoPoint(35000000, 32000000).hashCode());
+		show("Neighbours on a fine grid have distinct .hashCode()", distinctHashes(300, 1) >= 300 * 299);
+		show("Points on a coarse grid have distinct .hashCode()", distinctHashes(300, 100) >= 300 * 299);
+
+		show("equals");
+		GeoPoint zivSquare = new GeoPoint(32783098, 35014528);
+		GeoPoint zivSquare2 = new GeoPoint(32783098, 35014528);
+		show("Equal to a point with the same coordinates", zivSquare.equals(zivSquare2));
+		show("equals(non-GeoPoint) should be false", !zivSquare.equals("aString"));
+		show("equals(null) should be false", !zivSquare.equals(null));
+
+		show("GeoPointPool");
+		GeoPointPool pool = new GeoPointPool();
+		show("Pooled equal points are the same instance",
+			pool.intern(zivSquare) == pool.intern(zivSquare2));
+		show("Pooled point is equal to the original", pool.intern(zivSquare2).equals(zivSquare2));
+	}
+
+
+	public static void main(String[] args) {
+		GeoPointTest test = new GeoPointTest();
+		test.test();
+	}
+}
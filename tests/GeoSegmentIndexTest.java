@@ -0,0 +1,145 @@
+package tests;
+
+import homework1.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+public class GeoSegmentIndexTest {
+
+	private static final double tolerance = 0.0000001;
+
+	private GeoSegment[] mSegments;
+	private GeoSegmentIndex mIndex;
+	private GeoSegmentIndex mExampleIndex;
+
+
+	public GeoSegmentIndexTest() {
+		// a random catalog of short segments around the Technion
+		Random random = new Random(236703);
+		mSegments = new GeoSegment[5000];
+		for (int i = 0; i < mSegments.length; i++) {
+			int lat = 32700000 + random.nextInt(200000);
+			int lon = 34900000 + random.nextInt(200000);
+			mSegments[i] = new GeoSegment("Street " + i, new GeoPoint(lat, lon),
+				new GeoPoint(lat + random.nextInt(4001) - 2000, lon + random.nextInt(4001) - 2000));
+		}
+		mIndex = new GeoSegmentIndex(mSegments);
+		mExampleIndex = new GeoSegmentIndex(ExampleGeoSegments.segments);
+	}
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	public void test() {
+		show("size()");
+		show("Index holds all segments", mIndex.size() == mSegments.length);
+
+		show("nearest()");
+		show("Nearest to an intersection touches it",
+			same(mExampleIndex.nearest(ExampleGeoSegments.points[4]).distanceTo(
+				ExampleGeoSegments.points[4]), 0));
+		Random random = new Random(1);
+		boolean nearestOk = true;
+		boolean knnOk = true;
+		for (int q = 0; q < 200; q++) {
+			GeoPoint p = new GeoPoint(32700000 + random.nextInt(200000),
+				34900000 + random.nextInt(200000));
+			double best = Double.POSITIVE_INFINITY;
+			ArrayList<Double> all = new ArrayList<Double>();
+			for (GeoSegment s : mSegments) {
+				best = Math.min(best, s.distanceTo(p));
+				all.add(s.distanceTo(p));
+			}
+			nearestOk &= same(mIndex.nearest(p).distanceTo(p), best);
+
+			all.sort(null);
+			List<GeoSegment> knn = mIndex.nearest(p, 10);
+			knnOk &= knn.size() == 10;
+			for (int i = 0; i < knn.size(); i++) {
+				knnOk &= same(knn.get(i).distanceTo(p), all.get(i));
+			}
+		}
+		show("Nearest segment matches a linear scan", nearestOk);
+		show("10 nearest segments match a linear scan", knnOk);
+		show("k larger than the catalog returns everything",
+			mExampleIndex.nearest(ExampleGeoSegments.points[0], 100).size() ==
+			ExampleGeoSegments.segments.length);
+
+		show("intersecting()");
+		boolean boxOk = true;
+		for (int q = 0; q < 100; q++) {
+			int lat = 32700000 + random.nextInt(200000);
+			int lon = 34900000 + random.nextInt(200000);
+			int dLat = random.nextInt(10000);
+			int dLon = random.nextInt(10000);
+			HashSet<GeoSegment> expected = new HashSet<GeoSegment>();
+			for (GeoSegment s : mSegments) {
+				if (intersects(s, lat, lon, lat + dLat, lon + dLon)) {
+					expected.add(s);
+				}
+			}
+			List<GeoSegment> found = mIndex.intersecting(lat, lon, lat + dLat, lon + dLon);
+			boxOk &= found.size() == expected.size() && expected.containsAll(found);
+		}
+		show("Box query matches a linear scan", boxOk);
+		show("Degenerate box at Ziv square finds its 2 segments",
+			mExampleIndex.intersecting(ExampleGeoSegments.points[1],
+				ExampleGeoSegments.points[1]).size() == 2);
+
+		show("empty index");
+		GeoSegmentIndex empty = new GeoSegmentIndex(new GeoSegment[0]);
+		show("No neighbours", empty.nearest(ExampleGeoSegments.points[0], 3).isEmpty());
+	}
+
+
+	/**
+	 * Reference segment / box intersection test (Liang-Barsky clipping).
+	 */
+	private static boolean intersects(GeoSegment s, int minLat, int minLon,
+			int maxLat, int maxLon) {
+		double x0 = s.getP1().getLongitude(), y0 = s.getP1().getLatitude();
+		double dx = s.getP2().getLongitude() - x0, dy = s.getP2().getLatitude() - y0;
+		double[] p = { -dx, dx, -dy, dy };
+		double[] q = { x0 - minLon, maxLon - x0, y0 - minLat, maxLat - y0 };
+		double t0 = 0, t1 = 1;
+		for (int i = 0; i < 4; i++) {
+			if (p[i] == 0) {
+				if (q[i] < 0)
+					return false;
+			} else {
+				double t = q[i] / p[i];
+				if (p[i] < 0)
+					t0 = Math.max(t0, t);
+				else
+					t1 = Math.min(t1, t);
+			}
+		}
+		return t0 <= t1;
+	}
+
+
+	public static void main(String[] args) {
+		GeoSegmentIndexTest test = new GeoSegmentIndexTest();
+		test.test();
+	}
+}
@@ -80,6 +80,9 @@ public class GeoSegmentTest {
 		show("hashCode()");
 		show(".equals() objects must have the same .hashCode()",
 			gsNorth.hashCode() == gsNorth2.hashCode());
+		show("Different segments should usually have different .hashCode()",
+			gsEast.hashCode() != gsEast2.hashCode() &&
+			gsEast2.hashCode() != gsWest2.hashCode());
 		   		
 		show("reverse()");
 		show("Reversed segment is equal to same segment reversed.",
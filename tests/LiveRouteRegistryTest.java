@@ -0,0 +1,119 @@
+package tests;
+
+import homework1.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class LiveRouteRegistryTest {
+
+	private static final int THREADS = 4;
+	private static final int REPORTS = 20000;
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	private static void runAll(List<Thread> threads) throws InterruptedException {
+		for (Thread t : threads) {
+			t.start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+	}
+
+
+	public void test() throws InterruptedException {
+		final LiveRouteRegistry registry = new LiveRouteRegistry();
+		GeoSegment[] segs = ExampleGeoSegments.segments;
+
+		show("single vehicle");
+		LiveRouteRegistry.Snapshot s = registry.appendPosition("taxi", segs[0].getP1(), "Hankin Road");
+		show("First report sets the position only", s.getRoute() == null && s.getLength() == 0 &&
+			s.getPosition().equals(segs[0].getP1()));
+		s = registry.appendPosition("taxi", segs[0].getP2(), "Hankin Road");
+		show("Second report adds a segment", s.getSegmentCount() == 1 &&
+			s.getRoute().getSegment(0).equals(segs[0]));
+		s = registry.append("taxi", segs[1]);
+		show("Current feature", s.getCurrentFeatureName().equals("Trumpeldor Avenue") &&
+			s.getHeading() == segs[1].getHeading());
+		boolean thrown = false;
+		try {
+			registry.append("taxi", segs[5]);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Disconnected segment is rejected", thrown);
+		show("Removed vehicle is unknown", registry.remove("taxi") != null &&
+			registry.getSnapshot("taxi") == null && registry.size() == 0);
+
+		show("concurrent appends to one vehicle");
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < THREADS; t++) {
+			final int id = t;
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < REPORTS; i++) {
+					// every report is at a different point
+					registry.appendPosition("bus", new GeoPoint(32000000 + i, 35000000 + id), "Street " + id);
+				}
+			}));
+		}
+		runAll(threads);
+		PersistentRoute bus = registry.getSnapshot("bus").getRoute();
+		show("No report is lost", bus.getSegmentCount() == THREADS * REPORTS - 1);
+		boolean chain = true;
+		for (int i = 1; i < bus.getSegmentCount(); i++) {
+			chain &= bus.getSegment(i - 1).getP2().equals(bus.getSegment(i).getP1());
+		}
+		show("Segments form one path", chain);
+
+		show("many vehicles with readers");
+		threads.clear();
+		final AtomicBoolean consistent = new AtomicBoolean(true);
+		for (int t = 0; t < THREADS; t++) {
+			final String vehicle = "car " + t;
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < REPORTS; i++) {
+					registry.appendPosition(vehicle, new GeoPoint(32000000 + i, 35000000), "Road");
+				}
+			}));
+		}
+		threads.add(new Thread(() -> {
+			for (int i = 0; i < REPORTS; i++) {
+				LiveRouteRegistry.Snapshot snapshot = registry.getSnapshot("car 0");
+				if (snapshot != null && snapshot.getRoute() != null &&
+					!snapshot.getRoute().getEnd().equals(snapshot.getPosition())) {
+					consistent.set(false);
+				}
+			}
+		}));
+		runAll(threads);
+		boolean counts = true;
+		for (int t = 0; t < THREADS; t++) {
+			counts &= registry.getSnapshot("car " + t).getSegmentCount() == REPORTS - 1;
+		}
+		show("Every vehicle has all its segments", counts);
+		show("Snapshots are consistent", consistent.get());
+		show("All vehicles are known", registry.size() == THREADS + 1 &&
+			registry.getVehicleIds().contains("car 3"));
+	}
+
+
+	public static void main(String[] args) throws InterruptedException {
+		LiveRouteRegistryTest test = new LiveRouteRegistryTest();
+		test.test();
+	}
+}
@@ -0,0 +1,107 @@
+package tests;
+
+import homework1.*;
+import java.util.Iterator;
+
+public class PersistentRouteTest {
+
+	private static final double tolerance = 0.0000001;
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	public void test() {
+		GeoSegment[] segs = ExampleGeoSegments.segments;
+		Route route = new Route(segs[0]);
+		PersistentRoute persistent = new PersistentRoute(segs[0]);
+		for (int i = 1; i <= 6; i++) {
+			route = route.addSegment(segs[i]);
+			persistent = persistent.addSegment(segs[i]);
+		}
+
+		show("same as Route");
+		show("7 segments", persistent.getSegmentCount() == 7);
+		show("4 features", persistent.getFeatureCount() == 4);
+		show("length", same(persistent.getLength(), route.getLength()));
+		show("start and end", persistent.getStart().equals(route.getStart()) &&
+			persistent.getEnd().equals(route.getEnd()));
+		show("headings", persistent.getStartHeading() == route.getStartHeading() &&
+			persistent.getEndHeading() == route.getEndHeading());
+		Iterator<GeoFeature> a = persistent.getGeoFeatures();
+		Iterator<GeoFeature> b = route.getGeoFeatures();
+		boolean features = true;
+		while (b.hasNext()) {
+			features &= a.hasNext() && a.next().equals(b.next());
+		}
+		show("Features equal Route's", features && !a.hasNext());
+		show("toRoute() equals Route", persistent.toRoute().equals(route));
+		show("fromRoute() round trip", PersistentRoute.fromRoute(route).equals(persistent));
+		show("Last feature is Hanita", persistent.getLastFeatureName().equals("Hanita"));
+
+		show("structural sharing");
+		PersistentRoute base = new PersistentRoute(segs[0]);
+		PersistentRoute one = base.addSegment(segs[1]);
+		PersistentRoute other = base.addSegment(
+			new GeoSegment("Other", segs[0].getP2(), segs[5].getP2()));
+		show("Base is unchanged", base.getSegmentCount() == 1 && base.getFeatureCount() == 1 &&
+			same(base.getLength(), segs[0].getLength()));
+		show("Branches differ", !one.equals(other) && one.getSegment(1).equals(segs[1]) &&
+			other.getLastFeatureName().equals("Other"));
+		show("Modifying a returned feature does not change the route", tryModify(persistent));
+
+		show("long routes");
+		GeoPoint p = new GeoPoint(32000000, 35000000);
+		PersistentRoute path = null;
+		PersistentRoute half = null;
+		int n = 100000;
+		for (int i = 0; i < n; i++) {
+			GeoPoint q = new GeoPoint(p.getLatitude() + 100, p.getLongitude() + (i & 1) * 50);
+			GeoSegment gs = new GeoSegment("Street " + (i / 10), p, q);
+			path = path == null ? new PersistentRoute(gs) : path.addSegment(gs);
+			if (i == n / 2) {
+				half = path;
+			}
+			p = q;
+		}
+		show("100000 segments", path.getSegmentCount() == n && path.getFeatureCount() == n / 10);
+		boolean chain = true;
+		for (int i = 1; i < n; i++) {
+			chain &= path.getSegment(i - 1).getP2().equals(path.getSegment(i).getP1());
+		}
+		show("Segments are in order", chain);
+		show("Earlier version is unchanged", half.getSegmentCount() == n / 2 + 1);
+		show("Earlier version shares the segments", half.getSegment(n / 2) == path.getSegment(n / 2));
+	}
+
+
+	private static boolean tryModify(PersistentRoute r) {
+		GeoFeature gf = r.getFeature(0);
+		int count = r.getSegmentCount();
+		gf.addSegment(new GeoSegment(gf.getName(), gf.getEnd(), new GeoPoint(32000000, 35000000)));
+		return r.getSegmentCount() == count && r.getFeature(0).equals(r.toRoute().getGeoFeatures().next());
+	}
+
+
+	public static void main(String[] args) {
+		PersistentRouteTest test = new PersistentRouteTest();
+		test.test();
+	}
+}
@@ -0,0 +1,166 @@
+package tests;
+
+import homework1.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Random;
+
+public class RoadGraphTest {
+
+	private static final double tolerance = 0.0000001;
+
+	private RoadGraph mExampleGraph;
+	private GeoPoint[][] mGrid;
+	private ArrayList<GeoSegment> mGridSegments;
+	private RoadGraph mGridGraph;
+
+
+	public RoadGraphTest() {
+		mExampleGraph = new RoadGraph(ExampleGeoSegments.segments, true);
+
+		// a 30x30 street grid around the Technion with some streets missing
+		Random random = new Random(6170);
+		int size = 30;
+		mGrid = new GeoPoint[size][size];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				mGrid[i][j] = new GeoPoint(32700000 + i * 1000 + random.nextInt(300),
+					34900000 + j * 1000 + random.nextInt(300));
+			}
+		}
+		mGridSegments = new ArrayList<GeoSegment>();
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				if (j + 1 < size && random.nextInt(10) > 0)
+					mGridSegments.add(new GeoSegment("Street " + i, mGrid[i][j], mGrid[i][j + 1]));
+				if (i + 1 < size && random.nextInt(10) > 0)
+					mGridSegments.add(new GeoSegment("Avenue " + j, mGrid[i][j], mGrid[i + 1][j]));
+			}
+		}
+		mGridGraph = new RoadGraph(mGridSegments, true);
+	}
+
+
+	boolean same(double x, double y) {
+		return ((y >= x-tolerance) && (y <= x+tolerance));
+	}
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	/**
+	 * Reference shortest distance: Bellman-Ford over all the segments,
+	 * traversed in both directions.
+	 */
+	static double referenceDistance(ArrayList<GeoSegment> segments, GeoPoint from, GeoPoint to) {
+		HashMap<GeoPoint, Double> dist = new HashMap<GeoPoint, Double>();
+		dist.put(from, 0.0);
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (GeoSegment s : segments) {
+				for (GeoSegment e : new GeoSegment[] { s, s.reverse() }) {
+					Double d = dist.get(e.getP1());
+					if (d == null)
+						continue;
+					Double old = dist.get(e.getP2());
+					if (old == null || d + e.getLength() < old - tolerance) {
+						dist.put(e.getP2(), d + e.getLength());
+						changed = true;
+					}
+				}
+			}
+		}
+		Double d = dist.get(to);
+		return d == null ? Double.POSITIVE_INFINITY : d;
+	}
+
+
+	/**
+	 * Checks that route is a chain of segments of the network from "from"
+	 * to "to".
+	 */
+	static boolean isValidRoute(Route route, ArrayList<GeoSegment> segments,
+			GeoPoint from, GeoPoint to) {
+		if (!route.getStart().equals(from) || !route.getEnd().equals(to))
+			return false;
+		Iterator<GeoSegment> iter = route.getGeoSegments();
+		while (iter.hasNext()) {
+			GeoSegment s = iter.next();
+			if (!segments.contains(s) && !segments.contains(s.reverse()))
+				return false;
+		}
+		return true;
+	}
+
+
+	public void test() {
+		show("construction");
+		show("14 example points", mExampleGraph.getNodeCount() == 14);
+		show("32 two-way example edges", mExampleGraph.getEdgeCount() == 32);
+		show("containsPoint()", mExampleGraph.containsPoint(ExampleGeoSegments.points[7]) &&
+			!mExampleGraph.containsPoint(new GeoPoint(0, 0)));
+
+		show("shortestRoute()");
+		ArrayList<GeoSegment> example = new ArrayList<GeoSegment>();
+		for (GeoSegment s : ExampleGeoSegments.segments)
+			example.add(s);
+		GeoPoint a = ExampleGeoSegments.points[0];
+		GeoPoint b = ExampleGeoSegments.points[5];
+		Route r = mExampleGraph.shortestRoute(a, b);
+		show("Example route is valid", isValidRoute(r, example, a, b));
+		show("Example route is shortest",
+			same(r.getLength(), referenceDistance(example, a, b)));
+
+		Random random = new Random(42);
+		boolean valid = true;
+		boolean shortest = true;
+		for (int q = 0; q < 30; q++) {
+			GeoPoint from = mGrid[random.nextInt(30)][random.nextInt(30)];
+			GeoPoint to = mGrid[random.nextInt(30)][random.nextInt(30)];
+			if (from.equals(to) || !mGridGraph.containsPoint(from) || !mGridGraph.containsPoint(to))
+				continue;
+			Route route = mGridGraph.shortestRoute(from, to);
+			double expected = referenceDistance(mGridSegments, from, to);
+			if (route == null) {
+				shortest &= expected == Double.POSITIVE_INFINITY;
+				continue;
+			}
+			valid &= isValidRoute(route, mGridSegments, from, to);
+			shortest &= same(route.getLength(), expected);
+		}
+		show("Grid routes are valid", valid);
+		show("Grid routes are shortest", shortest);
+
+		show("one-way");
+		RoadGraph oneWay = new RoadGraph(example, false);
+		RoadGraph single = new RoadGraph(new GeoSegment[] { ExampleGeoSegments.segments[0] }, false);
+		show("No way back against a one-way segment",
+			single.shortestRoute(ExampleGeoSegments.points[1], ExampleGeoSegments.points[0]) == null);
+		show("One-way route is longer than the two-way one",
+			oneWay.shortestRoute(ExampleGeoSegments.points[1], ExampleGeoSegments.points[0]).getLength() >
+			mExampleGraph.shortestRoute(ExampleGeoSegments.points[1], ExampleGeoSegments.points[0]).getLength());
+		show("Way forward along one-way segments",
+			oneWay.shortestRoute(ExampleGeoSegments.points[0], ExampleGeoSegments.points[2]) != null);
+	}
+
+
+	public static void main(String[] args) {
+		RoadGraphTest test = new RoadGraphTest();
+		test.test();
+	}
+}
@@ -0,0 +1,166 @@
+package tests;
+
+import homework1.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Iterator;
+import java.util.Random;
+
+public class RouteIOTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	private static byte[] write(Route... routes) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		RouteWriter writer = new RouteWriter(Channels.newChannel(bytes));
+		for (Route r : routes) {
+			writer.write(r);
+		}
+		writer.close();
+		return bytes.toByteArray();
+	}
+
+
+	private static RouteReader reader(byte[] bytes) {
+		return new RouteReader(Channels.newChannel(new ByteArrayInputStream(bytes)));
+	}
+
+
+	// a random walk through a city grid, with a new street every few segments
+	private static Route cityRoute(int segments) {
+		Random random = new Random(7);
+		GeoPoint p = new GeoPoint(32780000, 35010000);
+		Route route = null;
+		String name = "Street 0";
+		for (int i = 0; i < segments; i++) {
+			if (random.nextInt(8) == 0) {
+				name = "Street " + random.nextInt(40);
+			}
+			GeoPoint q;
+			do {
+				q = new GeoPoint(p.getLatitude() + random.nextInt(1601) - 800,
+					p.getLongitude() + random.nextInt(1601) - 800);
+			} while (q.equals(p));
+			GeoSegment gs = new GeoSegment(name, p, q);
+			route = route == null ? new Route(gs) : route.addSegment(gs);
+			p = q;
+		}
+		return route;
+	}
+
+
+	// each segment as its name and its four coordinates
+	private static int naiveSize(Route route) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		Iterator<GeoSegment> iter = route.getGeoSegments();
+		while (iter.hasNext()) {
+			GeoSegment gs = iter.next();
+			out.writeUTF(gs.getName());
+			out.writeInt(gs.getP1().getLatitude());
+			out.writeInt(gs.getP1().getLongitude());
+			out.writeInt(gs.getP2().getLatitude());
+			out.writeInt(gs.getP2().getLongitude());
+		}
+		out.close();
+		return bytes.size();
+	}
+
+
+	public void test() throws IOException {
+		GeoSegment[] segs = ExampleGeoSegments.segments;
+		Route example = new Route(segs[0]);
+		for (int i = 1; i <= 6; i++) {
+			example = example.addSegment(segs[i]);
+		}
+		Route city = cityRoute(100000);
+
+		show("round trip");
+		RouteReader reader = reader(write(example, city, example));
+		show("First route equals original", example.equals(reader.read()));
+		Route read = reader.read();
+		show("Second route equals original", city.equals(read));
+		show("Third route equals original", example.equals(reader.read()));
+		show("End of stream gives null", reader.read() == null);
+		Iterator<GeoSegment> iter = read.getGeoSegments();
+		GeoSegment first = iter.next();
+		show("Consecutive segments share their end point", first.getP2() == iter.next().getP1());
+
+		show("size");
+		int size = write(city).length;
+		int naive = naiveSize(city);
+		System.out.println(naive + " bytes naive, " + size + " bytes compact");
+		show("Compact encoding is at least 5 times smaller", naive >= 5 * size);
+
+		show("bad streams");
+		boolean thrown = false;
+		try {
+			reader(new byte[] { 1, 2, 3, 4, 5 }).read();
+		} catch (IOException e) {
+			thrown = true;
+		}
+		show("Bad header is rejected", thrown);
+		byte[] bytes = write(city);
+		byte[] truncated = new byte[bytes.length / 2];
+		System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+		thrown = false;
+		try {
+			reader(truncated).read();
+		} catch (IOException e) {
+			thrown = true;
+		}
+		show("Truncated stream is rejected", thrown);
+		// one feature at (0, 0), whose new name claims to be 2^31 - 1 bytes
+		byte[] huge = { 'R', 'O', 'U', 'T', 1, 1, 0, 0, 0,
+			(byte)0xff, (byte)0xff, (byte)0xff, (byte)0xff, 0x07 };
+		thrown = false;
+		try {
+			reader(huge).read();
+		} catch (IOException e) {
+			thrown = e.getMessage().equals("corrupt route stream");
+		}
+		show("Huge name length is rejected", thrown);
+
+		show("long names");
+		StringBuilder name = new StringBuilder();
+		while (name.length() < RouteWriter.MAX_NAME_LENGTH) {
+			name.append("Street ");
+		}
+		Route longName = new Route(new GeoSegment(name.toString(),
+			new GeoPoint(32000000, 35000000), new GeoPoint(32000100, 35000000)));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		RouteWriter writer = new RouteWriter(Channels.newChannel(out));
+		thrown = false;
+		try {
+			writer.write(longName);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		writer.write(city);
+		writer.close();
+		show("Too long name is not written", thrown);
+		show("Stream stays readable", city.equals(reader(out.toByteArray()).read()));
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		RouteIOTest test = new RouteIOTest();
+		test.test();
+	}
+}
@@ -0,0 +1,133 @@
+package tests;
+
+import homework1.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class RouteMetricsTest {
+
+	private static final int SEGMENTS = 1000;
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// a zigzag of SEGMENTS segments, with a new street every 10 segments
+	private static Route zigzag() {
+		GeoPoint p = new GeoPoint(32000000, 35000000);
+		Route route = null;
+		for (int i = 0; i < SEGMENTS; i++) {
+			GeoPoint q = new GeoPoint(p.getLatitude() + 100, p.getLongitude() + (i % 2 == 0 ? 50 : -50));
+			GeoSegment gs = new GeoSegment("Street " + i / 10, p, q);
+			route = route == null ? new Route(gs) : route.addSegment(gs);
+			p = q;
+		}
+		return route;
+	}
+
+
+	public void test() throws IOException {
+		RouteFormatter driving = new DrivingRouteFormatter();
+
+		show("disabled");
+		RouteMetrics.setEnabled(false);
+		RouteMetrics.reset();
+		Route route = zigzag();
+		driving.computeDirections(route, 0);
+		RouteMetrics.Snapshot s = RouteMetrics.snapshot();
+		boolean none = true;
+		for (RouteMetrics.Operation op : RouteMetrics.Operation.values()) {
+			none &= s.get(op).getCount() == 0 && s.get(op).getTimedCount() == 0;
+		}
+		show("Nothing is measured", none);
+
+		show("enabled");
+		RouteMetrics.setEnabled(true);
+		try {
+			route = zigzag();
+			String directions = driving.computeDirections(route, 0);
+			s = RouteMetrics.snapshot();
+			RouteMetrics.Stats add = s.get(RouteMetrics.Operation.ADD_SEGMENT);
+			show("Every addSegment is counted and timed",
+				add.getCount() == SEGMENTS - 1 && add.getTimedCount() == SEGMENTS - 1);
+			show("Latency summary is consistent", add.getPercentile(50) <= add.getPercentile(99) &&
+				add.getPercentile(99) <= add.getMax() && add.getMean() > 0);
+			show("Rep. checks are counted",
+				s.get(RouteMetrics.Operation.CHECK_REP).getCount() > 0);
+			show("One computeDirections", s.get(RouteMetrics.Operation.COMPUTE_DIRECTIONS)
+				.getCount() == 1);
+			RouteMetrics.Stats length = s.get(RouteMetrics.Operation.FEATURE_LENGTH);
+			show("getLength is counted but not timed", length.getCount() >= SEGMENTS / 10 &&
+				length.getTimedCount() == 0);
+			show("Directions unchanged", directions.equals(
+				new DrivingRouteFormatter().computeDirections(zigzag(), 0)));
+			show("Snapshot lists every operation",
+				s.toString().split("\n").length == RouteMetrics.Operation.values().length);
+
+			RouteMetrics.reset();
+			show("Reset", RouteMetrics.snapshot().get(RouteMetrics.Operation.ADD_SEGMENT)
+				.getCount() == 0);
+
+			show("flight recorder events");
+			Path file = Files.createTempFile("routes", ".jfr");
+			try (Recording recording = new Recording()) {
+				recording.enable("homework1.RouteBuild").withThreshold(Duration.ZERO);
+				recording.enable("homework1.Directions").withThreshold(Duration.ZERO);
+				recording.start();
+				route = zigzag();
+				driving.computeDirections(route, 0);
+				recording.stop();
+				recording.dump(file);
+			}
+			List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+			Files.delete(file);
+			int builds = 0;
+			int largest = 0;
+			RecordedEvent directionsEvent = null;
+			for (RecordedEvent e : events) {
+				String name = e.getEventType().getName();
+				if (name.equals("homework1.RouteBuild")) {
+					builds++;
+					largest = Math.max(largest, e.getInt("segmentCount"));
+				} else if (name.equals("homework1.Directions")) {
+					directionsEvent = e;
+				}
+			}
+			show("One build event per addSegment", builds == SEGMENTS - 1);
+			show("Build events carry the route size", largest == SEGMENTS);
+			show("Directions event carries the route size", directionsEvent != null &&
+				directionsEvent.getInt("segmentCount") == SEGMENTS &&
+				directionsEvent.getInt("featureCount") == SEGMENTS / 10 &&
+				((RecordedClass)directionsEvent.getValue("formatter")).getName()
+					.equals(DrivingRouteFormatter.class.getName()));
+		} finally {
+			RouteMetrics.setEnabled(false);
+			RouteMetrics.reset();
+		}
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		RouteMetricsTest test = new RouteMetricsTest();
+		test.test();
+	}
+}
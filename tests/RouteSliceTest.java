@@ -0,0 +1,208 @@
+package tests;
+
+import homework1.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+public class RouteSliceTest {
+
+	private static final int SEGMENTS = 2000;
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// a random walk of SEGMENTS segments, with a new street every 7
+	private static List<GeoSegment> walk(long seed) {
+		Random random = new Random(seed);
+		List<GeoSegment> segments = new ArrayList<GeoSegment>();
+		GeoPoint p = new GeoPoint(32000000, 35000000);
+		for (int i = 0; i < SEGMENTS; i++) {
+			GeoPoint q = new GeoPoint(p.getLatitude() + random.nextInt(2001) - 1000,
+				p.getLongitude() + random.nextInt(2001) - 1000);
+			segments.add(new GeoSegment("Street " + i / 7, p, q));
+			p = q;
+		}
+		return segments;
+	}
+
+
+	private static Route route(List<GeoSegment> segments) {
+		Route r = null;
+		for (GeoSegment gs : segments) {
+			r = r == null ? new Route(gs) : r.addSegment(gs);
+		}
+		return r;
+	}
+
+
+	// the point at a distance, found by walking the segments
+	private static GeoPoint linearPointAt(List<GeoSegment> segments, double distance) {
+		double traveled = 0;
+		for (GeoSegment gs : segments) {
+			if (distance <= traveled + gs.getLength()) {
+				double t = Math.max(0, Math.min(1, (distance - traveled) / gs.getLength()));
+				GeoPoint p1 = gs.getP1();
+				GeoPoint p2 = gs.getP2();
+				return new GeoPoint(
+					p1.getLatitude() + (int)Math.round(t * (p2.getLatitude() - p1.getLatitude())),
+					p1.getLongitude() + (int)Math.round(t * (p2.getLongitude() - p1.getLongitude())));
+			}
+			traveled += gs.getLength();
+		}
+		return segments.get(segments.size() - 1).getP2();
+	}
+
+
+	private static List<GeoSegment> segmentsOf(Route r) {
+		List<GeoSegment> list = new ArrayList<GeoSegment>();
+		Iterator<GeoSegment> iter = r.getGeoSegments();
+		while (iter.hasNext()) {
+			list.add(iter.next());
+		}
+		return list;
+	}
+
+
+	private static boolean rejected(Route r, double from, double to) {
+		try {
+			r.slice(from, to);
+		} catch (IllegalArgumentException e) {
+			return true;
+		}
+		return false;
+	}
+
+
+	public void test() {
+		List<GeoSegment> segments = walk(5);
+		Route route = route(segments);
+		double length = route.getLength();
+		Random random = new Random(6);
+
+		show("getPointAt");
+		show("At 0 is the start", route.getPointAt(0).equals(route.getStart()));
+		show("At the length is the end", route.getPointAt(length).equals(route.getEnd()));
+		double traveled = 0;
+		boolean joins = true;
+		for (int i = 0; i < 100; i++) {
+			traveled += segments.get(i).getLength();
+			joins &= route.getPointAt(traveled).equals(segments.get(i).getP2());
+		}
+		show("At the end of each segment is its end point", joins);
+		GeoSegment straight = new GeoSegment("Straight", new GeoPoint(32000000, 35000000),
+			new GeoPoint(32001000, 35000000));
+		show("Middle of a segment", new Route(straight).getPointAt(straight.getLength() / 2)
+			.equals(new GeoPoint(32000500, 35000000)));
+		boolean same = true;
+		for (int i = 0; i < 2000; i++) {
+			double d = random.nextDouble() * length;
+			same &= route.getPointAt(d).equals(linearPointAt(segments, d));
+		}
+		show("Same points as walking the route", same);
+
+		show("slice");
+		show("Whole route", route.slice(0, length).equals(route));
+		double from = 0;
+		double to = 0;
+		for (int i = 0; i < 70; i++) {
+			to += segments.get(i).getLength();
+			if (i < 10) {
+				from = to;
+			}
+		}
+		show("Between segment ends", segmentsOf(route.slice(from, to)).equals(segments.subList(10, 70)));
+		Route prefix = route(segments.subList(0, 70));
+		show("Prefix keeps the features", route.slice(0, to).equals(prefix) &&
+			route.slice(0, to).getFeatureCount() == 10);
+
+		boolean ends = true;
+		boolean lengths = true;
+		boolean inner = true;
+		boolean names = true;
+		for (int k = 0; k < 500; k++) {
+			double a = random.nextDouble() * length;
+			double b = random.nextDouble() * length;
+			from = Math.min(a, b);
+			to = Math.max(a, b);
+			Route slice = route.slice(from, to);
+			ends &= slice.getStart().equals(route.getPointAt(from)) &&
+				slice.getEnd().equals(route.getPointAt(to));
+			// each split end is off by at most half a millionth of a degree
+			// in each coordinate
+			lengths &= Math.abs(slice.getLength() - (to - from)) < 2e-4;
+			List<GeoSegment> pieces = segmentsOf(slice);
+			for (int i = 1; i < pieces.size() - 1; i++) {
+				inner &= segments.contains(pieces.get(i));
+			}
+			for (GeoSegment gs : pieces) {
+				names &= gs.getLength() > 0 || pieces.size() == 1;
+				names &= onSegmentNamed(segments, gs);
+			}
+		}
+		show("Slices start and end at getPointAt", ends);
+		show("Slice lengths", lengths);
+		show("Inner segments are the route's", inner);
+		show("Pieces keep their names, none is empty", names);
+
+		Route point = route.slice(length / 3, length / 3);
+		show("Empty slice", point.getSegmentCount() == 1 && point.getLength() == 0 &&
+			point.getStart().equals(route.getPointAt(length / 3)));
+		show("Slice keeps the policy", new Route(straight, ValidationPolicy.FULL)
+			.slice(0.01, 0.05).getValidationPolicy() == ValidationPolicy.FULL);
+		show("Bad distances are rejected", rejected(route, -0.1, 1) &&
+			rejected(route, 2, 1) && rejected(route, 0, length + 1) &&
+			rejected(route, Double.NaN, 1));
+		boolean thrown = false;
+		try {
+			route.getPointAt(length * 2);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Bad point distance is rejected", thrown);
+
+		show("appending after a query");
+		Route growing = route(segments.subList(0, 100));
+		double before = growing.getLength();
+		GeoPoint mid = growing.getPointAt(before / 2);
+		for (GeoSegment gs : segments.subList(100, 200)) {
+			growing.addSegment(gs);
+		}
+		show("Old distances still answer", growing.getPointAt(before / 2).equals(mid));
+		show("New distances answer", growing.getPointAt(growing.getLength())
+			.equals(segments.get(199).getP2()));
+	}
+
+
+	// whether gs lies on a segment of the walk with the same name, to
+	// within the rounding of its split ends
+	private static boolean onSegmentNamed(List<GeoSegment> segments, GeoSegment gs) {
+		for (GeoSegment s : segments) {
+			if (s.getName().equals(gs.getName()) && s.distanceTo(gs.getP1()) < 1e-4 &&
+					s.distanceTo(gs.getP2()) < 1e-4) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	public static void main(String[] args) {
+		RouteSliceTest test = new RouteSliceTest();
+		test.test();
+	}
+}
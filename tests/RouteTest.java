@@ -0,0 +1,81 @@
+package tests;
+
+import homework1.*;
+import java.util.Iterator;
+
+public class RouteTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// Hankin Road, then Trumpeldor Avenue, then Hagalil
+	private static Route route() {
+		Route r = new Route(ExampleGeoSegments.segments[0]);
+		for (int i = 1; i < 4; i++) {
+			r = r.addSegment(ExampleGeoSegments.segments[i]);
+		}
+		return r;
+	}
+
+
+	private static boolean removeFails(Iterator<?> iter) {
+		iter.next();
+		try {
+			iter.remove();
+		} catch (UnsupportedOperationException e) {
+			return true;
+		}
+		return false;
+	}
+
+
+	public void test() {
+		Route route = route();
+
+		show("iterators");
+		show("Features cannot be removed", removeFails(route.getGeoFeatures()));
+		show("Segments of a feature cannot be removed",
+			removeFails(route.getGeoFeatures().next().getGeoSegments()));
+		show("Segments of the route cannot be removed", removeFails(route.getGeoSegments()));
+		show("Route is unchanged", route.getFeatureCount() == 3 && route.getSegmentCount() == 4 &&
+			route.equals(route()));
+
+		show("returned features");
+		// extend the last feature through the GeoFeature that the route
+		// returns; the route must not see it, or the distances and count
+		// that it keeps go stale
+		Iterator<GeoFeature> iter = route.getGeoFeatures();
+		GeoFeature last = null;
+		while (iter.hasNext()) {
+			last = iter.next();
+		}
+		double length = route.getLength();
+		last = last.addSegment(ExampleGeoSegments.segments[4]);
+		show("Returned feature is extended", last.getEnd().equals(ExampleGeoSegments.points[5]));
+		show("Route is unchanged", route.getSegmentCount() == 4 && route.getLength() == length &&
+			route.getEnd().equals(ExampleGeoSegments.points[4]) && route.equals(route()));
+		show("Point at the end is the end", route.getPointAt(route.getLength()).equals(route.getEnd()));
+		route = route.addSegment(ExampleGeoSegments.segments[4]);
+		show("Route is extended", route.getSegmentCount() == 5 && route.getFeatureCount() == 3 &&
+			route.getEnd().equals(ExampleGeoSegments.points[5]) &&
+			Math.abs(route.getLength() - length - ExampleGeoSegments.segments[4].getLength()) < 1e-9);
+	}
+
+
+	public static void main(String[] args) {
+		RouteTest test = new RouteTest();
+		test.test();
+	}
+}
@@ -0,0 +1,120 @@
+package tests;
+
+import homework1.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import javax.swing.ListModel;
+
+public class SegmentCatalogTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	/**
+	 * Writes segs to file, replaces an int of its name table, and opens it.
+	 * @return true iff open() threw IOException.
+	 */
+	private static boolean corrupted(Path file, GeoSegment[] segs, int at, int value)
+			throws IOException {
+		SegmentCatalog.write(file, Arrays.asList(segs).iterator());
+		byte[] bytes = Files.readAllBytes(file);
+		ByteBuffer.wrap(bytes).putInt(24 + 20 * segs.length + at, value);
+		Files.write(file, bytes);
+		try {
+			SegmentCatalog.open(file);
+		} catch (IOException e) {
+			return true;
+		}
+		return false;
+	}
+
+
+	public void test() throws IOException {
+		GeoSegment[] segs = ExampleGeoSegments.segments;
+		Path file = Files.createTempFile("segments", ".cat");
+		try {
+			SegmentCatalog.write(file, Arrays.asList(segs).iterator());
+			SegmentCatalog catalog = SegmentCatalog.open(file);
+
+			show("contents");
+			show("size", catalog.size() == segs.length);
+			boolean same = true;
+			for (int i = 0; i < segs.length; i++) {
+				same &= catalog.get(i).equals(segs[i]);
+			}
+			show("get() equals the original segments", same);
+			boolean fields = true;
+			for (int i = 0; i < segs.length; i++) {
+				fields &= catalog.getP1Latitude(i) == segs[i].getP1().getLatitude();
+				fields &= catalog.getP1Longitude(i) == segs[i].getP1().getLongitude();
+				fields &= catalog.getP2Latitude(i) == segs[i].getP2().getLatitude();
+				fields &= catalog.getP2Longitude(i) == segs[i].getP2().getLongitude();
+				fields &= catalog.getName(catalog.getNameId(i)).equals(segs[i].getName());
+			}
+			show("Coordinates and names read from the file", fields);
+			show("Names are stored once",
+				catalog.getNameCount() < segs.length &&
+				catalog.getNameId(1) == catalog.getNameId(2));
+
+			show("list model");
+			ListModel<GeoSegment> model = catalog.asListModel();
+			show("size", model.getSize() == segs.length);
+			show("element", model.getElementAt(3).equals(segs[3]));
+
+			show("bad files");
+			boolean thrown = false;
+			try {
+				catalog.get(segs.length);
+			} catch (IndexOutOfBoundsException e) {
+				thrown = true;
+			}
+			show("Index past the end is rejected", thrown);
+			Files.write(file, new byte[] { 1, 2, 3 });
+			thrown = false;
+			try {
+				SegmentCatalog.open(file);
+			} catch (IOException e) {
+				thrown = true;
+			}
+			show("Bad file is rejected", thrown);
+			show("Decreasing name offsets are rejected", corrupted(file, segs, 4, -1));
+			show("Name offsets past the table are rejected", corrupted(file, segs, 4, 1 << 20));
+			SegmentCatalog.write(file, Arrays.asList(segs).iterator());
+			byte[] bytes = Files.readAllBytes(file);
+			// the name id of the first record
+			ByteBuffer.wrap(bytes).putInt(24 + 16, 1000);
+			Files.write(file, bytes);
+			thrown = false;
+			try {
+				SegmentCatalog.open(file).get(0);
+			} catch (UncheckedIOException e) {
+				thrown = e.getCause() != null;
+			}
+			show("Name id past the names is rejected", thrown);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		SegmentCatalogTest test = new SegmentCatalogTest();
+		test.test();
+	}
+}
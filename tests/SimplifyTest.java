@@ -0,0 +1,119 @@
+package tests;
+
+import homework1.*;
+import java.util.Iterator;
+import java.util.Random;
+
+public class SimplifyTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// a GPS-like track along a few streets: a fix every ~10 meters with
+	// a little noise, turning at each new street
+	private static Route gpsRoute() {
+		Random random = new Random(5);
+		String[] names = { "Hankin Road", "Trumpeldor Avenue", "Hagalil", "Hanita" };
+		int[][] directions = { { 90, 0 }, { 0, 100 }, { -60, 60 }, { 0, -100 } };
+		int lat = 32780000;
+		int lon = 35010000;
+		GeoPoint p = new GeoPoint(lat, lon);
+		Route route = null;
+		for (int f = 0; f < names.length; f++) {
+			for (int i = 0; i < 500; i++) {
+				lat += directions[f][0];
+				lon += directions[f][1];
+				GeoPoint q = new GeoPoint(lat + random.nextInt(5) - 2, lon + random.nextInt(5) - 2);
+				if (q.equals(p)) {
+					continue;
+				}
+				GeoSegment gs = new GeoSegment(names[f], p, q);
+				route = route == null ? new Route(gs) : route.addSegment(gs);
+				p = q;
+			}
+		}
+		return route;
+	}
+
+
+	private static double distanceToFeature(GeoPoint gp, GeoFeature gf) {
+		double min = Double.POSITIVE_INFINITY;
+		Iterator<GeoSegment> iter = gf.getGeoSegments();
+		while (iter.hasNext()) {
+			min = Math.min(min, iter.next().distanceTo(gp));
+		}
+		return min;
+	}
+
+
+	public void test() {
+		Route route = gpsRoute();
+		Route simple = route.simplify(5);
+
+		show("segment count");
+		System.out.println(route.getSegmentCount() + " segments before, " +
+			simple.getSegmentCount() + " after");
+		show("More than 90% of the segments are dropped",
+			simple.getSegmentCount() * 10 < route.getSegmentCount());
+		show("Same number of features", simple.getFeatureCount() == route.getFeatureCount());
+
+		show("features");
+		Iterator<GeoFeature> before = route.getGeoFeatures();
+		Iterator<GeoFeature> after = simple.getGeoFeatures();
+		boolean kept = true;
+		boolean within = true;
+		while (before.hasNext()) {
+			GeoFeature b = before.next();
+			GeoFeature a = after.next();
+			kept &= a.getName().equals(b.getName()) && a.getStart().equals(b.getStart()) &&
+				a.getEnd().equals(b.getEnd()) && a.getStartHeading() == b.getStartHeading() &&
+				a.getEndHeading() == b.getEndHeading();
+			Iterator<GeoSegment> iter = b.getGeoSegments();
+			while (iter.hasNext()) {
+				within &= distanceToFeature(iter.next().getP2(), a) <= 0.005;
+			}
+		}
+		show("Names, end points and headings are kept", kept);
+		show("Every original point is within 5 meters", within);
+		show("Length shrinks only a little",
+			simple.getLength() <= route.getLength() && simple.getLength() > 0.98 * route.getLength());
+		show("Directions are the same",
+			new DrivingRouteFormatter().computeDirections(simple, 0).equals(
+			new DrivingRouteFormatter().computeDirections(route, 0)));
+
+		show("small routes");
+		GeoSegment[] segs = ExampleGeoSegments.segments;
+		Route example = new Route(segs[0]);
+		for (int i = 1; i <= 6; i++) {
+			example = example.addSegment(segs[i]);
+		}
+		show("A route of short features is unchanged", example.simplify(5).equals(example));
+		show("Zero tolerance keeps every point off a straight line",
+			route.simplify(0).getSegmentCount() > simple.getSegmentCount());
+		boolean thrown = false;
+		try {
+			route.simplify(-1);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Negative tolerance is rejected", thrown);
+	}
+
+
+	public static void main(String[] args) {
+		SimplifyTest test = new SimplifyTest();
+		test.test();
+	}
+}
@@ -0,0 +1,213 @@
+package tests;
+
+import homework1.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+public class TrackImporterTest {
+
+	private static final String GPX =
+		"<?xml version=\"1.0\"?>\n" +
+		"<gpx version=\"1.1\" xmlns=\"http://www.topografix.com/GPX/1/1\">\n" +
+		" <wpt lat=\"10\" lon=\"10\"><name>Ignored</name></wpt>\n" +
+		" <trk><name>Hankin Road</name><trkseg>\n" +
+		"  <trkpt lat=\"32.780000\" lon=\"35.010000\"><name>Point</name></trkpt>\n" +
+		"  <trkpt lat=\"32.780000\" lon=\"35.010000\"/>\n" +
+		"  <trkpt lat=\"32.781000\" lon=\"35.011000\"/>\n" +
+		" </trkseg><trkseg>\n" +
+		"  <trkpt lat=\"32.781000\" lon=\"35.011000\"/>\n" +
+		"  <trkpt lat=\"32.782000\" lon=\"35.012000\"/>\n" +
+		" </trkseg></trk>\n" +
+		" <trk><trkseg>\n" +
+		"  <trkpt lat=\"32.783000\" lon=\"35.013000\"/>\n" +
+		"  <trkpt lat=\"32.784000\" lon=\"35.014000\"/>\n" +
+		" </trkseg></trk>\n" +
+		"</gpx>\n";
+
+	private static final String GEOJSON =
+		"{\"type\": \"FeatureCollection\", \"features\": [\n" +
+		" {\"type\": \"Feature\", \"geometry\": {\"type\": \"Point\", \"coordinates\": [1.0, 1.0]}},\n" +
+		" {\"type\": \"Feature\",\n" +
+		"  \"geometry\": {\"coordinates\": [[35.010000, 32.780000, 12.5], [35.011, 32.781],\n" +
+		"    [35.012, 32.782]], \"type\": \"LineString\"},\n" +
+		"  \"properties\": {\"lanes\": [1, 2], \"name\": \"Hankin \\u0052oad\"}},\n" +
+		" {\"type\": \"Feature\", \"properties\": null,\n" +
+		"  \"geometry\": {\"type\": \"MultiLineString\",\n" +
+		"   \"coordinates\": [[[35.013, 32.783]], [[35.013, 32.783], [35.014, 32.784]]]}}\n" +
+		"], \"name\": \"tracks\"}";
+
+
+	private static final String LINE =
+		"{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[35,32],[35.1,32.1]]}}";
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	private static ArrayList<GeoSegment> segments(Route r) {
+		ArrayList<GeoSegment> list = new ArrayList<GeoSegment>();
+		Iterator<GeoSegment> iter = r.getGeoSegments();
+		while (iter.hasNext()) {
+			list.add(iter.next());
+		}
+		return list;
+	}
+
+
+	// true iff the GeoJSON text is rejected
+	private static boolean rejected(String json) {
+		try {
+			TrackImporter.importGeoJson(new StringReader(json));
+		} catch (IOException e) {
+			return true;
+		}
+		return false;
+	}
+
+
+	private void checkTrack(String format, Route r) {
+		show(format + ": 4 segments", r.getSegmentCount() == 4);
+		Iterator<GeoFeature> features = r.getGeoFeatures();
+		GeoFeature first = features.next();
+		show(format + ": first feature is Hankin Road",
+			first.getName().equals("Hankin Road") && first.getStart().equals(new GeoPoint(32780000, 35010000)));
+		show(format + ": a line that starts where the last one ended continues it",
+			first.getEnd().equals(new GeoPoint(32782000, 35012000)));
+		GeoFeature gap = features.next();
+		show(format + ": a gap joins the tracks",
+			gap.getName().equals(TrackImporter.GAP) && gap.getEnd().equals(new GeoPoint(32783000, 35013000)));
+		GeoFeature third = features.next();
+		show(format + ": unnamed track follows it",
+			third.getName().equals(TrackImporter.UNNAMED) && !features.hasNext() &&
+			third.getEnd().equals(new GeoPoint(32784000, 35014000)));
+	}
+
+
+	// the names of the geographic features of r
+	private static ArrayList<String> names(Route r) {
+		ArrayList<String> list = new ArrayList<String>();
+		Iterator<GeoFeature> iter = r.getGeoFeatures();
+		while (iter.hasNext()) {
+			list.add(iter.next().getName());
+		}
+		return list;
+	}
+
+
+	public void test() throws IOException {
+		show("whole tracks");
+		Route gpx = TrackImporter.importGpx(
+			new ByteArrayInputStream(GPX.getBytes(StandardCharsets.UTF_8)));
+		checkTrack("GPX", gpx);
+		Route json = TrackImporter.importGeoJson(new StringReader(GEOJSON));
+		checkTrack("GeoJSON", json);
+		show("Both formats give the same route", gpx.equals(json));
+
+		show("gaps");
+		ArrayList<String> expected = new ArrayList<String>();
+		expected.add("Wadi");
+		expected.add(TrackImporter.GAP);
+		expected.add("Wadi");
+		Route segs = TrackImporter.importGpx(new ByteArrayInputStream((
+			"<gpx><trk><name>Wadi</name>" +
+			"<trkseg><trkpt lat=\"1\" lon=\"1\"/><trkpt lat=\"1.1\" lon=\"1\"/></trkseg>" +
+			"<trkseg><trkpt lat=\"1.2\" lon=\"1\"/><trkpt lat=\"1.3\" lon=\"1\"/></trkseg>" +
+			"</trk></gpx>").getBytes(StandardCharsets.UTF_8)));
+		show("A gap between the trksegs of a track", names(segs).equals(expected));
+		Route parts = TrackImporter.importGeoJson(new StringReader(
+			"{\"type\": \"Feature\", \"properties\": {\"name\": \"Wadi\"}, \"geometry\": " +
+			"{\"type\": \"MultiLineString\", \"coordinates\": " +
+			"[[[1, 1], [1, 1.1]], [[1, 1.2], [1, 1.3]]]}}"));
+		show("A gap between the parts of a MultiLineString", names(parts).equals(expected));
+		show("Both formats give the same gaps", segs.equals(parts));
+
+		show("chunks");
+		Iterator<Route> chunks = TrackImporter.gpxChunks(
+			new ByteArrayInputStream(GPX.getBytes(StandardCharsets.UTF_8)), 3);
+		ArrayList<GeoSegment> all = new ArrayList<GeoSegment>();
+		int count = 0;
+		while (chunks.hasNext()) {
+			Route r = chunks.next();
+			show("Chunk has at most 3 segments", r.getSegmentCount() <= 3);
+			all.addAll(segments(r));
+			count++;
+		}
+		show("2 chunks", count == 2);
+		show("Chunks concatenate to the whole track", all.equals(segments(gpx)));
+
+		show("bad input");
+		boolean thrown = false;
+		try {
+			TrackImporter.importGeoJson(new StringReader("{\"type\": \"LineString\", \"coordinates\": [[1, 2], [3,"));
+		} catch (IOException e) {
+			thrown = true;
+		}
+		show("Truncated GeoJSON is rejected", thrown);
+		thrown = false;
+		try {
+			TrackImporter.importGeoJson(new StringReader("{\"type\": \"LineString\", \"coordinates\": [[1, 2]]}"));
+		} catch (IOException e) {
+			thrown = true;
+		}
+		show("A single point is rejected", thrown);
+		show("Features with a comma are accepted", !rejected("{\"features\":[" + LINE + "," + LINE + "]}"));
+		show("Members without a comma are rejected",
+			rejected("{\"type\":\"LineString\" \"coordinates\":[[35,32],[35.1,32.1]]}"));
+		show("Positions without a comma are rejected",
+			rejected("{\"type\":\"LineString\",\"coordinates\":[[35,32] [35.1,32.1]]}"));
+		show("A trailing comma in an array is rejected",
+			rejected("{\"type\":\"LineString\",\"coordinates\":[[35,32],[35.1,32.1],]}"));
+		show("A leading comma in an array is rejected",
+			rejected("{\"type\":\"LineString\",\"coordinates\":[,[35,32],[35.1,32.1]]}"));
+		show("A doubled comma in an array is rejected",
+			rejected("{\"type\":\"LineString\",\"coordinates\":[[35,32],,[35.1,32.1]]}"));
+		show("A trailing comma in a position is rejected",
+			rejected("{\"type\":\"LineString\",\"coordinates\":[[35,32,],[35.1,32.1]]}"));
+		show("A trailing comma in an object is rejected",
+			rejected("{\"type\":\"LineString\",\"coordinates\":[[35,32],[35.1,32.1]],}"));
+		show("A leading comma in an object is rejected",
+			rejected("{,\"type\":\"LineString\",\"coordinates\":[[35,32],[35.1,32.1]]}"));
+		show("A doubled comma in an object is rejected",
+			rejected("{\"type\":\"LineString\",,\"coordinates\":[[35,32],[35.1,32.1]]}"));
+		show("Features without a comma are rejected",
+			rejected("{\"features\":[" + LINE + " " + LINE + "]}"));
+		show("A comma after the features is rejected",
+			rejected("{\"features\":[" + LINE + "],}"));
+		show("Skipped values are checked too",
+			rejected("{\"type\":\"LineString\",\"bbox\":[1 2],\"coordinates\":[[35,32],[35.1,32.1]]}") &&
+			rejected("{\"type\":\"LineString\",\"extra\":{\"a\":1,},\"coordinates\":[[35,32],[35.1,32.1]]}"));
+		show("Empty objects and arrays are accepted", !rejected(
+			"{\"type\":\"Feature\",\"properties\":{},\"extra\":{\"a\":[],\"b\":{}}," +
+			"\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[35,32],[35.1,32.1]]}}"));
+		thrown = false;
+		try {
+			TrackImporter.importGpx(new ByteArrayInputStream(
+				"<gpx><trk><trkpt lat=\"95\" lon=\"0\"/><trkpt lat=\"1\" lon=\"0\"/></trk></gpx>".getBytes(StandardCharsets.UTF_8)));
+		} catch (IOException e) {
+			thrown = true;
+		}
+		show("Latitude beyond the pole is rejected", thrown);
+	}
+
+
+	public static void main(String[] args) throws IOException {
+		TrackImporterTest test = new TrackImporterTest();
+		test.test();
+	}
+}
@@ -0,0 +1,112 @@
+package tests;
+
+import homework1.*;
+import java.util.Iterator;
+import java.util.Random;
+
+public class TurnClassifierTest {
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	// angle from h1 to h2, positive to the right, in (-180, 180]
+	private static double angle(double h1, double h2) {
+		double a = h2 - h1;
+		if (a > 180) {
+			a -= 360;
+		} else if (a <= -180) {
+			a += 360;
+		}
+		return a;
+	}
+
+
+	private static boolean nearThreshold(double a) {
+		double[] thresholds = { 10, 60, 120, 179 };
+		for (double t : thresholds) {
+			if (Math.abs(Math.abs(a) - t) < 0.000001) {
+				return true;
+			}
+		}
+		return Math.abs(a) < 0.000001 || Math.abs(a) > 179.999999;
+	}
+
+
+	public void test() {
+		show("headings");
+		show("0 -> 5 is Continue", TurnClassifier.classify(0, 5) == Turn.CONTINUE);
+		show("350 -> 20 is slight right", TurnClassifier.classify(350, 20) == Turn.SLIGHT_RIGHT);
+		show("90 -> 0 is left", TurnClassifier.classify(90, 0) == Turn.LEFT);
+		show("0 -> 230 is sharp left", TurnClassifier.classify(0, 230) == Turn.SHARP_LEFT);
+		show("0 -> 180 is U-Turn", TurnClassifier.classify(0, 180) == Turn.U_TURN);
+		show("Phrases are shared constants",
+			TurnClassifier.classify(90, 0).getPhrase() == TurnClassifier.classify(180, 90).getPhrase());
+
+		show("vectors");
+		Random random = new Random(13);
+		boolean agree = true;
+		for (int i = 0; i < 100000; i++) {
+			int lat1 = random.nextInt(2000001) - 1000000;
+			int lon1 = random.nextInt(2000001) - 1000000;
+			int lat2 = random.nextInt(2000001) - 1000000;
+			int lon2 = random.nextInt(2000001) - 1000000;
+			if ((lat1 == 0 && lon1 == 0) || (lat2 == 0 && lon2 == 0)) {
+				continue;
+			}
+			GeoPoint o = new GeoPoint(0, 0);
+			double h1 = o.headingTo(new GeoPoint(lat1, lon1));
+			double h2 = o.headingTo(new GeoPoint(lat2, lon2));
+			if (nearThreshold(angle(h1, h2))) {
+				continue;
+			}
+			agree &= TurnClassifier.classify(lat1, lon1, lat2, lon2) ==
+				TurnClassifier.classify(h1, h2);
+		}
+		show("Vector classification agrees with headings", agree);
+
+		show("route boundaries");
+		GeoSegment[] segs = ExampleGeoSegments.segments;
+		Route route = new Route(segs[0]);
+		for (int i = 1; i <= 6; i++) {
+			route = route.addSegment(segs[i]);
+		}
+		Turn[] turns = new Turn[route.getFeatureCount()];
+		int n = TurnClassifier.classifyBoundaries(route, turns);
+		show("One turn per boundary", n == route.getFeatureCount() - 1);
+		Iterator<GeoFeature> iter = route.getGeoFeatures();
+		double heading = iter.next().getEndHeading();
+		boolean same = true;
+		for (int i = 0; i < n; i++) {
+			GeoFeature gf = iter.next();
+			same &= turns[i] == TurnClassifier.classify(heading, gf.getStartHeading());
+			heading = gf.getEndHeading();
+		}
+		show("Boundary turns match the feature headings", same);
+
+		boolean thrown = false;
+		try {
+			TurnClassifier.classify(0, 0, 1, 1);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Zero vector is rejected", thrown);
+	}
+
+
+	public static void main(String[] args) {
+		TurnClassifierTest test = new TurnClassifierTest();
+		test.test();
+	}
+}
@@ -0,0 +1,156 @@
+package tests;
+
+import homework1.*;
+import java.lang.reflect.Field;
+import java.util.Iterator;
+
+public class ValidationPolicyTest {
+
+	private static final int SEGMENTS = 100;
+
+
+	public void show(String str) {
+		System.out.println();
+		System.out.println("***** " + str + " *****");
+	}
+
+
+	public void show(String str, boolean ok) {
+		if (ok)
+			System.out.print("v ");
+		else
+			System.out.print("x ");
+		System.out.println(str);
+	}
+
+
+	private static GeoSegment segment(String name, int from, int to) {
+		return new GeoSegment(name, new GeoPoint(32000000 + from, 35000000),
+			new GeoPoint(32000000 + to, 35000000));
+	}
+
+
+	// a straight route of SEGMENTS segments, with a new street every 5
+	private static Route route(ValidationPolicy policy) {
+		Route r = new Route(segment("Street 0", 0, 100), policy);
+		for (int i = 1; i < SEGMENTS; i++) {
+			r = r.addSegment(segment("Street " + i / 5, 100 * i, 100 * (i + 1)));
+		}
+		return r;
+	}
+
+
+	/**
+	 * Corrupts the distance that a route keeps for its first segment, which
+	 * cannot be done through its public interface, and then appends a
+	 * segment to the route.
+	 * @return true iff the append threw IllegalStateException.
+	 */
+	private static boolean breakAndAppend(Route r) {
+		try {
+			Field field = Route.class.getDeclaredField("cumulative");
+			field.setAccessible(true);
+			((double[])field.get(r))[1] += 1;
+		} catch (ReflectiveOperationException e) {
+			throw new AssertionError(e);
+		}
+		int last = r.getEnd().getLatitude() - 32000000;
+		try {
+			r.addSegment(segment("Street 99", last, last + 100));
+		} catch (IllegalStateException e) {
+			return true;
+		}
+		return false;
+	}
+
+
+	public void test() {
+		show("policies");
+		show("Default is BOUNDARY_ONLY", ValidationPolicy.getDefault() == ValidationPolicy.BOUNDARY_ONLY);
+		show("Names", ValidationPolicy.FULL.toString().equals("FULL") &&
+			ValidationPolicy.sampled(10).toString().equals("sampled(10)"));
+		show("Parse", ValidationPolicy.parse("off") == ValidationPolicy.OFF &&
+			ValidationPolicy.parse(" Boundary_Only ") == ValidationPolicy.BOUNDARY_ONLY &&
+			ValidationPolicy.parse("sampled(7)").toString().equals("sampled(7)"));
+		show("sampled(1) is FULL", ValidationPolicy.sampled(1) == ValidationPolicy.FULL);
+		boolean thrown = false;
+		try {
+			ValidationPolicy.parse("sometimes");
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("Unknown name is rejected", thrown);
+		thrown = false;
+		try {
+			ValidationPolicy.sampled(0);
+		} catch (IllegalArgumentException e) {
+			thrown = true;
+		}
+		show("sampled(0) is rejected", thrown);
+
+		show("per instance and global");
+		Route r = route(ValidationPolicy.FULL);
+		Iterator<GeoFeature> iter = r.getGeoFeatures();
+		show("Route and features share the policy", r.getValidationPolicy() == ValidationPolicy.FULL &&
+			iter.next().getValidationPolicy() == ValidationPolicy.FULL);
+		ValidationPolicy saved = ValidationPolicy.getDefault();
+		try {
+			ValidationPolicy.setDefault(ValidationPolicy.OFF);
+			show("Global default", new Route(segment("a", 0, 1)).getValidationPolicy() ==
+				ValidationPolicy.OFF && new GeoFeature(segment("a", 0, 1))
+					.getValidationPolicy() == ValidationPolicy.OFF);
+			show("Explicit policy wins", new Route(segment("a", 0, 1), ValidationPolicy.FULL)
+				.getValidationPolicy() == ValidationPolicy.FULL);
+		} finally {
+			ValidationPolicy.setDefault(saved);
+		}
+		show("Simplified route keeps the policy",
+			r.simplify(1).getValidationPolicy() == ValidationPolicy.FULL);
+
+		show("validation counts");
+		// every route of SEGMENTS / 5 features is made of 1 + SEGMENTS / 5
+		// constructions and SEGMENTS - 1 appends
+		int features = SEGMENTS / 5;
+		ValidationPolicy.resetCounts();
+		route(ValidationPolicy.OFF);
+		show("OFF checks nothing", ValidationPolicy.getValidationCount() == 0);
+		ValidationPolicy.resetCounts();
+		route(ValidationPolicy.FULL);
+		long full = ValidationPolicy.getFullValidationCount();
+		show("FULL checks every change fully", full == ValidationPolicy.getValidationCount() &&
+			full == (1 + features) + (SEGMENTS - 1) + (SEGMENTS - features));
+		ValidationPolicy.resetCounts();
+		route(ValidationPolicy.BOUNDARY_ONLY);
+		show("BOUNDARY_ONLY fully checks only new objects",
+			ValidationPolicy.getFullValidationCount() == 1 + features &&
+			ValidationPolicy.getValidationCount() > 1 + features);
+		ValidationPolicy.resetCounts();
+		route(ValidationPolicy.sampled(10));
+		long sampled = ValidationPolicy.getValidationCount();
+		show("sampled(10) checks a fraction", sampled == ValidationPolicy.getFullValidationCount() &&
+			sampled < full / 4);
+
+		show("violations");
+		show("FULL detects a stale distance", breakAndAppend(route(ValidationPolicy.FULL)));
+		show("BOUNDARY_ONLY misses a distance it did not add",
+			!breakAndAppend(route(ValidationPolicy.BOUNDARY_ONLY)));
+		show("OFF detects nothing", !breakAndAppend(route(ValidationPolicy.OFF)));
+		Route sampledRoute = route(ValidationPolicy.sampled(5));
+		boolean detected = breakAndAppend(sampledRoute);
+		for (int i = 0; i < 5 && !detected; i++) {
+			int last = sampledRoute.getEnd().getLatitude() - 32000000;
+			try {
+				sampledRoute.addSegment(segment("Street 99", last, last + 100));
+			} catch (IllegalStateException e) {
+				detected = true;
+			}
+		}
+		show("sampled(5) detects it within 5 changes", detected);
+	}
+
+
+	public static void main(String[] args) {
+		ValidationPolicyTest test = new ValidationPolicyTest();
+		test.test();
+	}
+}